@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ *  A reusable A* solver over an IntGraph.  It is Dijkstra's algorithm with
+ *  the heap ordered by distance from the source plus a Heuristic's lower
+ *  bound on the distance to the target, so the search is drawn toward the
+ *  target and settles far fewer nodes.  With a consistent heuristic every
+ *  settled node is final, and the returned costs are exactly those of
+ *  ShortestPathSolver.
+ *
+ *  Like ShortestPathSolver, all state is allocated once and reset by
+ *  generation stamps.  A solver is not thread-safe; use one per thread.
+ */
+public class AStarSolver implements PathFinder, ShortestPath.ParentArcs {
+  /** The graph being searched. */
+  private final IntGraph graph;
+
+  /** The weights of the graph's arcs. */
+  private final WeightProvider weights;
+
+  /** The lower bound used to guide the search. */
+  private final Heuristic heuristic;
+
+  /** Distance from the source of each touched node. */
+  private final int[] distance;
+
+  /** Heuristic estimate of each touched node, computed once per query. */
+  private final int[] estimate;
+
+  /** Arc by which each touched node was reached, or -1 for the source. */
+  private final int[] parentArc;
+
+  /** Generation in which each node was last touched. */
+  private final int[] touched;
+
+  /** Generation in which each node was last settled. */
+  private final int[] settled;
+
+  /** The frontier, keyed by distance plus estimate. */
+  private final IndexedMinHeap queue;
+
+  /** The current generation. */
+  private int generation;
+
+  /** Number of nodes settled by the last query. */
+  private int numSettled;
+
+  /**
+   *  Constructor.  Guides the search by straight-line distance, using the
+   *  weights stored in the graph.
+   *
+   *  @param graph  the graph to search, which must have coordinates
+   */
+  public AStarSolver(IntGraph graph) {
+    this(graph, graph, new EuclideanHeuristic(graph));
+  }
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph      the graph to search
+   *  @param weights    the weights of the graph's arcs
+   *  @param heuristic  a consistent lower bound for those weights
+   */
+  public AStarSolver(IntGraph graph, WeightProvider weights, Heuristic heuristic) {
+    this.graph = graph;
+    this.weights = weights;
+    this.heuristic = heuristic;
+    int numNodes = graph.numNodes();
+    distance = new int[numNodes];
+    estimate = new int[numNodes];
+    parentArc = new int[numNodes];
+    touched = new int[numNodes];
+    settled = new int[numNodes];
+    queue = new IndexedMinHeap(numNodes);
+  }
+
+  /**
+   *  Finds a shortest path from a source to a target.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @return        the path, which is not found if target is unreachable
+   */
+  public ShortestPath shortestPath(int source, int target) {
+    if (source < 0 || source >= graph.numNodes() || target < 0 || target >= graph.numNodes()) {
+      throw new Error("The supplied node is not a node of this graph.");
+    }
+    generation += 1;
+    if (generation == 0) {
+      Arrays.fill(touched, 0);
+      Arrays.fill(settled, 0);
+      generation = 1;
+    }
+    queue.clear();
+    numSettled = 0;
+    heuristic.setTarget(target);
+    distance[source] = 0;
+    estimate[source] = heuristic.estimate(source);
+    parentArc[source] = -1;
+    touched[source] = generation;
+    queue.insert(source, estimate[source]);
+
+    while (!queue.isEmpty()) {
+      int node = queue.extractMin();
+      settled[node] = generation;
+      numSettled += 1;
+      if (node == target) {
+        return ShortestPath.fromParents(graph, source, target, distance[target], this);
+      }
+      long nodeDistance = distance[node];
+      for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+        int head = graph.head(arc);
+        if (settled[head] == generation) {
+          continue;
+        }
+        long newDistance = nodeDistance + weights.weight(arc);
+        if (touched[head] != generation) {
+          estimate[head] = heuristic.estimate(head);
+        }
+        else if (newDistance >= distance[head]) {
+          continue;
+        }
+        distance[head] = (int) newDistance;
+        parentArc[head] = arc;
+        touched[head] = generation;
+        queue.insertOrDecrease(head, newDistance + estimate[head]);
+      }
+    }
+    return ShortestPath.notFound(source, target);
+  }
+
+  /**
+   *  Returns the arc by which a node was reached in the last query.
+   *
+   *  @param node  the node id
+   *  @return      the arc id, or -1 for the source or an unreached node
+   */
+  public int parentArc(int node) {
+    return touched[node] == generation ? parentArc[node] : -1;
+  }
+
+  /**
+   *  Returns the number of nodes settled by the last query.
+   *
+   *  @return the number of settled nodes
+   */
+  public int numSettled() {
+    return numSettled;
+  }
+}
@@ -0,0 +1,256 @@
+import java.util.Arrays;
+
+/**
+ *  A reusable bidirectional Dijkstra solver over an IntGraph.  A forward
+ *  search runs from the source over outgoing arcs and a backward search
+ *  runs from the target over incoming arcs; the two take turns settling a
+ *  node.  Whenever an arc is relaxed into a node the other search has
+ *  reached, the combined length is a candidate for the shortest path.  The
+ *  query stops once the two frontier minima add up to at least the best
+ *  candidate, at which point no shorter path can exist.  On road-like
+ *  graphs the two balls settled this way are far smaller than the single
+ *  ball of a one-directional search.
+ *
+ *  Like ShortestPathSolver, all state is allocated once and reset by
+ *  generation stamps.  A solver is not thread-safe; use one per thread.
+ */
+public class BidirectionalSolver implements PathFinder {
+  /** The graph being searched. */
+  private final IntGraph graph;
+
+  /** The weights of the graph's arcs. */
+  private final WeightProvider weights;
+
+  /** Distance from the source of each node touched by the forward search. */
+  private final int[] forwardDistance;
+
+  /** Arc by which the forward search reached each node. */
+  private final int[] forwardParent;
+
+  /** Generation in which each node was touched by the forward search. */
+  private final int[] forwardTouched;
+
+  /** Distance to the target of each node touched by the backward search. */
+  private final int[] backwardDistance;
+
+  /** Arc leaving each node toward the target in the backward search. */
+  private final int[] backwardParent;
+
+  /** Generation in which each node was touched by the backward search. */
+  private final int[] backwardTouched;
+
+  /** Frontier of the forward search. */
+  private final IndexedMinHeap forwardQueue;
+
+  /** Frontier of the backward search. */
+  private final IndexedMinHeap backwardQueue;
+
+  /** The current generation. */
+  private int generation;
+
+  /** Length of the best path seen so far in the current query. */
+  private long bestCost;
+
+  /** The node where the best path's two halves meet, or -1. */
+  private int meetingNode;
+
+  /** Number of nodes settled by the last query, in both directions. */
+  private int numSettled;
+
+  /**
+   *  Constructor.  Uses the weights stored in the graph.
+   *
+   *  @param graph  the graph to search
+   */
+  public BidirectionalSolver(IntGraph graph) {
+    this(graph, graph);
+  }
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph    the graph to search
+   *  @param weights  the weights of the graph's arcs
+   */
+  public BidirectionalSolver(IntGraph graph, WeightProvider weights) {
+    this.graph = graph;
+    this.weights = weights;
+    int numNodes = graph.numNodes();
+    forwardDistance = new int[numNodes];
+    forwardParent = new int[numNodes];
+    forwardTouched = new int[numNodes];
+    backwardDistance = new int[numNodes];
+    backwardParent = new int[numNodes];
+    backwardTouched = new int[numNodes];
+    forwardQueue = new IndexedMinHeap(numNodes);
+    backwardQueue = new IndexedMinHeap(numNodes);
+  }
+
+  /**
+   *  Finds a shortest path from a source to a target.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @return        the path, which is not found if target is unreachable
+   */
+  public ShortestPath shortestPath(int source, int target) {
+    if (source < 0 || source >= graph.numNodes() || target < 0 || target >= graph.numNodes()) {
+      throw new Error("The supplied node is not a node of this graph.");
+    }
+    start(source, target);
+    boolean forward = true;
+    while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+      if (forwardQueue.minKey() + backwardQueue.minKey() >= bestCost) {
+        break;
+      }
+      if (forward) {
+        settleForward();
+      }
+      else {
+        settleBackward();
+      }
+      forward = !forward;
+    }
+    if (meetingNode < 0) {
+      return ShortestPath.notFound(source, target);
+    }
+    return buildPath(source, target);
+  }
+
+  /**
+   *  Returns the number of nodes settled by the last query.
+   *
+   *  @return the number of settled nodes, counting both directions
+   */
+  public int numSettled() {
+    return numSettled;
+  }
+
+  /**
+   *  Begins a new query from source to target.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   */
+  private void start(int source, int target) {
+    generation += 1;
+    if (generation == 0) {
+      Arrays.fill(forwardTouched, 0);
+      Arrays.fill(backwardTouched, 0);
+      generation = 1;
+    }
+    forwardQueue.clear();
+    backwardQueue.clear();
+    numSettled = 0;
+    bestCost = Long.MAX_VALUE;
+    meetingNode = -1;
+    forwardDistance[source] = 0;
+    forwardParent[source] = -1;
+    forwardTouched[source] = generation;
+    forwardQueue.insert(source, 0);
+    backwardDistance[target] = 0;
+    backwardParent[target] = -1;
+    backwardTouched[target] = generation;
+    backwardQueue.insert(target, 0);
+    if (source == target) {
+      bestCost = 0;
+      meetingNode = source;
+    }
+  }
+
+  /**
+   *  Settles the next node of the forward search and relaxes its outgoing
+   *  arcs.
+   */
+  private void settleForward() {
+    int node = forwardQueue.extractMin();
+    numSettled += 1;
+    long nodeDistance = forwardDistance[node];
+    for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+      int head = graph.head(arc);
+      long newDistance = nodeDistance + weights.weight(arc);
+      if (forwardTouched[head] != generation || newDistance < forwardDistance[head]) {
+        forwardDistance[head] = (int) newDistance;
+        forwardParent[head] = arc;
+        forwardTouched[head] = generation;
+        forwardQueue.insertOrDecrease(head, newDistance);
+        if (backwardTouched[head] == generation) {
+          offer(head, newDistance + backwardDistance[head]);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Settles the next node of the backward search and relaxes its incoming
+   *  arcs.
+   */
+  private void settleBackward() {
+    int node = backwardQueue.extractMin();
+    numSettled += 1;
+    long nodeDistance = backwardDistance[node];
+    for (int index = graph.inStart(node); index < graph.inEnd(node); index++) {
+      int arc = graph.inArc(index);
+      int tail = graph.tail(arc);
+      long newDistance = nodeDistance + weights.weight(arc);
+      if (backwardTouched[tail] != generation || newDistance < backwardDistance[tail]) {
+        backwardDistance[tail] = (int) newDistance;
+        backwardParent[tail] = arc;
+        backwardTouched[tail] = generation;
+        backwardQueue.insertOrDecrease(tail, newDistance);
+        if (forwardTouched[tail] == generation) {
+          offer(tail, newDistance + forwardDistance[tail]);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Records a path through a node if it beats the best one so far.
+   *
+   *  @param node  the node where the two searches meet
+   *  @param cost  the length of the path through node
+   */
+  private void offer(int node, long cost) {
+    if (cost < bestCost) {
+      bestCost = cost;
+      meetingNode = node;
+    }
+  }
+
+  /**
+   *  Joins the forward path to the meeting node and the backward path from
+   *  it.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @return        the whole path
+   */
+  private ShortestPath buildPath(int source, int target) {
+    int forwardLength = 0;
+    for (int node = meetingNode; node != source; node = graph.tail(forwardParent[node])) {
+      forwardLength += 1;
+    }
+    int backwardLength = 0;
+    for (int node = meetingNode; node != target; node = graph.head(backwardParent[node])) {
+      backwardLength += 1;
+    }
+    int length = forwardLength + backwardLength;
+    int[] nodes = new int[length + 1];
+    int[] arcs = new int[length];
+    int node = meetingNode;
+    nodes[forwardLength] = node;
+    for (int i = forwardLength - 1; i >= 0; i--) {
+      arcs[i] = forwardParent[node];
+      node = graph.tail(arcs[i]);
+      nodes[i] = node;
+    }
+    node = meetingNode;
+    for (int i = forwardLength; i < length; i++) {
+      arcs[i] = backwardParent[node];
+      node = graph.head(arcs[i]);
+      nodes[i + 1] = node;
+    }
+    return new ShortestPath(source, target, (int) bestCost, nodes, arcs);
+  }
+}
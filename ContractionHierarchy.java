@@ -0,0 +1,728 @@
+import java.util.Arrays;
+
+/**
+ *  A Contraction Hierarchy over an IntGraph, for very fast point-to-point
+ *  queries on graphs whose weights do not change between rebuilds.
+ *
+ *  Preprocessing contracts the nodes one at a time in order of importance.
+ *  Contracting v removes it from the remaining graph; for every pair of
+ *  neighbours u -> v -> x whose shortest connection runs through v a
+ *  shortcut arc u -> x is added, unless a local "witness" search finds a
+ *  path from u to x that avoids v and is no longer.  Importance is the edge
+ *  difference (shortcuts added minus arcs removed) plus the number of
+ *  neighbours already contracted, kept up to date lazily.
+ *
+ *  A query is a bidirectional Dijkstra in which the forward search only
+ *  follows arcs to more important nodes and the backward search only
+ *  follows arcs from more important nodes, so both climb the hierarchy and
+ *  meet near the top.  Shortcuts on the resulting path are unpacked
+ *  recursively into the original arcs of the snapshot, whose ids are the
+ *  same as in the graph, so ShortestPath.edges() gives the original
+ *  Graph.Edge objects.
+ *
+ *  The query state is allocated once and reset by generation stamps, as in
+ *  BidirectionalSolver.  A hierarchy is not thread-safe; for concurrent
+ *  queries build one and share it read-only through copy().
+ */
+public class ContractionHierarchy implements PathFinder {
+  /** The snapshot the hierarchy was built from. */
+  private final IntGraph graph;
+
+  /** Position of each node in the contraction order. */
+  private final int[] rank;
+
+  /** Number of arcs, original and shortcut. */
+  private final int numArcs;
+
+  /** Tail of each arc; arcs below graph.numArcs() are the original ones. */
+  private final int[] arcTail;
+
+  /** Head of each arc. */
+  private final int[] arcHead;
+
+  /** Weight of each arc. */
+  private final int[] arcWeight;
+
+  /** First half of each shortcut, or -1 for an original arc. */
+  private final int[] arcFirst;
+
+  /** Second half of each shortcut, or -1 for an original arc. */
+  private final int[] arcSecond;
+
+  /** Index into upArcs of each node's first arc to a higher node, plus a sentinel. */
+  private final int[] upOffsets;
+
+  /** Arcs leading to a higher-ranked node, grouped by tail. */
+  private final int[] upArcs;
+
+  /** Index into downArcs of each node's first arc from a higher node, plus a sentinel. */
+  private final int[] downOffsets;
+
+  /** Arcs arriving from a higher-ranked node, grouped by head. */
+  private final int[] downArcs;
+
+  /** Distance from the source of each node touched by the forward search. */
+  private final int[] forwardDistance;
+
+  /** Arc by which the forward search reached each node. */
+  private final int[] forwardParent;
+
+  /** Generation in which each node was touched by the forward search. */
+  private final int[] forwardTouched;
+
+  /** Distance to the target of each node touched by the backward search. */
+  private final int[] backwardDistance;
+
+  /** Arc leaving each node toward the target in the backward search. */
+  private final int[] backwardParent;
+
+  /** Generation in which each node was touched by the backward search. */
+  private final int[] backwardTouched;
+
+  /** Frontier of the forward search. */
+  private final IndexedMinHeap forwardQueue;
+
+  /** Frontier of the backward search. */
+  private final IndexedMinHeap backwardQueue;
+
+  /** The current generation. */
+  private int generation;
+
+  /** Length of the best path seen so far in the current query. */
+  private long bestCost;
+
+  /** The node where the best path's two halves meet, or -1. */
+  private int meetingNode;
+
+  /** Number of nodes settled by the last query. */
+  private int numSettled;
+
+  /**
+   *  Constructor.  Wraps a finished hierarchy and allocates query state.
+   */
+  private ContractionHierarchy(IntGraph graph, int[] rank, int numArcs, int[] arcTail,
+                               int[] arcHead, int[] arcWeight, int[] arcFirst, int[] arcSecond) {
+    this.graph = graph;
+    this.rank = rank;
+    this.numArcs = numArcs;
+    this.arcTail = arcTail;
+    this.arcHead = arcHead;
+    this.arcWeight = arcWeight;
+    this.arcFirst = arcFirst;
+    this.arcSecond = arcSecond;
+    int numNodes = graph.numNodes();
+
+    // Split the arcs into upward ones, stored at their tail, and downward
+    // ones, stored at their head so that the backward search can climb them
+    upOffsets = new int[numNodes + 1];
+    downOffsets = new int[numNodes + 1];
+    for (int arc = 0; arc < numArcs; arc++) {
+      int tail = arcTail[arc];
+      int head = arcHead[arc];
+      if (rank[head] > rank[tail]) {
+        upOffsets[tail + 1] += 1;
+      }
+      else if (rank[head] < rank[tail]) {
+        downOffsets[head + 1] += 1;
+      }
+    }
+    for (int v = 0; v < numNodes; v++) {
+      upOffsets[v + 1] += upOffsets[v];
+      downOffsets[v + 1] += downOffsets[v];
+    }
+    upArcs = new int[upOffsets[numNodes]];
+    downArcs = new int[downOffsets[numNodes]];
+    int[] upFill = Arrays.copyOf(upOffsets, numNodes);
+    int[] downFill = Arrays.copyOf(downOffsets, numNodes);
+    for (int arc = 0; arc < numArcs; arc++) {
+      int tail = arcTail[arc];
+      int head = arcHead[arc];
+      if (rank[head] > rank[tail]) {
+        upArcs[upFill[tail]++] = arc;
+      }
+      else if (rank[head] < rank[tail]) {
+        downArcs[downFill[head]++] = arc;
+      }
+    }
+
+    forwardDistance = new int[numNodes];
+    forwardParent = new int[numNodes];
+    forwardTouched = new int[numNodes];
+    backwardDistance = new int[numNodes];
+    backwardParent = new int[numNodes];
+    backwardTouched = new int[numNodes];
+    forwardQueue = new IndexedMinHeap(numNodes);
+    backwardQueue = new IndexedMinHeap(numNodes);
+  }
+
+  /**
+   *  Contracts a graph using the weights stored in it.
+   *
+   *  @param graph  the graph
+   *  @return       the hierarchy
+   */
+  public static ContractionHierarchy build(IntGraph graph) {
+    return build(graph, graph);
+  }
+
+  /**
+   *  Contracts a graph.  The weights are read once; rebuild the hierarchy if
+   *  they change.
+   *
+   *  @param graph    the graph
+   *  @param weights  the weights of its arcs
+   *  @return         the hierarchy
+   */
+  public static ContractionHierarchy build(IntGraph graph, WeightProvider weights) {
+    return new Contractor(graph, weights).contract();
+  }
+
+  /**
+   *  Returns a hierarchy that shares this one's preprocessed arrays but has
+   *  its own query state, for use on another thread.
+   *
+   *  @return the copy
+   */
+  public ContractionHierarchy copy() {
+    return new ContractionHierarchy(graph, rank, numArcs, arcTail, arcHead, arcWeight,
+                                    arcFirst, arcSecond);
+  }
+
+  /**
+   *  Returns the number of shortcut arcs added by preprocessing.
+   *
+   *  @return the number of shortcuts
+   */
+  public int numShortcuts() {
+    return numArcs - graph.numArcs();
+  }
+
+  /**
+   *  Returns the position of a node in the contraction order.
+   *
+   *  @param node  the node id
+   *  @return      its rank; higher means more important
+   */
+  public int rank(int node) {
+    return rank[node];
+  }
+
+  /**
+   *  Finds a shortest path from a source to a target.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @return        the path, which is not found if target is unreachable
+   */
+  public ShortestPath shortestPath(int source, int target) {
+    int numNodes = graph.numNodes();
+    if (source < 0 || source >= numNodes || target < 0 || target >= numNodes) {
+      throw new Error("The supplied node is not a node of this graph.");
+    }
+    start(source, target);
+    while (true) {
+      long forwardMin = forwardQueue.isEmpty() ? Long.MAX_VALUE : forwardQueue.minKey();
+      long backwardMin = backwardQueue.isEmpty() ? Long.MAX_VALUE : backwardQueue.minKey();
+      if (Math.min(forwardMin, backwardMin) >= bestCost) {
+        break;
+      }
+      if (forwardMin <= backwardMin) {
+        settleForward();
+      }
+      else {
+        settleBackward();
+      }
+    }
+    if (meetingNode < 0) {
+      return ShortestPath.notFound(source, target);
+    }
+    return unpack(source, target);
+  }
+
+  /**
+   *  Returns the number of nodes settled by the last query.
+   *
+   *  @return the number of settled nodes, counting both directions
+   */
+  public int numSettled() {
+    return numSettled;
+  }
+
+  /**
+   *  Begins a new query from source to target.
+   */
+  private void start(int source, int target) {
+    generation += 1;
+    if (generation == 0) {
+      Arrays.fill(forwardTouched, 0);
+      Arrays.fill(backwardTouched, 0);
+      generation = 1;
+    }
+    forwardQueue.clear();
+    backwardQueue.clear();
+    numSettled = 0;
+    bestCost = Long.MAX_VALUE;
+    meetingNode = -1;
+    forwardDistance[source] = 0;
+    forwardParent[source] = -1;
+    forwardTouched[source] = generation;
+    forwardQueue.insert(source, 0);
+    backwardDistance[target] = 0;
+    backwardParent[target] = -1;
+    backwardTouched[target] = generation;
+    backwardQueue.insert(target, 0);
+    if (source == target) {
+      bestCost = 0;
+      meetingNode = source;
+    }
+  }
+
+  /**
+   *  Settles the next node of the forward search and relaxes its upward arcs.
+   */
+  private void settleForward() {
+    int node = forwardQueue.extractMin();
+    numSettled += 1;
+    long nodeDistance = forwardDistance[node];
+    for (int i = upOffsets[node]; i < upOffsets[node + 1]; i++) {
+      int arc = upArcs[i];
+      int head = arcHead[arc];
+      long newDistance = nodeDistance + arcWeight[arc];
+      if (forwardTouched[head] != generation || newDistance < forwardDistance[head]) {
+        forwardDistance[head] = (int) newDistance;
+        forwardParent[head] = arc;
+        forwardTouched[head] = generation;
+        forwardQueue.insertOrDecrease(head, newDistance);
+        if (backwardTouched[head] == generation) {
+          offer(head, newDistance + backwardDistance[head]);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Settles the next node of the backward search and relaxes the arcs that
+   *  reach it from higher nodes.
+   */
+  private void settleBackward() {
+    int node = backwardQueue.extractMin();
+    numSettled += 1;
+    long nodeDistance = backwardDistance[node];
+    for (int i = downOffsets[node]; i < downOffsets[node + 1]; i++) {
+      int arc = downArcs[i];
+      int tail = arcTail[arc];
+      long newDistance = nodeDistance + arcWeight[arc];
+      if (backwardTouched[tail] != generation || newDistance < backwardDistance[tail]) {
+        backwardDistance[tail] = (int) newDistance;
+        backwardParent[tail] = arc;
+        backwardTouched[tail] = generation;
+        backwardQueue.insertOrDecrease(tail, newDistance);
+        if (forwardTouched[tail] == generation) {
+          offer(tail, newDistance + forwardDistance[tail]);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Records a path through a node if it beats the best one so far.
+   */
+  private void offer(int node, long cost) {
+    if (cost < bestCost) {
+      bestCost = cost;
+      meetingNode = node;
+    }
+  }
+
+  /**
+   *  Collects the hierarchy arcs of the best path and expands every
+   *  shortcut into the original arcs it stands for.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @return        the path over original arcs
+   */
+  private ShortestPath unpack(int source, int target) {
+    // Hierarchy arcs from source to target, in order
+    int forwardLength = 0;
+    for (int node = meetingNode; node != source; node = arcTail[forwardParent[node]]) {
+      forwardLength += 1;
+    }
+    int backwardLength = 0;
+    for (int node = meetingNode; node != target; node = arcHead[backwardParent[node]]) {
+      backwardLength += 1;
+    }
+    int[] hierarchyArcs = new int[forwardLength + backwardLength];
+    int node = meetingNode;
+    for (int i = forwardLength - 1; i >= 0; i--) {
+      hierarchyArcs[i] = forwardParent[node];
+      node = arcTail[hierarchyArcs[i]];
+    }
+    node = meetingNode;
+    for (int i = forwardLength; i < hierarchyArcs.length; i++) {
+      hierarchyArcs[i] = backwardParent[node];
+      node = arcHead[hierarchyArcs[i]];
+    }
+    // Push in reverse so that the first arc is popped first
+    int[] stack = new int[hierarchyArcs.length + 2];
+    int top = 0;
+    for (int i = hierarchyArcs.length - 1; i >= 0; i--) {
+      stack[top++] = hierarchyArcs[i];
+    }
+
+    // Expand depth-first; every shortcut is replaced by its two halves
+    int[] arcs = new int[Math.max(16, hierarchyArcs.length)];
+    int length = 0;
+    while (top > 0) {
+      int arc = stack[--top];
+      if (arcFirst[arc] < 0) {
+        if (length == arcs.length) {
+          arcs = Arrays.copyOf(arcs, 2 * length);
+        }
+        arcs[length++] = arc;
+      }
+      else {
+        if (top + 2 > stack.length) {
+          stack = Arrays.copyOf(stack, 2 * stack.length + 2);
+        }
+        stack[top++] = arcSecond[arc];
+        stack[top++] = arcFirst[arc];
+      }
+    }
+    arcs = Arrays.copyOf(arcs, length);
+    int[] nodes = new int[length + 1];
+    nodes[0] = source;
+    for (int i = 0; i < length; i++) {
+      nodes[i + 1] = arcHead[arcs[i]];
+    }
+    return new ShortestPath(source, target, (int) bestCost, nodes, arcs);
+  }
+
+  /**
+   *  The mutable state of preprocessing: a shrinking graph with adjacency
+   *  lists of arc ids, the growing arc arrays, and a witness search.
+   */
+  private static class Contractor {
+    /** Most nodes a witness search may settle when contracting a node. */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    /** Most nodes a witness search may settle when only estimating priority. */
+    private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+    /** The snapshot being contracted. */
+    private final IntGraph graph;
+
+    /** Number of nodes. */
+    private final int numNodes;
+
+    /** Arc arrays, grown as shortcuts are added. */
+    private int[] arcTail, arcHead, arcWeight, arcFirst, arcSecond;
+
+    /** Number of arcs so far. */
+    private int numArcs;
+
+    /** Outgoing arc ids of each node; may include arcs to contracted nodes. */
+    private final int[][] out;
+
+    /** Number of entries used in each out list. */
+    private final int[] outSize;
+
+    /** Incoming arc ids of each node; may include arcs from contracted nodes. */
+    private final int[][] in;
+
+    /** Number of entries used in each in list. */
+    private final int[] inSize;
+
+    /** Has each node been contracted? */
+    private final boolean[] contracted;
+
+    /** Number of contracted neighbours of each node. */
+    private final int[] deletedNeighbors;
+
+    /** Position of each node in the contraction order. */
+    private final int[] rank;
+
+    /** Witness search distances. */
+    private final int[] witnessDistance;
+
+    /** Generation stamp of each witness distance. */
+    private final int[] witnessTouched;
+
+    /** Current witness search generation. */
+    private int witnessGeneration;
+
+    /** Witness search frontier. */
+    private final IndexedMinHeap witnessQueue;
+
+    /**
+     *  Constructor.  Copies the graph into mutable adjacency lists.
+     */
+    Contractor(IntGraph graph, WeightProvider weights) {
+      this.graph = graph;
+      numNodes = graph.numNodes();
+      int capacity = Math.max(16, 2 * graph.numArcs());
+      arcTail = new int[capacity];
+      arcHead = new int[capacity];
+      arcWeight = new int[capacity];
+      arcFirst = new int[capacity];
+      arcSecond = new int[capacity];
+      out = new int[numNodes][];
+      outSize = new int[numNodes];
+      in = new int[numNodes][];
+      inSize = new int[numNodes];
+      for (int v = 0; v < numNodes; v++) {
+        out[v] = new int[Math.max(2, graph.outDegree(v))];
+        in[v] = new int[Math.max(2, graph.inEnd(v) - graph.inStart(v))];
+      }
+      for (int arc = 0; arc < graph.numArcs(); arc++) {
+        addArc(graph.tail(arc), graph.head(arc), weights.weight(arc), -1, -1);
+      }
+      contracted = new boolean[numNodes];
+      deletedNeighbors = new int[numNodes];
+      rank = new int[numNodes];
+      witnessDistance = new int[numNodes];
+      witnessTouched = new int[numNodes];
+      witnessQueue = new IndexedMinHeap(numNodes);
+    }
+
+    /**
+     *  Contracts every node and returns the finished hierarchy.
+     */
+    ContractionHierarchy contract() {
+      IndexedMinHeap order = new IndexedMinHeap(numNodes);
+      for (int v = 0; v < numNodes; v++) {
+        order.insert(v, priority(v));
+      }
+      int nextRank = 0;
+      while (!order.isEmpty()) {
+        int v = order.extractMin();
+        // Lazy update: the stored priority may be stale
+        long priority = priority(v);
+        if (!order.isEmpty() && priority > order.minKey()) {
+          order.insert(v, priority);
+          continue;
+        }
+        contractNode(v, false);
+        contracted[v] = true;
+        rank[v] = nextRank++;
+        for (int i = 0; i < outSize[v]; i++) {
+          int head = arcHead[out[v][i]];
+          if (!contracted[head]) {
+            inSize[head] = prune(in[head], inSize[head]);
+          }
+        }
+        for (int i = 0; i < inSize[v]; i++) {
+          int tail = arcTail[in[v][i]];
+          if (!contracted[tail]) {
+            outSize[tail] = prune(out[tail], outSize[tail]);
+          }
+        }
+        for (int i = 0; i < outSize[v]; i++) {
+          touchNeighbor(arcHead[out[v][i]], order);
+        }
+        for (int i = 0; i < inSize[v]; i++) {
+          touchNeighbor(arcTail[in[v][i]], order);
+        }
+      }
+      return new ContractionHierarchy(graph, rank, numArcs, Arrays.copyOf(arcTail, numArcs),
+                                      Arrays.copyOf(arcHead, numArcs),
+                                      Arrays.copyOf(arcWeight, numArcs),
+                                      Arrays.copyOf(arcFirst, numArcs),
+                                      Arrays.copyOf(arcSecond, numArcs));
+    }
+
+    /**
+     *  Counts a contracted neighbour and refreshes the node's priority.
+     */
+    private void touchNeighbor(int node, IndexedMinHeap order) {
+      if (!contracted[node] && order.contains(node)) {
+        deletedNeighbors[node] += 1;
+        order.changeKey(node, priority(node));
+      }
+    }
+
+    /**
+     *  Returns the importance of a node: the edge difference of contracting
+     *  it now plus its number of contracted neighbours.
+     */
+    private long priority(int v) {
+      int removed = 0;
+      for (int i = 0; i < outSize[v]; i++) {
+        if (!contracted[arcHead[out[v][i]]]) {
+          removed += 1;
+        }
+      }
+      for (int i = 0; i < inSize[v]; i++) {
+        if (!contracted[arcTail[in[v][i]]]) {
+          removed += 1;
+        }
+      }
+      return contractNode(v, true) - removed + deletedNeighbors[v];
+    }
+
+    /**
+     *  Finds the shortcuts needed to contract v, and adds them unless only
+     *  simulating.
+     *
+     *  @param v         the node to contract
+     *  @param simulate  true to count the shortcuts without adding them
+     *  @return          the number of shortcuts
+     */
+    private int contractNode(int v, boolean simulate) {
+      int shortcuts = 0;
+      int numIn = inSize[v];
+      int numOut = outSize[v];
+      for (int i = 0; i < numIn; i++) {
+        int inArc = in[v][i];
+        int u = arcTail[inArc];
+        if (contracted[u] || u == v) {
+          continue;
+        }
+        long maxVia = -1;
+        for (int j = 0; j < numOut; j++) {
+          int x = arcHead[out[v][j]];
+          if (!contracted[x] && x != v && x != u) {
+            maxVia = Math.max(maxVia, (long) arcWeight[inArc] + arcWeight[out[v][j]]);
+          }
+        }
+        if (maxVia < 0) {
+          continue;
+        }
+        witnessSearch(u, v, maxVia, simulate ? SIMULATION_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+        for (int j = 0; j < numOut; j++) {
+          int outArc = out[v][j];
+          int x = arcHead[outArc];
+          if (contracted[x] || x == v || x == u) {
+            continue;
+          }
+          long via = (long) arcWeight[inArc] + arcWeight[outArc];
+          if (witness(x) > via) {
+            shortcuts += 1;
+            if (!simulate) {
+              addShortcut(u, x, (int) via, inArc, outArc);
+            }
+          }
+        }
+      }
+      return shortcuts;
+    }
+
+    /**
+     *  Runs a Dijkstra search from u that avoids v and contracted nodes,
+     *  stopping at the distance limit or after settling maxSettled nodes.
+     *  Stopping early can only add unneeded shortcuts, never lose a path.
+     */
+    private void witnessSearch(int u, int v, long limit, int maxSettled) {
+      witnessGeneration += 1;
+      if (witnessGeneration == 0) {
+        Arrays.fill(witnessTouched, 0);
+        witnessGeneration = 1;
+      }
+      witnessQueue.clear();
+      witnessDistance[u] = 0;
+      witnessTouched[u] = witnessGeneration;
+      witnessQueue.insert(u, 0);
+      int settled = 0;
+      while (!witnessQueue.isEmpty() && settled < maxSettled) {
+        if (witnessQueue.minKey() > limit) {
+          break;
+        }
+        int node = witnessQueue.extractMin();
+        settled += 1;
+        long nodeDistance = witnessDistance[node];
+        for (int i = 0; i < outSize[node]; i++) {
+          int arc = out[node][i];
+          int head = arcHead[arc];
+          if (head == v || contracted[head]) {
+            continue;
+          }
+          long newDistance = nodeDistance + arcWeight[arc];
+          if (witnessTouched[head] != witnessGeneration || newDistance < witnessDistance[head]) {
+            witnessDistance[head] = (int) Math.min(newDistance, Integer.MAX_VALUE);
+            witnessTouched[head] = witnessGeneration;
+            witnessQueue.insertOrDecrease(head, newDistance);
+          }
+        }
+      }
+    }
+
+    /**
+     *  Returns the witness distance of a node, or infinity if not reached.
+     */
+    private long witness(int x) {
+      return witnessTouched[x] == witnessGeneration ? witnessDistance[x] : Long.MAX_VALUE;
+    }
+
+    /**
+     *  Drops the arcs that touch contracted nodes from an adjacency list.
+     *
+     *  @param arcs  the list
+     *  @param size  the number of entries used
+     *  @return      the new number of entries
+     */
+    private int prune(int[] arcs, int size) {
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        int arc = arcs[i];
+        if (!contracted[arcTail[arc]] && !contracted[arcHead[arc]]) {
+          arcs[kept++] = arc;
+        }
+      }
+      return kept;
+    }
+
+    /**
+     *  Adds a shortcut from u to x, unless u already has an arc to x that is
+     *  no longer.  An existing longer shortcut is shortened in place rather
+     *  than duplicated.
+     */
+    private void addShortcut(int u, int x, int weight, int first, int second) {
+      for (int i = 0; i < outSize[u]; i++) {
+        int arc = out[u][i];
+        if (arcHead[arc] == x) {
+          if (arcWeight[arc] <= weight) {
+            return;
+          }
+          if (arcFirst[arc] >= 0) {
+            arcWeight[arc] = weight;
+            arcFirst[arc] = first;
+            arcSecond[arc] = second;
+            return;
+          }
+        }
+      }
+      addArc(u, x, weight, first, second);
+    }
+
+    /**
+     *  Adds an arc, or a shortcut made of two arcs, to the graph.
+     */
+    private void addArc(int tail, int head, int weight, int first, int second) {
+      if (numArcs == arcTail.length) {
+        int capacity = 2 * numArcs;
+        arcTail = Arrays.copyOf(arcTail, capacity);
+        arcHead = Arrays.copyOf(arcHead, capacity);
+        arcWeight = Arrays.copyOf(arcWeight, capacity);
+        arcFirst = Arrays.copyOf(arcFirst, capacity);
+        arcSecond = Arrays.copyOf(arcSecond, capacity);
+      }
+      int arc = numArcs++;
+      arcTail[arc] = tail;
+      arcHead[arc] = head;
+      arcWeight[arc] = weight;
+      arcFirst[arc] = first;
+      arcSecond[arc] = second;
+      if (tail == head) {
+        return;
+      }
+      if (outSize[tail] == out[tail].length) {
+        out[tail] = Arrays.copyOf(out[tail], 2 * outSize[tail]);
+      }
+      out[tail][outSize[tail]++] = arc;
+      if (inSize[head] == in[head].length) {
+        in[head] = Arrays.copyOf(in[head], 2 * inSize[head]);
+      }
+      in[head][inSize[head]++] = arc;
+    }
+  }
+}
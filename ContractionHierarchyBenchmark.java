@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ *  Compares ContractionHierarchy with plain Dijkstra on a road-like graph
+ *  or on a graph loaded from a file.  Every query is answered by both, and
+ *  the hierarchy's answer must have the same cost and be a real path of the
+ *  original graph: consecutive original arcs, from the source to the
+ *  target, whose weights add up to the cost.  The program stops at the
+ *  first query that disagrees.  Otherwise it prints the preprocessing time,
+ *  the shortcuts added, and the average time and settled nodes per query
+ *  of each engine.
+ *
+ *  The generated road-like graphs are jittered grids.  They have no
+ *  hierarchy of major roads, so contraction adds several shortcuts per
+ *  node and takes far longer than on a real road network of the same size.
+ *  Give a DIMACS .gr file instead of a node count to measure such a network.
+ *
+ *  Usage: java ContractionHierarchyBenchmark [nodes | file] [queries] [seed]
+ */
+public class ContractionHierarchyBenchmark {
+  /**
+   *  Runs the comparison.
+   *
+   *  @param args  optional node count or file name, query count and random
+   *               seed
+   *  @throws IOException  if the file cannot be read or is malformed
+   */
+  public static void main(String[] args) throws IOException {
+    String input = args.length > 0 ? args[0] : "20000";
+    int numQueries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+    CsrGraph<Object,Object> graph;
+    if (input.chars().allMatch(Character::isDigit)) {
+      CsrBuilder builder = new CsrBuilder();
+      GraphGenerators.roadLike(Integer.parseInt(input), seed, builder);
+      graph = builder.build();
+    }
+    else {
+      graph = GraphLoader.load(Paths.get(input));
+    }
+    System.out.printf("%d nodes, %d arcs%n", graph.numNodes(), graph.numArcs());
+
+    long start = System.nanoTime();
+    ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+    System.out.printf("contracted in %.1f ms, %d shortcuts%n",
+                      (System.nanoTime() - start) / 1e6, hierarchy.numShortcuts());
+
+    ShortestPathSolver dijkstra = new ShortestPathSolver(graph);
+    Random random = new Random(seed);
+    long dijkstraNanos = 0;
+    long hierarchyNanos = 0;
+    long dijkstraSettled = 0;
+    long hierarchySettled = 0;
+    int numFound = 0;
+    for (int i = 0; i < numQueries; i++) {
+      int source = random.nextInt(graph.numNodes());
+      int target = random.nextInt(graph.numNodes());
+      start = System.nanoTime();
+      ShortestPath expected = dijkstra.shortestPath(source, target);
+      dijkstraNanos += System.nanoTime() - start;
+      dijkstraSettled += dijkstra.numSettled();
+      start = System.nanoTime();
+      ShortestPath actual = hierarchy.shortestPath(source, target);
+      hierarchyNanos += System.nanoTime() - start;
+      hierarchySettled += hierarchy.numSettled();
+      if (actual.isFound() != expected.isFound() || actual.cost() != expected.cost()) {
+        fail("query " + source + " -> " + target + ": Dijkstra found " + expected.cost()
+             + ", the hierarchy " + actual.cost());
+      }
+      if (actual.isFound()) {
+        checkPath(graph, actual);
+        numFound += 1;
+      }
+    }
+    System.out.printf("%d queries agree, %d of them with a path%n", numQueries, numFound);
+    System.out.println("engine       ms/query  settled/query");
+    System.out.printf("Dijkstra   %10.3f %14d%n", dijkstraNanos / 1e6 / numQueries, dijkstraSettled / numQueries);
+    System.out.printf("hierarchy  %10.3f %14d%n", hierarchyNanos / 1e6 / numQueries, hierarchySettled / numQueries);
+  }
+
+  /**
+   *  Checks that a path is made of consecutive arcs of the graph from its
+   *  source to its target, and that their weights add up to its cost.
+   *
+   *  @param graph  the original graph
+   *  @param path   the path to check
+   */
+  private static void checkPath(IntGraph graph, ShortestPath path) {
+    long cost = 0;
+    for (int i = 0; i < path.numArcs(); i++) {
+      int arc = path.arc(i);
+      if (arc < 0 || arc >= graph.numArcs()
+          || graph.tail(arc) != path.node(i) || graph.head(arc) != path.node(i + 1)) {
+        fail("path " + path + " has a step that is not an arc of the graph");
+      }
+      cost += graph.weight(arc);
+    }
+    if (path.node(0) != path.source() || path.node(path.numArcs()) != path.target() || cost != path.cost()) {
+      fail("path " + path + " does not join its ends at its cost");
+    }
+  }
+
+  /**
+   *  Reports a disagreement and stops.
+   *
+   *  @param message  what went wrong
+   */
+  private static void fail(String message) {
+    System.out.println("MISMATCH: " + message);
+    System.exit(1);
+  }
+}
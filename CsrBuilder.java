@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+/**
+ *  Collects nodes and weighted arcs in growable primitive arrays and turns
+ *  them into a CsrGraph.  Arcs may be added in any order; build() sorts them
+ *  by tail with a counting sort, keeping arcs with the same tail in the
+ *  order they were added.  No object is created per node or per arc.
+ */
+public class CsrBuilder implements GraphSink {
+  /** Number of nodes added. */
+  private int numNodes;
+
+  /** The x coordinate of each node. */
+  private int[] xs;
+
+  /** The y coordinate of each node. */
+  private int[] ys;
+
+  /** Number of arcs added. */
+  private int numArcs;
+
+  /** The tail of each arc. */
+  private int[] tails;
+
+  /** The head of each arc. */
+  private int[] heads;
+
+  /** The weight of each arc. */
+  private int[] weights;
+
+  /**
+   *  Constructor.  Creates an empty builder.
+   */
+  public CsrBuilder() {
+    this(16, 16);
+  }
+
+  /**
+   *  Constructor.  Creates an empty builder with room for the given numbers
+   *  of nodes and arcs, so that large inputs of known size are not copied
+   *  as the arrays grow.
+   *
+   *  @param nodeCapacity  the expected number of nodes
+   *  @param arcCapacity   the expected number of arcs
+   */
+  public CsrBuilder(int nodeCapacity, int arcCapacity) {
+    xs = new int[Math.max(1, nodeCapacity)];
+    ys = new int[Math.max(1, nodeCapacity)];
+    tails = new int[Math.max(1, arcCapacity)];
+    heads = new int[Math.max(1, arcCapacity)];
+    weights = new int[Math.max(1, arcCapacity)];
+  }
+
+  /**
+   *  Returns the number of nodes added so far.
+   *
+   *  @return the number of nodes
+   */
+  public int numNodes() {
+    return numNodes;
+  }
+
+  /**
+   *  Returns the number of arcs added so far.
+   *
+   *  @return the number of arcs
+   */
+  public int numArcs() {
+    return numArcs;
+  }
+
+  /**
+   *  Adds the next node.
+   *
+   *  @param x  the x coordinate of the node
+   *  @param y  the y coordinate of the node
+   */
+  public void addNode(int x, int y) {
+    if (numNodes == xs.length) {
+      xs = Arrays.copyOf(xs, numNodes * 2);
+      ys = Arrays.copyOf(ys, numNodes * 2);
+    }
+    xs[numNodes] = x;
+    ys[numNodes] = y;
+    numNodes += 1;
+  }
+
+  /**
+   *  Adds an arc weighted by the truncated straight-line distance between
+   *  its endpoints, the weight Dijkstra uses.
+   *
+   *  @param tail  the id of the tail
+   *  @param head  the id of the head
+   */
+  public void addEdge(int tail, int head) {
+    checkNode(tail);
+    checkNode(head);
+    addArc(tail, head, (int) Math.hypot(xs[head] - xs[tail], ys[head] - ys[tail]));
+  }
+
+  public void addEdge(int tail, int head, int weight) {
+    checkNode(tail);
+    checkNode(head);
+    addArc(tail, head, weight);
+  }
+
+  /**
+   *  Adds an arc with the given weight.
+   *
+   *  @param tail    the id of the tail
+   *  @param head    the id of the head
+   *  @param weight  the weight, which must not be negative
+   */
+  public void addArc(int tail, int head, int weight) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("Edge weights must not be negative.");
+    }
+    if (numArcs == tails.length) {
+      tails = Arrays.copyOf(tails, numArcs * 2);
+      heads = Arrays.copyOf(heads, numArcs * 2);
+      weights = Arrays.copyOf(weights, numArcs * 2);
+    }
+    tails[numArcs] = tail;
+    heads[numArcs] = head;
+    weights[numArcs] = weight;
+    numArcs += 1;
+  }
+
+  /**
+   *  Builds the snapshot of everything added so far.
+   *
+   *  @return the snapshot, with coordinates but no node or edge objects
+   */
+  public <N,E> CsrGraph<N,E> build() {
+    int[] offsets = new int[numNodes + 1];
+    for (int i = 0; i < numArcs; i++) {
+      checkNode(tails[i]);
+      checkNode(heads[i]);
+      offsets[tails[i] + 1] += 1;
+    }
+    for (int v = 0; v < numNodes; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] targets = new int[numArcs];
+    int[] arcWeights = new int[numArcs];
+    int[] fill = Arrays.copyOf(offsets, numNodes);
+    for (int i = 0; i < numArcs; i++) {
+      int arc = fill[tails[i]]++;
+      targets[arc] = heads[i];
+      arcWeights[arc] = weights[i];
+    }
+    return new CsrGraph<N,E>(offsets, targets, arcWeights,
+                             Arrays.copyOf(xs, numNodes), Arrays.copyOf(ys, numNodes));
+  }
+
+  /**
+   *  Checks that a node id has been added.
+   */
+  private void checkNode(int node) {
+    if (node < 0 || node >= numNodes) {
+      throw new Error("Node " + node + " has not been added.");
+    }
+  }
+}
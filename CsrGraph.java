@@ -0,0 +1,539 @@
+import java.util.*;
+
+/**
+ *  An immutable snapshot of a graph in compressed sparse row (CSR) form.
+ *  Nodes are numbered densely from 0 to numNodes()-1, and the outgoing arcs
+ *  of node v are the arc ids outStart(v) up to (but not including)
+ *  outEnd(v).  Each arc has a head and a primitive int weight, so a
+ *  neighbour scan is a walk over a slice of an int array.  The incoming arcs
+ *  of every node are indexed as well, for searches that run backwards.
+ *
+ *  A snapshot built from a Graph remembers the original node and edge
+ *  objects, so the usual Processor based traversals can be run on it
+ *  directly.  If the node data are PlacedData, their coordinates are
+ *  copied into the snapshot too.
+ *
+ *  @param <N>  the type of the data associated with a node
+ *  @param <E>  the type of the data associated with an edge
+ */
+public class CsrGraph<N,E> implements IntGraph {
+  /**
+   *  Computes the weight of an edge when a snapshot is built.
+   *
+   *  @param <N>  the type of the data associated with a node
+   *  @param <E>  the type of the data associated with an edge
+   */
+  public interface Weigher<N,E> {
+    /**
+     *  Returns the weight of the given edge, which must not be negative.
+     *
+     *  @param edge  the edge to weigh
+     *  @return      the weight of the edge
+     */
+    int weight(Graph.Edge<N,E> edge);
+  }
+
+  /** Index of the first outgoing arc of each node, plus a final sentinel. */
+  private final int[] offsets;
+
+  /** Tail of each arc. */
+  private final int[] tails;
+
+  /** Head of each arc. */
+  private final int[] targets;
+
+  /** Weight of each arc. */
+  private final int[] weights;
+
+  /** Index into inArcs of the first incoming arc of each node, plus a sentinel. */
+  private final int[] inOffsets;
+
+  /** Arc ids grouped by head. */
+  private final int[] inArcs;
+
+  /** Node x coordinates, or null if the snapshot has no coordinates. */
+  private final int[] xs;
+
+  /** Node y coordinates, or null if the snapshot has no coordinates. */
+  private final int[] ys;
+
+  /** The original node objects by id, or null if there are none. */
+  private final Graph.Node<N,E>[] nodes;
+
+  /** The original edge objects by arc id, or null if there are none. */
+  private final Graph.Edge<N,E>[] edges;
+
+  /** Map from original node object to id, or null if there are none. */
+  private final Map<Graph.Node<N,E>, Integer> ids;
+
+  /**
+   *  Constructor.  Builds a snapshot directly from arc arrays.  The arcs
+   *  must already be sorted by tail, with offsets describing the slices.
+   *
+   *  @param offsets  index of the first arc of each node, length numNodes+1
+   *  @param targets  head of each arc
+   *  @param weights  weight of each arc
+   *  @param xs       x coordinate of each node, or null
+   *  @param ys       y coordinate of each node, or null
+   */
+  public CsrGraph(int[] offsets, int[] targets, int[] weights, int[] xs, int[] ys) {
+    this(offsets, targets, weights, xs, ys, null, null, null);
+  }
+
+  /**
+   *  Constructor.  Builds a snapshot from arc arrays, optionally keeping the
+   *  original node and edge objects.
+   */
+  private CsrGraph(int[] offsets, int[] targets, int[] weights, int[] xs, int[] ys,
+                   Graph.Node<N,E>[] nodes, Graph.Edge<N,E>[] edges,
+                   Map<Graph.Node<N,E>, Integer> ids) {
+    int numNodes = offsets.length - 1;
+    if (targets.length != offsets[numNodes] || weights.length != targets.length) {
+      throw new IllegalArgumentException("Arc arrays do not match the offsets.");
+    }
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+    this.xs = xs;
+    this.ys = ys;
+    this.nodes = nodes;
+    this.edges = edges;
+    this.ids = ids;
+
+    // Recover the tail of every arc from the offsets
+    tails = new int[targets.length];
+    for (int v = 0; v < numNodes; v++) {
+      for (int arc = offsets[v]; arc < offsets[v + 1]; arc++) {
+        tails[arc] = v;
+      }
+    }
+
+    // Bucket the arcs by head to get the incoming index
+    inOffsets = new int[numNodes + 1];
+    for (int arc = 0; arc < targets.length; arc++) {
+      inOffsets[targets[arc] + 1] += 1;
+    }
+    for (int v = 0; v < numNodes; v++) {
+      inOffsets[v + 1] += inOffsets[v];
+    }
+    inArcs = new int[targets.length];
+    int[] fill = Arrays.copyOf(inOffsets, numNodes);
+    for (int arc = 0; arc < targets.length; arc++) {
+      inArcs[fill[targets[arc]]++] = arc;
+    }
+  }
+
+  /**
+   *  Builds a snapshot of a graph, weighing each edge with the given weigher.
+   *
+   *  @param graph    the graph to copy
+   *  @param weigher  computes the weight of each edge
+   *  @return         the snapshot
+   */
+  @SuppressWarnings("unchecked")
+  public static <N,E> CsrGraph<N,E> of(Graph<N,E> graph, Weigher<N,E> weigher) {
+    // Number the nodes, including any endpoint the graph did not list
+    Collection<Graph.Edge<N,E>> edgeSet = graph.edges();
+    Map<Graph.Node<N,E>, Integer> ids = new HashMap<Graph.Node<N,E>, Integer>();
+    List<Graph.Node<N,E>> nodeList = new ArrayList<Graph.Node<N,E>>(graph.nodes());
+    for (Graph.Edge<N,E> edge : edgeSet) {
+      nodeList.add(edge.getTail());
+      nodeList.add(edge.getHead());
+    }
+    List<Graph.Node<N,E>> distinct = new ArrayList<Graph.Node<N,E>>();
+    for (Graph.Node<N,E> node : nodeList) {
+      if (!ids.containsKey(node)) {
+        ids.put(node, distinct.size());
+        distinct.add(node);
+      }
+    }
+    int numNodes = distinct.size();
+    Graph.Node<N,E>[] nodes = (Graph.Node<N,E>[]) distinct.toArray(new Graph.Node<?,?>[numNodes]);
+
+    // Count out-degrees, then place each edge in its tail's slice
+    int[] offsets = new int[numNodes + 1];
+    int[] edgeTails = new int[edgeSet.size()];
+    int[] edgeHeads = new int[edgeSet.size()];
+    Graph.Edge<N,E>[] edgeList = (Graph.Edge<N,E>[]) edgeSet.toArray(new Graph.Edge<?,?>[edgeSet.size()]);
+    for (int i = 0; i < edgeList.length; i++) {
+      edgeTails[i] = ids.get(edgeList[i].getTail());
+      edgeHeads[i] = ids.get(edgeList[i].getHead());
+      offsets[edgeTails[i] + 1] += 1;
+    }
+    for (int v = 0; v < numNodes; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] targets = new int[edgeList.length];
+    int[] weights = new int[edgeList.length];
+    Graph.Edge<N,E>[] edges = (Graph.Edge<N,E>[]) new Graph.Edge<?,?>[edgeList.length];
+    int[] fill = Arrays.copyOf(offsets, numNodes);
+    for (int i = 0; i < edgeList.length; i++) {
+      int arc = fill[edgeTails[i]]++;
+      targets[arc] = edgeHeads[i];
+      int weight = weigher.weight(edgeList[i]);
+      if (weight < 0) {
+        throw new IllegalArgumentException("Edge weights must not be negative.");
+      }
+      weights[arc] = weight;
+      edges[arc] = edgeList[i];
+    }
+
+    // Copy coordinates when the nodes carry them
+    int[] xs = null;
+    int[] ys = null;
+    if (numNodes > 0 && nodes[0].getData() instanceof PlacedData) {
+      xs = new int[numNodes];
+      ys = new int[numNodes];
+      for (int v = 0; v < numNodes; v++) {
+        PlacedData<?> data = (PlacedData<?>) nodes[v].getData();
+        xs[v] = data.getX();
+        ys[v] = data.getY();
+      }
+    }
+    return new CsrGraph<N,E>(offsets, targets, weights, xs, ys, nodes, edges, ids);
+  }
+
+  /**
+   *  Builds a snapshot of a placed graph whose edge weights are the
+   *  truncated straight-line distances between their endpoints, the same
+   *  weights Dijkstra uses.
+   *
+   *  @param graph  the graph to copy
+   *  @return       the snapshot
+   */
+  public static <T,E> CsrGraph<PlacedData<T>,E> euclidean(Graph<PlacedData<T>,E> graph) {
+    return of(graph, new Weigher<PlacedData<T>,E>() {
+      public int weight(Graph.Edge<PlacedData<T>,E> edge) {
+        return euclideanWeight(edge.getTail().getData(), edge.getHead().getData());
+      }
+    });
+  }
+
+  /**
+   *  Returns the truncated straight-line distance between two placed nodes.
+   *
+   *  @param from  the data of one node
+   *  @param to    the data of the other node
+   *  @return      the distance, rounded down
+   */
+  public static int euclideanWeight(PlacedData<?> from, PlacedData<?> to) {
+    return (int) Math.hypot(to.getX() - from.getX(), to.getY() - from.getY());
+  }
+
+  /**
+   *  Returns the number of nodes in the snapshot.
+   *
+   *  @return the number of nodes
+   */
+  public int numNodes() {
+    return offsets.length - 1;
+  }
+
+  /**
+   *  Returns the number of arcs in the snapshot.
+   *
+   *  @return the number of arcs
+   */
+  public int numArcs() {
+    return targets.length;
+  }
+
+  /**
+   *  Returns the id of the first outgoing arc of a node.
+   *
+   *  @param node  the node id
+   *  @return      the first arc id
+   */
+  public int outStart(int node) {
+    return offsets[node];
+  }
+
+  /**
+   *  Returns one past the id of the last outgoing arc of a node.
+   *
+   *  @param node  the node id
+   *  @return      the end of the node's arc slice
+   */
+  public int outEnd(int node) {
+    return offsets[node + 1];
+  }
+
+  /**
+   *  Returns the number of arcs leaving a node.
+   *
+   *  @param node  the node id
+   *  @return      the out-degree of the node
+   */
+  public int outDegree(int node) {
+    return offsets[node + 1] - offsets[node];
+  }
+
+  /**
+   *  Returns the index into the incoming arc list of the first arc entering
+   *  a node.  Use inArc to turn the index into an arc id.
+   *
+   *  @param node  the node id
+   *  @return      the first index
+   */
+  public int inStart(int node) {
+    return inOffsets[node];
+  }
+
+  /**
+   *  Returns one past the index of the last arc entering a node.
+   *
+   *  @param node  the node id
+   *  @return      the end of the node's incoming slice
+   */
+  public int inEnd(int node) {
+    return inOffsets[node + 1];
+  }
+
+  /**
+   *  Returns the arc id stored at an index of the incoming arc list.
+   *
+   *  @param index  an index between inStart(v) and inEnd(v) for some v
+   *  @return       the arc id
+   */
+  public int inArc(int index) {
+    return inArcs[index];
+  }
+
+  /**
+   *  Hands every arc leaving a node to a visitor, reading the arrays
+   *  directly.
+   *
+   *  @param node     the node id
+   *  @param visitor  receives each arc
+   */
+  public void forEachOutgoing(int node, ArcVisitor visitor) {
+    for (int arc = offsets[node], end = offsets[node + 1]; arc < end; arc++) {
+      visitor.visit(arc, targets[arc], weights[arc]);
+    }
+  }
+
+  /**
+   *  Hands every arc entering a node to a visitor, reading the arrays
+   *  directly.
+   *
+   *  @param node     the node id
+   *  @param visitor  receives each arc
+   */
+  public void forEachIncoming(int node, ArcVisitor visitor) {
+    for (int index = inOffsets[node], end = inOffsets[node + 1]; index < end; index++) {
+      int arc = inArcs[index];
+      visitor.visit(arc, tails[arc], weights[arc]);
+    }
+  }
+
+  /**
+   *  Returns the tail ("from" node) of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the tail node id
+   */
+  public int tail(int arc) {
+    return tails[arc];
+  }
+
+  /**
+   *  Returns the head ("to" node) of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the head node id
+   */
+  public int head(int arc) {
+    return targets[arc];
+  }
+
+  /**
+   *  Returns the weight of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the weight
+   */
+  public int weight(int arc) {
+    return weights[arc];
+  }
+
+  /**
+   *  Does the snapshot carry node coordinates?
+   *
+   *  @return true if x() and y() may be called
+   */
+  public boolean hasCoordinates() {
+    return xs != null;
+  }
+
+  /**
+   *  Returns the x coordinate of a node.
+   *
+   *  @param node  the node id
+   *  @return      the x coordinate
+   */
+  public int x(int node) {
+    return xs[node];
+  }
+
+  /**
+   *  Returns the y coordinate of a node.
+   *
+   *  @param node  the node id
+   *  @return      the y coordinate
+   */
+  public int y(int node) {
+    return ys[node];
+  }
+
+  /**
+   *  Does the snapshot remember the node and edge objects it was built from?
+   *
+   *  @return true if node(), edge() and id() may be used
+   */
+  public boolean hasObjects() {
+    return nodes != null;
+  }
+
+  /**
+   *  Returns the original node object with the given id.
+   *
+   *  @param node  the node id
+   *  @return      the node
+   */
+  public Graph.Node<N,E> node(int node) {
+    requireObjects();
+    return nodes[node];
+  }
+
+  /**
+   *  Returns the original edge object for an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the edge
+   */
+  public Graph.Edge<N,E> edge(int arc) {
+    requireObjects();
+    return edges[arc];
+  }
+
+  /**
+   *  Is the given node object a node of this snapshot?
+   *
+   *  @param node  the node
+   *  @return      true if id(node) may be called
+   */
+  public boolean contains(Graph.Node<N,E> node) {
+    requireObjects();
+    return ids.containsKey(node);
+  }
+
+  /**
+   *  Returns the id of an original node object.
+   *
+   *  @param node  the node
+   *  @return      its id
+   *  @throws Error  if the node is not a node of this snapshot
+   */
+  public int id(Graph.Node<N,E> node) {
+    requireObjects();
+    Integer id = ids.get(node);
+    if (id == null) {
+      throw new Error("The supplied node is not a node of this graph.");
+    }
+    return id;
+  }
+
+  /**
+   *  Performs a breadth-first traversal starting from the given node, with
+   *  the same contract as Graph.breadthFirstTraversal.
+   *
+   *  @param start      the id of the starting node
+   *  @param processor  the processing object to be applied to each node/edge
+   *  @return           true if the processor ever returns true, false otherwise
+   */
+  public boolean breadthFirstTraversal(int start, Graph.Processor<N,E> processor) {
+    requireObjects();
+    int[] queue = new int[numNodes()];
+    boolean[] visited = new boolean[numNodes()];
+    int first = 0;
+    int last = 0;
+    queue[last++] = start;
+    visited[start] = true;
+    while (first < last) {
+      int node = queue[first++];
+      if (processor.preProcessNode(nodes[node])) {
+        return true;
+      }
+      for (int arc = offsets[node]; arc < offsets[node + 1]; arc++) {
+        if (processor.processEdge(edges[arc])) {
+          return true;
+        }
+        int head = targets[arc];
+        if (!visited[head]) {
+          visited[head] = true;
+          queue[last++] = head;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   *  Performs a depth-first traversal starting from the given node, with the
+   *  same contract as Graph.depthFirstTraversal.  An explicit stack is used,
+   *  so deep graphs cannot overflow the call stack.
+   *
+   *  @param start      the id of the starting node
+   *  @param processor  the processing object to be applied to each node/edge
+   *  @return           true if the processor ever returns true, false otherwise
+   */
+  public boolean depthFirstTraversal(int start, Graph.Processor<N,E> processor) {
+    requireObjects();
+    int[] stack = new int[numNodes()];
+    int[] nextArc = new int[numNodes()];
+    boolean[] visited = new boolean[numNodes()];
+    int depth = 0;
+    stack[depth] = start;
+    nextArc[depth] = offsets[start];
+    visited[start] = true;
+    if (processor.preProcessNode(nodes[start])) {
+      return true;
+    }
+    while (depth >= 0) {
+      int node = stack[depth];
+      if (nextArc[depth] == offsets[node + 1]) {
+        if (processor.postProcessNode(nodes[node])) {
+          return true;
+        }
+        depth -= 1;
+        continue;
+      }
+      int arc = nextArc[depth]++;
+      if (processor.processEdge(edges[arc])) {
+        return true;
+      }
+      int head = targets[arc];
+      if (!visited[head]) {
+        visited[head] = true;
+        if (processor.preProcessNode(nodes[head])) {
+          return true;
+        }
+        depth += 1;
+        stack[depth] = head;
+        nextArc[depth] = offsets[head];
+      }
+    }
+    return false;
+  }
+
+  /**
+   *  Checks that the snapshot still has its original objects.
+   *
+   *  @throws IllegalStateException if it was built from arrays alone
+   */
+  private void requireObjects() {
+    if (nodes == null) {
+      throw new IllegalStateException("This snapshot has no node or edge objects.");
+    }
+  }
+}
@@ -0,0 +1,535 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ *  A parallel single-source shortest-path engine using Meyer and Sanders'
+ *  delta-stepping.  Tentative distances are grouped into buckets of width
+ *  delta.  The lowest non-empty bucket is emptied in rounds: every node in
+ *  it relaxes its light arcs (weight at most delta) in parallel, which may
+ *  put nodes back into the same bucket, and once it stays empty the nodes
+ *  removed from it relax their heavy arcs in parallel.  Distances live in an
+ *  AtomicIntegerArray and are only ever lowered by compare-and-set, so the
+ *  workers need no locks.
+ *
+ *  A small delta does little more work than Dijkstra but offers little
+ *  parallelism; a large one exposes many nodes per round at the cost of
+ *  relaxing some arcs more than once.  The distances are those of Dijkstra
+ *  for every delta.  Only distances are computed, not parent arcs.
+ *
+ *  The buckets form a ring of at most MAX_SLOTS lists, created as they are
+ *  first used, covering the buckets from the current one onwards.  An
+ *  entry further ahead than the ring reaches, which only a weight much
+ *  larger than delta can cause, waits in an overflow list until the ring
+ *  catches up with it, and when the ring runs empty the search jumps
+ *  straight to the nearest waiting bucket.  So neither the memory nor the
+ *  time of a query depends on the largest weight divided by delta.
+ *
+ *  Between queries only the nodes the last query reached are reset, so a
+ *  query that reaches few nodes costs little however large the graph.
+ *
+ *  The graph is only read.  The weights must be safe to read concurrently;
+ *  see DistanceMatrix.  A solver runs one query at a time.
+ */
+public class DeltaSteppingSolver {
+  /** The distance reported for nodes that cannot be reached. */
+  public static final int INFINITY = Integer.MAX_VALUE;
+
+  /** Frontiers smaller than this are relaxed by a single task. */
+  private static final int GRAIN = 256;
+
+  /** The most buckets the ring holds. */
+  private static final int MAX_SLOTS = 1 << 16;
+
+  /** The graph being searched. */
+  private final IntGraph graph;
+
+  /** The weights of the graph's arcs. */
+  private final WeightProvider weights;
+
+  /** The pool the relaxations run on. */
+  private final ForkJoinPool pool;
+
+  /** Tentative or final distance of each node. */
+  private final AtomicIntegerArray distance;
+
+  /** Round in which each node was last put on the frontier. */
+  private final int[] inFrontier;
+
+  /** Bucket epoch in which each node was last removed. */
+  private final int[] removed;
+
+  /** Query in which each node was last added to reached. */
+  private final int[] reachedIn;
+
+  /** The nodes whose distance the last query set, to reset before the next. */
+  private final IntList reached = new IntList();
+
+  /** The nodes of the current round. */
+  private final IntList frontier = new IntList();
+
+  /** The nodes removed from the current bucket. */
+  private final IntList removedNodes = new IntList();
+
+  /** The bucket width. */
+  private int delta;
+
+  /** The ring of buckets, used cyclically; a slot is null until first used. */
+  private IntList[] buckets = new IntList[0];
+
+  /** Number of entries in the ring. */
+  private int ringSize;
+
+  /** Entries too far ahead for the ring. */
+  private final IntList overflow = new IntList();
+
+  /** The smallest bucket of an overflow entry, or Integer.MAX_VALUE. */
+  private int overflowMin = Integer.MAX_VALUE;
+
+  /** The bucket being emptied. */
+  private int current;
+
+  /** Current round number, for the inFrontier marks. */
+  private int round;
+
+  /** Number of buckets emptied so far, for the removed marks. */
+  private int bucketEpoch;
+
+  /** Number of queries so far, for the reachedIn marks. */
+  private int query;
+
+  /** Number of relaxation rounds of the last query. */
+  private int numRounds;
+
+  /**
+   *  Constructor.  Uses the weights stored in the graph, the common pool
+   *  and the default delta.
+   *
+   *  @param graph  the graph to search
+   */
+  public DeltaSteppingSolver(IntGraph graph) {
+    this(graph, graph, defaultDelta(graph, graph), ForkJoinPool.commonPool());
+  }
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph    the graph to search
+   *  @param weights  the weights of the graph's arcs
+   *  @param delta    the bucket width, at least 1
+   *  @param pool     the pool to run relaxations on
+   */
+  public DeltaSteppingSolver(IntGraph graph, WeightProvider weights, int delta, ForkJoinPool pool) {
+    this.graph = graph;
+    this.weights = weights;
+    this.pool = pool;
+    int numNodes = graph.numNodes();
+    distance = new AtomicIntegerArray(numNodes);
+    for (int v = 0; v < numNodes; v++) {
+      distance.set(v, INFINITY);
+    }
+    inFrontier = new int[numNodes];
+    removed = new int[numNodes];
+    reachedIn = new int[numNodes];
+    setDelta(delta);
+  }
+
+  /**
+   *  Returns a delta suited to the graph: the largest weight divided by the
+   *  average out-degree, which keeps the number of re-relaxations small
+   *  while leaving many nodes in each bucket.
+   *
+   *  @param graph    the graph
+   *  @param weights  the weights of its arcs
+   *  @return         the suggested delta
+   */
+  public static int defaultDelta(IntGraph graph, WeightProvider weights) {
+    int maxWeight = maxWeight(graph, weights);
+    int averageDegree = graph.numNodes() == 0 ? 1 : Math.max(1, graph.numArcs() / graph.numNodes());
+    return Math.max(1, maxWeight / averageDegree);
+  }
+
+  /**
+   *  Returns the bucket width.
+   *
+   *  @return delta
+   */
+  public int delta() {
+    return delta;
+  }
+
+  /**
+   *  Sets the bucket width used by later queries.  Any width works, but one
+   *  far below the typical weight leaves a bucket per distinct distance and
+   *  so little parallelism.
+   *
+   *  @param delta  the bucket width, at least 1
+   */
+  public void setDelta(int delta) {
+    if (delta < 1) {
+      throw new IllegalArgumentException("Delta must be at least 1.");
+    }
+    this.delta = delta;
+  }
+
+  /**
+   *  Computes the shortest distances from a source to every node.  The
+   *  results stay available through distance() until the next query.
+   *
+   *  @param source  the id of the source node
+   */
+  public void solve(int source) {
+    int numNodes = graph.numNodes();
+    if (source < 0 || source >= numNodes) {
+      throw new Error("The supplied source is not a node of this graph.");
+    }
+    for (int i = 0; i < reached.size(); i++) {
+      distance.set(reached.get(i), INFINITY);
+    }
+    reached.clear();
+    query += 1;
+    if (query == 0 || round > Integer.MAX_VALUE - numNodes || bucketEpoch > Integer.MAX_VALUE - numNodes) {
+      // A stamp could wrap around during this query; old ones could then look current
+      Arrays.fill(inFrontier, 0);
+      Arrays.fill(removed, 0);
+      Arrays.fill(reachedIn, 0);
+      query = 1;
+      round = 0;
+      bucketEpoch = 0;
+    }
+    numRounds = 0;
+
+    // Live entries lie within maxWeight of the current bucket, so a ring of
+    // that many buckets would do, but the ring is capped to bound its memory
+    int numSlots = (int) Math.min((long) maxWeight(graph, weights) / delta + 2, MAX_SLOTS);
+    if (buckets.length != numSlots) {
+      buckets = new IntList[numSlots];
+    }
+    for (IntList bucket : buckets) {
+      if (bucket != null) {
+        bucket.clear();
+      }
+    }
+    ringSize = 0;
+    overflow.clear();
+    overflowMin = Integer.MAX_VALUE;
+    current = 0;
+
+    distance.set(source, 0);
+    IntList start = new IntList();
+    start.add(source);
+    insert(start);
+    while (true) {
+      if (ringSize == 0) {
+        if (overflow.size() == 0) {
+          break;
+        }
+        // Jump over the empty buckets to the nearest waiting entry
+        current = overflowMin;
+        refill();
+        continue;
+      }
+      while (slot(current) == null || slot(current).size() == 0) {
+        current += 1;
+        if (overflowMin - current < buckets.length) {
+          refill();
+        }
+      }
+      IntList bucket = slot(current);
+      bucketEpoch += 1;
+      removedNodes.clear();
+      while (bucket.size() > 0) {
+        ringSize -= bucket.size();
+        takeFrontier(bucket, current);
+        insert(relax(true));
+      }
+      frontier.clear();
+      frontier.addAll(removedNodes);
+      insert(relax(false));
+    }
+  }
+
+  /**
+   *  Returns the shortest distance to a node found by the last query.
+   *
+   *  @param node  the node id
+   *  @return      the distance, or INFINITY if the node cannot be reached
+   */
+  public int distance(int node) {
+    return distance.get(node);
+  }
+
+  /**
+   *  Returns the distances found by the last query.
+   *
+   *  @return a new array of distances by node id
+   */
+  public int[] distances() {
+    int[] result = new int[graph.numNodes()];
+    for (int v = 0; v < result.length; v++) {
+      result[v] = distance.get(v);
+    }
+    return result;
+  }
+
+  /**
+   *  Returns the number of relaxation rounds of the last query, a measure of
+   *  how many synchronisation points the chosen delta caused.
+   *
+   *  @return the number of rounds
+   */
+  public int numRounds() {
+    return numRounds;
+  }
+
+  /**
+   *  Moves the current entries of a bucket onto the frontier, dropping stale
+   *  entries and duplicates, and records them as removed from the bucket.
+   *
+   *  @param bucket   the bucket being emptied
+   *  @param current  its number
+   */
+  private void takeFrontier(IntList bucket, int current) {
+    round += 1;
+    frontier.clear();
+    for (int i = 0; i < bucket.size(); i++) {
+      int node = bucket.get(i);
+      if (distance.get(node) / delta == current && inFrontier[node] != round) {
+        inFrontier[node] = round;
+        frontier.add(node);
+        if (removed[node] != bucketEpoch) {
+          removed[node] = bucketEpoch;
+          removedNodes.add(node);
+        }
+      }
+    }
+    bucket.clear();
+  }
+
+  /**
+   *  Relaxes the light or heavy arcs of the frontier, in parallel if it is
+   *  large enough.
+   *
+   *  @param light  true for arcs of weight at most delta, false for the rest
+   *  @return       the nodes whose distance was lowered
+   */
+  private IntList relax(boolean light) {
+    numRounds += 1;
+    if (frontier.size() <= GRAIN) {
+      IntList improved = new IntList();
+      relaxRange(0, frontier.size(), light, improved);
+      return improved;
+    }
+    return pool.invoke(new Relaxation(0, frontier.size(), light));
+  }
+
+  /**
+   *  Relaxes the light or heavy arcs of part of the frontier.
+   *
+   *  @param from      the first frontier index
+   *  @param to        one past the last frontier index
+   *  @param light     which arcs to relax
+   *  @param improved  receives the nodes whose distance was lowered
+   */
+  private void relaxRange(int from, int to, boolean light, IntList improved) {
+    for (int i = from; i < to; i++) {
+      int node = frontier.get(i);
+      long nodeDistance = distance.get(node);
+      for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+        int weight = weights.weight(arc);
+        if ((weight <= delta) == light) {
+          int head = graph.head(arc);
+          long newDistance = nodeDistance + weight;
+          int current = distance.get(head);
+          while (newDistance < current) {
+            if (distance.compareAndSet(head, current, (int) newDistance)) {
+              improved.add(head);
+              break;
+            }
+            current = distance.get(head);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   *  Files improved nodes into the buckets of their new distances: into the
+   *  ring if it reaches that far, otherwise into the overflow list.
+   *
+   *  @param improved  the nodes whose distance was lowered
+   */
+  private void insert(IntList improved) {
+    for (int i = 0; i < improved.size(); i++) {
+      int node = improved.get(i);
+      if (reachedIn[node] != query) {
+        reachedIn[node] = query;
+        reached.add(node);
+      }
+      int bucket = distance.get(node) / delta;
+      if (bucket - current < buckets.length) {
+        int index = bucket % buckets.length;
+        if (buckets[index] == null) {
+          buckets[index] = new IntList();
+        }
+        buckets[index].add(node);
+        ringSize += 1;
+      }
+      else {
+        overflow.add(node);
+        overflowMin = Math.min(overflowMin, bucket);
+      }
+    }
+  }
+
+  /**
+   *  Moves the overflow entries the ring now reaches into it.  Entries for
+   *  nodes improved since they were filed are dropped, since the
+   *  improvement filed them again.
+   */
+  private void refill() {
+    int kept = 0;
+    overflowMin = Integer.MAX_VALUE;
+    for (int i = 0; i < overflow.size(); i++) {
+      int node = overflow.get(i);
+      int bucket = distance.get(node) / delta;
+      if (bucket < current) {
+        continue;
+      }
+      if (bucket - current < buckets.length) {
+        int index = bucket % buckets.length;
+        if (buckets[index] == null) {
+          buckets[index] = new IntList();
+        }
+        buckets[index].add(node);
+        ringSize += 1;
+      }
+      else {
+        overflow.set(kept++, node);
+        overflowMin = Math.min(overflowMin, bucket);
+      }
+    }
+    overflow.truncate(kept);
+  }
+
+  /**
+   *  Returns the ring slot of a bucket, which may be null.
+   */
+  private IntList slot(int bucket) {
+    return buckets[bucket % buckets.length];
+  }
+
+  /**
+   *  Returns the largest arc weight of a graph.
+   */
+  private static int maxWeight(IntGraph graph, WeightProvider weights) {
+    int max = 0;
+    for (int arc = 0; arc < graph.numArcs(); arc++) {
+      max = Math.max(max, weights.weight(arc));
+    }
+    return max;
+  }
+
+  /**
+   *  Relaxes a range of the frontier, splitting it in half until it is no
+   *  bigger than GRAIN.
+   */
+  private class Relaxation extends RecursiveTask<IntList> {
+    /** Version for serialization. */
+    private static final long serialVersionUID = 1L;
+
+    /** First frontier index of the range. */
+    private final int from;
+
+    /** One past the last frontier index of the range. */
+    private final int to;
+
+    /** Which arcs to relax. */
+    private final boolean light;
+
+    /**
+     *  Constructor.
+     *
+     *  @param from   the first frontier index
+     *  @param to     one past the last frontier index
+     *  @param light  true for light arcs, false for heavy arcs
+     */
+    public Relaxation(int from, int to, boolean light) {
+      this.from = from;
+      this.to = to;
+      this.light = light;
+    }
+
+    /**
+     *  Relaxes the range and returns the nodes it improved.
+     */
+    @Override
+    protected IntList compute() {
+      if (to - from <= GRAIN) {
+        IntList improved = new IntList();
+        relaxRange(from, to, light, improved);
+        return improved;
+      }
+      int middle = (from + to) >>> 1;
+      Relaxation lower = new Relaxation(from, middle, light);
+      lower.fork();
+      IntList improved = new Relaxation(middle, to, light).compute();
+      improved.addAll(lower.join());
+      return improved;
+    }
+  }
+
+  /**
+   *  A growable list of ints.
+   */
+  private static class IntList {
+    /** The values; only the first size entries are meaningful. */
+    private int[] values = new int[16];
+
+    /** Number of values in the list. */
+    private int size;
+
+    /** Returns the number of values. */
+    public int size() {
+      return size;
+    }
+
+    /** Returns the value at an index. */
+    public int get(int index) {
+      return values[index];
+    }
+
+    /** Appends a value. */
+    public void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    /** Appends every value of another list. */
+    public void addAll(IntList other) {
+      if (size + other.size > values.length) {
+        values = Arrays.copyOf(values, Math.max(size * 2, size + other.size));
+      }
+      System.arraycopy(other.values, 0, values, size, other.size);
+      size += other.size;
+    }
+
+    /** Replaces the value at an index. */
+    public void set(int index, int value) {
+      values[index] = value;
+    }
+
+    /** Keeps only the first size values. */
+    public void truncate(int size) {
+      this.size = size;
+    }
+
+    /** Removes every value. */
+    public void clear() {
+      size = 0;
+    }
+  }
+}
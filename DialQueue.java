@@ -0,0 +1,204 @@
+import java.util.Arrays;
+
+/**
+ *  Dial's bucket queue, a monotone priority queue for integer keys whose
+ *  spread is bounded by a small maximum edge weight C.  While a Dijkstra
+ *  search runs, every key in the queue lies between the last key extracted
+ *  and that key plus C, so C + 1 buckets used cyclically hold one distinct
+ *  key each.  Each bucket is a doubly linked list threaded through int
+ *  arrays, which makes insert and decrease-key constant time; extractMin
+ *  walks forward over at most C empty buckets.
+ *
+ *  Use it when the maximum weight is small compared with the number of
+ *  nodes; for large weights the walk over empty buckets dominates and a
+ *  RadixHeap or IndexedMinHeap is faster.
+ */
+public class DialQueue implements IntPriorityQueue {
+  /** Marks the end of a list, or an id that is not in the queue. */
+  private static final int NONE = -1;
+
+  /** First id of each bucket's list. */
+  private final int[] head;
+
+  /** Next id in the same bucket. */
+  private final int[] next;
+
+  /** Previous id in the same bucket. */
+  private final int[] previous;
+
+  /** Bucket of each id, or NONE if the id is not in the queue. */
+  private final int[] bucket;
+
+  /** Current priority of each id. */
+  private final long[] keys;
+
+  /** The ids in the queue, in no particular order, in live[0..size-1]. */
+  private final int[] live;
+
+  /** Index of each id in live, while it is in the queue. */
+  private final int[] liveIndex;
+
+  /** The key of the bucket the next extraction starts looking at. */
+  private long current;
+
+  /** Number of ids in the queue. */
+  private int size;
+
+  /**
+   *  Constructor.  Creates an empty queue.
+   *
+   *  @param capacity   one more than the largest id that will be inserted
+   *  @param maxWeight  the largest edge weight of the searches it is used in
+   */
+  public DialQueue(int capacity, int maxWeight) {
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("The maximum weight must not be negative.");
+    }
+    head = new int[maxWeight + 1];
+    next = new int[capacity];
+    previous = new int[capacity];
+    bucket = new int[capacity];
+    keys = new long[capacity];
+    live = new int[capacity];
+    liveIndex = new int[capacity];
+    Arrays.fill(head, NONE);
+    Arrays.fill(bucket, NONE);
+  }
+
+  /**
+   *  Is the queue empty?
+   *
+   *  @return true if there are no ids in the queue
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   *  Returns the number of ids in the queue.
+   *
+   *  @return the number of ids in the queue
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   *  Inserts the id if it is absent, or moves it to a lower bucket if it is
+   *  present with a larger key.
+   *
+   *  @param id   the id to insert or update
+   *  @param key  the candidate priority, within maxWeight of the last key
+   *              extracted
+   *  @return     true if the queue changed
+   */
+  public boolean insertOrDecrease(int id, long key) {
+    if (key < current || key - current >= head.length) {
+      throw new IllegalArgumentException("Key " + key + " is outside the range of the bucket queue.");
+    }
+    if (bucket[id] != NONE) {
+      if (key >= keys[id]) {
+        return false;
+      }
+      unlink(id);
+    }
+    else {
+      live[size] = id;
+      liveIndex[id] = size;
+      size += 1;
+    }
+    keys[id] = key;
+    link(id, (int) (key % head.length));
+    return true;
+  }
+
+  /**
+   *  Returns the smallest priority in the queue.
+   *
+   *  @return the smallest key
+   *  @throws IllegalStateException if the queue is empty
+   */
+  public long minKey() {
+    return keys[head[advance()]];
+  }
+
+  /**
+   *  Removes and returns an id with the smallest priority.
+   *
+   *  @return the id removed
+   *  @throws IllegalStateException if the queue is empty
+   */
+  public int extractMin() {
+    int id = head[advance()];
+    unlink(id);
+    bucket[id] = NONE;
+    size -= 1;
+    int last = live[size];
+    live[liveIndex[id]] = last;
+    liveIndex[last] = liveIndex[id];
+    return id;
+  }
+
+  /**
+   *  Removes every id from the queue and starts again from key 0.  Runs in
+   *  time proportional to the number of ids in the queue, not to the number
+   *  of buckets: only the buckets of those ids can be non-empty.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      int id = live[i];
+      head[bucket[id]] = NONE;
+      bucket[id] = NONE;
+    }
+    size = 0;
+    current = 0;
+  }
+
+  /**
+   *  Moves the cursor forward to the first non-empty bucket.
+   *
+   *  @return the index of that bucket
+   */
+  private int advance() {
+    if (size == 0) {
+      throw new IllegalStateException("The queue is empty.");
+    }
+    int b = (int) (current % head.length);
+    while (head[b] == NONE) {
+      current += 1;
+      b = b + 1 == head.length ? 0 : b + 1;
+    }
+    return b;
+  }
+
+  /**
+   *  Puts an id at the front of a bucket's list.
+   */
+  private void link(int id, int b) {
+    int first = head[b];
+    next[id] = first;
+    previous[id] = NONE;
+    if (first != NONE) {
+      previous[first] = id;
+    }
+    head[b] = id;
+    bucket[id] = b;
+  }
+
+  /**
+   *  Takes an id out of its bucket's list.
+   */
+  private void unlink(int id) {
+    int before = previous[id];
+    int after = next[id];
+    if (before != NONE) {
+      next[before] = after;
+    }
+    else {
+      head[bucket[id]] = after;
+    }
+    if (after != NONE) {
+      previous[after] = before;
+    }
+  }
+}
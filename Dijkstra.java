@@ -1,5 +1,8 @@
+import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 import java.lang.*;
+import java.util.concurrent.ForkJoinPool;
 
 /** 
  * Implements Dijkstra's Algorithm and can be used in
@@ -12,187 +15,234 @@ import java.lang.*;
 
 public class Dijkstra {
 
+	/** Most bytes of results kept by the cache of a versioned graph */
+	private static final long CACHE_BYTES = 1L << 26;
+
 	/** Node for overriding hashmap equals and hashcode methods */
 	private Graph.Node<PlacedData<Integer>,Integer> nextNode;
-	/** Set of adjacent edges */
-	private Set<Graph.Edge<PlacedData<Integer>, Integer>> adjacencies = new HashSet<Graph.Edge<PlacedData<Integer>,Integer>>();
-	/** Set of unvisited nodes */
-	private Set<Graph.Node<PlacedData<Integer>,Integer>> unvisited = new HashSet<Graph.Node<PlacedData<Integer>,Integer>>();
-	/** Set of visited nodes */ 
-	private Set<Graph.Node<PlacedData<Integer>,Integer>> visited = new HashSet<Graph.Node<PlacedData<Integer>,Integer>>();
-	/* Map of temporary distances between nodes */
+	/* Map of temporary distances between nodes, filled from each result when it is printed */
 	private HashMap<Graph.Node<PlacedData<Integer>,Integer>, Integer> tempDistanceMap = new HashMap<Graph.Node<PlacedData<Integer>,Integer>, Integer>();
-	/* Map of actual distances between nodes (primarily to override comparator for PriorityQueue) */
-	private HashMap<Graph.Node<PlacedData<Integer>,Integer>, Integer> distanceMap = new HashMap<Graph.Node<PlacedData<Integer>,Integer>, Integer>();
-  	/** Map of edge weights */
-  	private HashMap<Graph.Edge<PlacedData<Integer>,Integer>, Integer> weightMap = new HashMap<Graph.Edge<PlacedData<Integer>,Integer>, Integer>();
+	/** Snapshot the last result was computed on, or null */
+	private CsrGraph<PlacedData<Integer>,Integer> resultGraph;
+	/** Distances and parents of the last result, by snapshot id, or null */
+	private ShortestPath.Distances result;
+	/** Has the last result been added to tempDistanceMap? */
+	private boolean resultPrinted;
+	/** Results for the versioned graph last searched, or null */
+	private ShortestPathCache<Integer,Integer> cache;
 
    /**
-    * Returns a set of unvisited nodes in the graph.
+    * Executes the Dijkstra Algorithm on a graph. The graph is copied into a
+    * CSR snapshot whose edge weights are computed once from the nodes'
+    * coordinates, so every relaxation is an array read. A graph that keeps a
+    * version, such as GraphImplementation, is searched through a cache held
+    * by this object, so asking again from the same node of an unchanged
+    * graph does not search again.
     *
     * @param graph The graph with which shortest distances will be calculated.
-    * @return unvisited The set of unvisited nodes.
+    * @param chosenNode The node from which shortest distances to endpoints will be calculated.
     */
-	private Set<Graph.Node<PlacedData<Integer>,Integer>> unvisitedNodes(ComplexGraph<PlacedData<Integer>,Integer> graph) {
-		for (Graph.Node<PlacedData<Integer>,Integer> node : graph.getNodes()) {
-			unvisited.addAll(graph.endpoints(node.getOutgoingEdges()));
+	public void executeDijkstra(Graph<PlacedData<Integer>,Integer> graph, Graph.Node<PlacedData<Integer>, Integer> chosenNode) {
+		if (graph.version() >= 0) {
+			if (cache == null || cache.graph() != graph) {
+				cache = new ShortestPathCache<Integer,Integer>(graph, CACHE_BYTES);
+			}
+			executeDijkstra(cache, chosenNode);
+			return;
 		}
-		return unvisited;
+		CsrGraph<PlacedData<Integer>,Integer> snapshot = CsrGraph.euclidean(graph);
+		executeDijkstra(snapshot, snapshot, chosenNode);
 	}
 
    /**
-    * Returns a set of all outgoing edges of nodes. 
+    * Executes the Dijkstra Algorithm through a cache of results, which
+    * only searches if it has no tree of the chosen node for the graph's
+    * current version.
     *
-    * @return adjacencies All adjacency edges
+    * @param cache The cache in front of the graph.
+    * @param chosenNode The node from which shortest distances to endpoints will be calculated.
     */
-	private Set<Graph.Edge<PlacedData<Integer>,Integer>> getAdjacencyEdges() { 
-		for (Graph.Node<PlacedData<Integer>,Integer> node : unvisited) {
-			adjacencies.addAll(node.getOutgoingEdges());	
+	public void executeDijkstra(ShortestPathCache<Integer,Integer> cache, Graph.Node<PlacedData<Integer>, Integer> chosenNode) {
+		CsrGraph<PlacedData<Integer>,Integer> snapshot = cache.snapshot();
+		if (snapshot.contains(chosenNode)) {
+			publish(snapshot, cache.tree(chosenNode));
+		}
+		else {
+			executeDijkstra(snapshot, snapshot, chosenNode);
 		}
-		return adjacencies;
-
 	}
 
    /**
-    * Executes the Dijkstra Algorithm on a graph. Invoked in GUI application.
+    * Executes the Dijkstra Algorithm using cached edge weights. Invoked in GUI
+    * application, which keeps one cache for its graph so that weights are
+    * only recomputed for the edges of nodes that have been dragged.
     *
-    * @param graph The graph with which shortest distances will be calculated.
+    * @param weights The edge weight cache of the graph.
     * @param chosenNode The node from which shortest distances to endpoints will be calculated.
     */
-	public void executeDijkstra(ComplexGraph<PlacedData<Integer>,Integer> graph, Graph.Node<PlacedData<Integer>, Integer> chosenNode) {
-		// Mark all nodes as unvisited
-		unvisited = unvisitedNodes(graph);
-		// Get all adjacency edges
-		adjacencies = getAdjacencyEdges();
-		
-		// Set temporary and permanent graph node distances 
-		initializeGraph(chosenNode);
-
-		// Priority queue with a custom comparator - The head of the queue now has the minimal distance
-		PriorityQueue<Graph.Node<PlacedData<Integer>, Integer>> queue = new PriorityQueue<Graph.Node<PlacedData<Integer>, Integer>>(new Comparator<Graph.Node<PlacedData<Integer>,Integer>>() {
-		   /**
-			* Compares nodes in priority queue according to 
-			* their respective distances.
-			*
-			* @param d1, d2 The nodes to be compared.
-			* @return distances
-			*/
-			@Override
-			public int compare(Graph.Node<PlacedData<Integer>,Integer> d1, Graph.Node<PlacedData<Integer>,Integer> d2) {
-				int dist1 = distanceMap.get(d1);
-				int dist2 = distanceMap.get(d2);
-				if (dist1 > dist2) {
-					return 1;
-				}
-				else if (dist1 < dist2) {
-					return -1;
-				}
-				else {
-					return 0;
-				}
-			}
-		});
-		
-		// Fill queue with chosen node
-		queue.add(chosenNode);
-		// Traverse through unvisited nodes with minimal distances and its neighbors to find shortest distances
-		while (!queue.isEmpty()) {
-			Graph.Node<PlacedData<Integer>, Integer> minDistNode = queue.poll();
-			if (!visited.contains(minDistNode)) { 
-				if (visited.contains(minDistNode)) { 
-					continue;
-				}
-				visited.add(minDistNode); // mark node as visited
-				Set<Graph.Node<PlacedData<Integer>, Integer>> neighbors = getNeighborNodes(minDistNode);
-				for (Graph.Node<PlacedData<Integer>, Integer> neighbor : neighbors) {
-					if (unvisited.contains(neighbor)) {
-						int distanceToNeighbor = getDistance(minDistNode, neighbor);
-						int newDistance = Math.abs(tempDistanceMap.get(minDistNode) + distanceToNeighbor);
-						if (newDistance < tempDistanceMap.get(neighbor)) { 
-							// Update neighbor's new distance since it is shorter
-							tempDistanceMap.put(neighbor, newDistance);
-							queue.add(neighbor);
-						}
-					}
-				}	
-			}
-		}
+	public void executeDijkstra(EuclideanWeights<Integer,Integer> weights, Graph.Node<PlacedData<Integer>, Integer> chosenNode) {
+		executeDijkstra(weights.graph(), weights, chosenNode);
+	}
+
+   /**
+    * Publishes the distances of a shortest-path tree that is repaired as
+    * nodes are dragged, instead of searching again. Invoked in GUI
+    * application, which keeps the tree of the chosen node between presses;
+    * bringing the weight cache up to date repairs the tree through its
+    * refresh listener. The distances and parents are copied, so later
+    * repairs of the tree do not change the published result.
+    *
+    * @param weights The edge weight cache of the graph, listened to by the tree.
+    * @param tree The shortest-path tree of the chosen node.
+    */
+	public void executeDijkstra(EuclideanWeights<Integer,Integer> weights, DynamicShortestPaths tree) {
+		weights.refresh();
+		executeDijkstra(weights.graph(), tree);
 	}
 
    /**
-    * Initializes distances of each nodes with temporary values
-    * of 0 and infinity as well as calculates weight edges and 
-    * actual node distances based on nodes' coordinate values
-    * and put these calculations in maps.
+    * Publishes the distances of a shortest-path tree kept between presses
+    * on a graph whose weights do not move with its nodes, such as one
+    * loaded from a file. The distances and parents are copied.
     *
-    * @param chosenNode The node that the user clicks on in the GUI application.
-    */
-	private void initializeGraph(Graph.Node<PlacedData<Integer>, Integer> chosenNode) {
-		// Assign permanent distances/weights for every destination node and outgoing edge 	
-		for (Graph.Edge<PlacedData<Integer>,Integer> edge : adjacencies) { 
-			Graph.Node<PlacedData<Integer>, Integer> startingNode = edge.getTail();
-			Graph.Node<PlacedData<Integer>, Integer> destinationNode = edge.getHead();
-			distanceMap.put(destinationNode, (int)Math.hypot(destinationNode.getData().getX() - startingNode.getData().getX(), destinationNode.getData().getY() - startingNode.getData().getY()));
-			weightMap.put(edge, (int)Math.hypot(destinationNode.getData().getX() - startingNode.getData().getX(), destinationNode.getData().getY() - startingNode.getData().getY()));
+    * @param snapshot The snapshot the tree was built on.
+    * @param tree The shortest-path tree of the chosen node.
+    */
+	public void executeDijkstra(CsrGraph<PlacedData<Integer>,Integer> snapshot, DynamicShortestPaths tree) {
+		int[] distance = new int[tree.numNodes()];
+		int[] parentArc = new int[tree.numNodes()];
+		for (int id = 0; id < distance.length; id++) {
+			distance[id] = tree.distance(id);
+			parentArc[id] = tree.parentArc(id);
 		}
+		publish(snapshot, new Result(distance, parentArc));
+	}
 
-		// Initialize distances from chosen node to each unvisited node as infinity
-		for (Graph.Node<PlacedData<Integer>,Integer> node : unvisited) {
-			tempDistanceMap.put(node, (int) Double.POSITIVE_INFINITY); 
+   /**
+    * Runs the algorithm on a snapshot and publishes the result, for
+    * writeDijkstra.
+    *
+    * @param snapshot The snapshot of the graph.
+    * @param weights The weights of the snapshot's arcs.
+    * @param chosenNode The node from which shortest distances will be calculated.
+    */
+	private void executeDijkstra(CsrGraph<PlacedData<Integer>,Integer> snapshot, WeightProvider weights, Graph.Node<PlacedData<Integer>, Integer> chosenNode) {
+		if (snapshot.contains(chosenNode)) {
+			ShortestPathSolver solver = new ShortestPathSolver(snapshot, weights);
+			solver.solve(snapshot.id(chosenNode));
+			publish(snapshot, solver);
+		}
+		else {
+			int[] distance = new int[snapshot.numNodes()];
+			int[] parentArc = new int[snapshot.numNodes()];
+			Arrays.fill(distance, Integer.MAX_VALUE);
+			Arrays.fill(parentArc, -1);
+			publish(snapshot, new Result(distance, parentArc));
 		}
-		// Distance from chosen node to itself is always 0
-		if (unvisited.contains(chosenNode)) {
-			initializeSource(chosenNode);
+	}
+
+   /**
+    * Publishes a result for printDijkstra and writeDijkstra. Only
+    * references are kept; the records are formatted when they are printed
+    * or written.
+    *
+    * @param snapshot The snapshot of the graph.
+    * @param distances Shortest distances and parents by node id, owned by this object.
+    */
+	private void publish(CsrGraph<PlacedData<Integer>,Integer> snapshot, ShortestPath.Distances distances) {
+		resultGraph = snapshot;
+		result = distances;
+		resultPrinted = false;
+	}
+
+   /**
+    * Executes the Dijkstra Algorithm on a CSR snapshot of a graph, using the
+    * weights stored in the snapshot.
+    *
+    * @param graph The snapshot with which shortest distances will be calculated.
+    * @param source The id of the node from which shortest distances will be calculated.
+    * @return distances Shortest distances by node id, Integer.MAX_VALUE where there is no path.
+    */
+	public int[] executeDijkstra(IntGraph graph, int source) {
+		return executeDijkstra(graph, graph, source);
+	}
+
+   /**
+    * Executes the Dijkstra Algorithm on a CSR snapshot of a graph. This is a
+    * one-off query; callers that run many queries on the same snapshot
+    * should keep a ShortestPathSolver instead.
+    *
+    * @param graph The snapshot with which shortest distances will be calculated.
+    * @param weights The weights of the snapshot's arcs.
+    * @param source The id of the node from which shortest distances will be calculated.
+    * @return distances Shortest distances by node id, Integer.MAX_VALUE where there is no path.
+    */
+	public int[] executeDijkstra(IntGraph graph, WeightProvider weights, int source) {
+		ShortestPathSolver solver = new ShortestPathSolver(graph, weights);
+		solver.solve(source);
+		int[] distances = new int[graph.numNodes()];
+		for (int id = 0; id < distances.length; id++) {
+			distances[id] = solver.distance(id);
 		}
+		return distances;
 	}
 
    /**
-	* Initializes the source for Dijkstra's Algorithm with
-	* the chosen node, adding both the chosen node and a 
-	* distance of 0 to the temporary distance map and the
-	* actual distance map.
-	* 
-	* @param chosenNode The node selected by the user
-	*/
-	private void initializeSource(Graph.Node<PlacedData<Integer>,Integer> chosenNode) {
-		// Constant distance for chosen node
-		tempDistanceMap.put(chosenNode, 0);
-		distanceMap.put(chosenNode, 0); 
+    * Computes the same distances as executeDijkstra with the parallel
+    * delta-stepping engine, for single-source queries over large graphs.
+    *
+    * @param graph The snapshot with which shortest distances will be calculated.
+    * @param weights The weights of the snapshot's arcs.
+    * @param source The id of the node from which shortest distances will be calculated.
+    * @param delta The bucket width; larger values trade extra work for more parallelism.
+    * @return distances Shortest distances by node id, Integer.MAX_VALUE where there is no path.
+    */
+	public int[] executeDeltaStepping(IntGraph graph, WeightProvider weights, int source, int delta) {
+		DeltaSteppingSolver solver = new DeltaSteppingSolver(graph, weights, delta, ForkJoinPool.commonPool());
+		solver.solve(source);
+		return solver.distances();
 	}
-	
-	
-   /** 
-	* Gets the set of neighboring nodes of current chosen node.
-	*
-	* @param chosenNode The current node from which neighbors are considered.
-	* @return neighborNodes The set of neighboring nodes for the current node.
-	*/
-	private Set<Graph.Node<PlacedData<Integer>,Integer>> getNeighborNodes(Graph.Node<PlacedData<Integer>,Integer> chosenNode) {
-		Set<Graph.Node<PlacedData<Integer>,Integer>> neighborNodes = new HashSet<Graph.Node<PlacedData<Integer>,Integer>>();
-		for (Graph.Edge<PlacedData<Integer>,Integer> neighborEdge : chosenNode.getOutgoingEdges()) {
-			neighborNodes.add(neighborEdge.getHead());
+
+   /**
+    * Writes the shortest distances found by the Dijkstra Algorithm as text,
+    * one line per reachable node, naming each node and its parent by the
+    * Integer they hold. The lines are streamed through a fixed buffer, so
+    * no String is built for a node.
+    *
+    * @param out The writer to write to, which is left open.
+    * @throws IOException If the writer cannot be written.
+    */
+	public void writeDijkstra(Writer out) throws IOException {
+		if (result != null) {
+			writer().write(ShortestPathWriter.Format.TEXT, out);
 		}
-		return neighborNodes;
 	}
 
    /**
-	* Gets distance/weight of edge based on its tail and head.
-	* 
-	* @param startingNode The node from which the edge is directed.
-	* @param destinationNode The node toward which the edge is directed.
-	* @throw Error If distance is less than 0, which it should not be.
-	*/
-	private int getDistance(Graph.Node<PlacedData<Integer>,Integer> startingNode, Graph.Node<PlacedData<Integer>,Integer> destinationNode) {
-		for (Graph.Edge<PlacedData<Integer>,Integer> edge : adjacencies) {
-			if (edge.getTail().equals(startingNode) && edge.getHead().equals(destinationNode)) {
-				 return weightMap.get(edge);
-			}
+    * Returns a writer for the last result in any format, labelling nodes by
+    * the Integer they hold.
+    *
+    * @return writer The writer, or null if there is no result.
+    */
+	public ShortestPathWriter writer() {
+		if (result == null) {
+			return null;
 		}
-		throw new Error("Distance should be greater than 0.");
+		final CsrGraph<PlacedData<Integer>,Integer> snapshot = resultGraph;
+		ShortestPathWriter writer = new ShortestPathWriter(snapshot, result);
+		writer.setLabels(new ShortestPathWriter.Labels() {
+			public int label(int node) {
+				return snapshot.node(node).getData().getData();
+			}
+		});
+		return writer;
 	}
-	
-   /** 
-    * Prints shortest paths found by the Dijkstra Algorithm. 
+
+   /**
+    * Prints shortest paths found by the Dijkstra Algorithm: the distance of
+    * every node that has an edge, Integer.MAX_VALUE where there is no path,
+    * named by the node's toString. The whole output is one String; large
+    * results should use writeDijkstra.
     *
     * @param chosenNode The node chosen by the user in the GUI application.
     * @return output Shortest paths are printed as strings.
@@ -200,7 +250,15 @@ public class Dijkstra {
 	public String printDijkstra(Graph.Node<PlacedData<Integer>, Integer> chosenNode) {
 		String key, value;
 		StringBuilder output = new StringBuilder();
-	 
+
+		if (result != null && !resultPrinted) {
+			for (int id = 0; id < resultGraph.numNodes(); id++) {
+				if (resultGraph.outDegree(id) > 0 || resultGraph.inEnd(id) > resultGraph.inStart(id)) {
+					tempDistanceMap.put(resultGraph.node(id), result.distance(id));
+				}
+			}
+			resultPrinted = true;
+		}
 	 	for (Graph.Node<PlacedData<Integer>,Integer> node : tempDistanceMap.keySet()) {
 			key = node.toString();
 			value = tempDistanceMap.get(node).toString();
@@ -209,6 +267,29 @@ public class Dijkstra {
 	 	return output.toString();
 	}
 
+   /**
+    * Distances and parents copied out of a search.
+    */
+	private static class Result implements ShortestPath.Distances {
+		/** Distance of each node, Integer.MAX_VALUE where unreachable */
+		private final int[] distance;
+		/** Parent arc of each node, -1 at the source and unreachable nodes */
+		private final int[] parentArc;
+
+		Result(int[] distance, int[] parentArc) {
+			this.distance = distance;
+			this.parentArc = parentArc;
+		}
+
+		public int distance(int node) {
+			return distance[node];
+		}
+
+		public int parentArc(int node) {
+			return parentArc[node];
+		}
+	}
+
    /**
     * Is this next node equal to that object?
     *
@@ -0,0 +1,160 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  Computes many-to-many shortest distances on an IntGraph in parallel.  The
+ *  rows of the matrix are independent single-source searches, so they are
+ *  split recursively into ForkJoin tasks and spread over the pool's workers
+ *  by work stealing.  Each worker keeps one ShortestPathSolver for the whole
+ *  computation, and each search stops as soon as every target is settled.
+ *
+ *  The snapshot is only read, so any number of workers may search it at
+ *  once.  The weights must also be safe to read concurrently: the snapshot's
+ *  own weights are, and an EuclideanWeights cache is as long as no node
+ *  moves during the computation and refresh() was called before it.
+ */
+public class DistanceMatrix {
+  /** The snapshot being searched. */
+  private final IntGraph graph;
+
+  /** The weights of its arcs. */
+  private final WeightProvider weights;
+
+  /** Source node ids, one per row. */
+  private final int[] sources;
+
+  /** Target node ids, one per column. */
+  private final int[] targets;
+
+  /** Is each node one of the targets? */
+  private final boolean[] isTarget;
+
+  /** Number of distinct targets. */
+  private final int numDistinctTargets;
+
+  /** The result, filled in row by row. */
+  private final int[][] matrix;
+
+  /** A solver for each worker thread, created on first use. */
+  private final ThreadLocal<ShortestPathSolver> solvers;
+
+  /**
+   *  Constructor.
+   */
+  private DistanceMatrix(IntGraph graph, WeightProvider weights, int[] sources, int[] targets) {
+    this.graph = graph;
+    this.weights = weights;
+    this.sources = sources;
+    this.targets = targets;
+    this.isTarget = new boolean[graph.numNodes()];
+    int distinct = 0;
+    for (int target : targets) {
+      if (target < 0 || target >= graph.numNodes()) {
+        throw new Error("The supplied target is not a node of this graph.");
+      }
+      if (!isTarget[target]) {
+        isTarget[target] = true;
+        distinct += 1;
+      }
+    }
+    this.numDistinctTargets = distinct;
+    this.matrix = new int[sources.length][];
+    this.solvers = new ThreadLocal<ShortestPathSolver>();
+  }
+
+  /**
+   *  Computes the distances from every source to every target on the common
+   *  pool, using the weights stored in the graph.
+   *
+   *  @param graph    the snapshot to search
+   *  @param sources  the source node ids
+   *  @param targets  the target node ids
+   *  @return         matrix[i][j] is the distance from sources[i] to
+   *                  targets[j], or Integer.MAX_VALUE if there is no path
+   */
+  public static int[][] compute(IntGraph graph, int[] sources, int[] targets) {
+    return compute(graph, graph, sources, targets, ForkJoinPool.commonPool());
+  }
+
+  /**
+   *  Computes the distances from every source to every target.
+   *
+   *  @param graph    the snapshot to search
+   *  @param weights  the weights of its arcs
+   *  @param sources  the source node ids
+   *  @param targets  the target node ids
+   *  @param pool     the pool to run the searches on
+   *  @return         matrix[i][j] is the distance from sources[i] to
+   *                  targets[j], or Integer.MAX_VALUE if there is no path
+   */
+  public static int[][] compute(IntGraph graph, WeightProvider weights, int[] sources,
+                                int[] targets, ForkJoinPool pool) {
+    DistanceMatrix computation = new DistanceMatrix(graph, weights, sources, targets);
+    pool.invoke(computation.new Rows(0, sources.length));
+    return computation.matrix;
+  }
+
+  /**
+   *  Fills in one row of the matrix.
+   *
+   *  @param row  the row index
+   */
+  private void computeRow(int row) {
+    ShortestPathSolver solver = solvers.get();
+    if (solver == null) {
+      solver = new ShortestPathSolver(graph, weights);
+      solvers.set(solver);
+    }
+    solver.start(sources[row]);
+    int remaining = numDistinctTargets;
+    while (remaining > 0 && solver.hasNext()) {
+      if (isTarget[solver.settleNext()]) {
+        remaining -= 1;
+      }
+    }
+    int[] distances = new int[targets.length];
+    for (int j = 0; j < targets.length; j++) {
+      distances[j] = solver.isSettled(targets[j]) ? solver.distance(targets[j]) : Integer.MAX_VALUE;
+    }
+    matrix[row] = distances;
+  }
+
+  /**
+   *  A range of rows, split in half until a single row is left.
+   */
+  private class Rows extends RecursiveAction {
+    /** Version for serialization. */
+    private static final long serialVersionUID = 1L;
+
+    /** First row of the range. */
+    private final int from;
+
+    /** One past the last row of the range. */
+    private final int to;
+
+    /**
+     *  Constructor.
+     *
+     *  @param from  the first row
+     *  @param to    one past the last row
+     */
+    public Rows(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    /**
+     *  Computes the rows, forking the upper half when there is more than one.
+     */
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        computeRow(from);
+      }
+      else if (to > from) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new Rows(from, middle), new Rows(middle, to));
+      }
+    }
+  }
+}
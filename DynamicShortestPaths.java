@@ -0,0 +1,462 @@
+import java.util.Arrays;
+
+/**
+ *  A shortest-path tree from one source that is kept up to date as the
+ *  graph changes, instead of being recomputed.  The engine copies the
+ *  topology and weights of an IntGraph into adjacency lists of its own, so
+ *  arcs can then be reweighted, inserted and deleted; after each change
+ *  only the part of the tree the change can affect is repaired, in the
+ *  manner of Ramalingam and Reps:
+ *
+ *    - When an arc gets cheaper (or is inserted), its head is improved if
+ *      the arc now gives it a shorter path, and the improvement spreads by
+ *      a Dijkstra search that only visits nodes whose distance drops.
+ *    - When an arc gets dearer (or is deleted), nothing changes unless it
+ *      is the parent arc of its head.  If it is, the subtree hanging from
+ *      the head is cut off; each node in it takes the best distance offered
+ *      by an arc from outside the subtree, and a Dijkstra search over the
+ *      subtree settles the rest.
+ *
+ *  Either way the work is proportional to the nodes whose distance or
+ *  parent changes, and their arcs, rather than to the whole graph.  Arc ids
+ *  of the original graph are kept; inserted arcs get the ids after them.
+ *  A deleted arc keeps its id with a weight of INFINITY.
+ */
+public class DynamicShortestPaths implements ShortestPath.Distances {
+  /** The distance of an unreachable node, and the weight of a deleted arc. */
+  public static final int INFINITY = Integer.MAX_VALUE;
+
+  /** The source of the tree. */
+  private final int source;
+
+  /** Number of nodes. */
+  private final int numNodes;
+
+  /** Arc arrays, grown as arcs are inserted. */
+  private int[] arcTail, arcHead, arcWeight;
+
+  /** Number of arcs, including deleted ones. */
+  private int numArcs;
+
+  /** Number of arcs copied from the original graph. */
+  private final int numOriginalArcs;
+
+  /** Outgoing arc ids of each node. */
+  private final int[][] out;
+
+  /** Number of entries used in each out list. */
+  private final int[] outSize;
+
+  /** Incoming arc ids of each node. */
+  private final int[][] in;
+
+  /** Number of entries used in each in list. */
+  private final int[] inSize;
+
+  /** Distance of each node from the source. */
+  private final int[] distance;
+
+  /** Parent arc of each node in the tree, or -1. */
+  private final int[] parentArc;
+
+  /** Marks the nodes of a subtree being repaired. */
+  private final boolean[] affected;
+
+  /** The nodes of a subtree being repaired. */
+  private final int[] affectedList;
+
+  /** Frontier of repair searches. */
+  private final IndexedMinHeap queue;
+
+  /** Number of nodes settled by the last change. */
+  private int numSettled;
+
+  /**
+   *  Constructor.  Copies the graph and builds the tree from scratch.
+   *
+   *  @param graph  the graph
+   *  @param source  the id of the source node
+   */
+  public DynamicShortestPaths(IntGraph graph, int source) {
+    this(graph, graph, source);
+  }
+
+  /**
+   *  Constructor.  Copies the graph with the given weights and builds the
+   *  tree from scratch.
+   *
+   *  @param graph    the graph
+   *  @param weights  the initial weights of its arcs
+   *  @param source   the id of the source node
+   */
+  public DynamicShortestPaths(IntGraph graph, WeightProvider weights, int source) {
+    numNodes = graph.numNodes();
+    if (source < 0 || source >= numNodes) {
+      throw new Error("The supplied source is not a node of this graph.");
+    }
+    this.source = source;
+    int capacity = Math.max(16, graph.numArcs());
+    arcTail = new int[capacity];
+    arcHead = new int[capacity];
+    arcWeight = new int[capacity];
+    out = new int[numNodes][];
+    outSize = new int[numNodes];
+    in = new int[numNodes][];
+    inSize = new int[numNodes];
+    for (int v = 0; v < numNodes; v++) {
+      out[v] = new int[Math.max(2, graph.outDegree(v))];
+      in[v] = new int[Math.max(2, graph.inEnd(v) - graph.inStart(v))];
+    }
+    for (int arc = 0; arc < graph.numArcs(); arc++) {
+      addArc(graph.tail(arc), graph.head(arc), weights.weight(arc));
+    }
+    numOriginalArcs = numArcs;
+    distance = new int[numNodes];
+    parentArc = new int[numNodes];
+    affected = new boolean[numNodes];
+    affectedList = new int[numNodes];
+    queue = new IndexedMinHeap(numNodes);
+
+    Arrays.fill(distance, INFINITY);
+    Arrays.fill(parentArc, -1);
+    distance[source] = 0;
+    queue.insert(source, 0);
+    propagate();
+  }
+
+  /**
+   *  Returns the source of the tree.
+   *
+   *  @return the source node id
+   */
+  public int source() {
+    return source;
+  }
+
+  /**
+   *  Returns the number of nodes.
+   *
+   *  @return the number of nodes
+   */
+  public int numNodes() {
+    return numNodes;
+  }
+
+  /**
+   *  Returns the number of arcs, including deleted ones.
+   *
+   *  @return the bound on arc ids
+   */
+  public int numArcs() {
+    return numArcs;
+  }
+
+  /**
+   *  Returns the tail ("from" node) of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the tail node id
+   */
+  public int tail(int arc) {
+    return arcTail[arc];
+  }
+
+  /**
+   *  Returns the head ("to" node) of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the head node id
+   */
+  public int head(int arc) {
+    return arcHead[arc];
+  }
+
+  /**
+   *  Returns the current weight of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the weight, or INFINITY if the arc was deleted
+   */
+  public int weight(int arc) {
+    return arcWeight[arc];
+  }
+
+  /**
+   *  Returns the current shortest distance from the source to a node.
+   *
+   *  @param node  the node id
+   *  @return      the distance, or INFINITY if the node is unreachable
+   */
+  public int distance(int node) {
+    return distance[node];
+  }
+
+  /**
+   *  Returns the last arc on the current shortest path to a node.
+   *
+   *  @param node  the node id
+   *  @return      the arc id, or -1 for the source or an unreachable node
+   */
+  public int parentArc(int node) {
+    return parentArc[node];
+  }
+
+  /**
+   *  Returns the current shortest path to a node.
+   *
+   *  @param target  the id of the target node
+   *  @return        the path, which is not found if target is unreachable
+   */
+  public ShortestPath pathTo(int target) {
+    if (distance[target] == INFINITY) {
+      return ShortestPath.notFound(source, target);
+    }
+    int length = 0;
+    for (int node = target; node != source; node = arcTail[parentArc[node]]) {
+      length += 1;
+    }
+    int[] nodes = new int[length + 1];
+    int[] arcs = new int[length];
+    int node = target;
+    nodes[length] = target;
+    for (int i = length - 1; i >= 0; i--) {
+      arcs[i] = parentArc[node];
+      node = arcTail[arcs[i]];
+      nodes[i] = node;
+    }
+    return new ShortestPath(source, target, distance[target], nodes, arcs);
+  }
+
+  /**
+   *  Returns the number of nodes whose distance was recomputed by the last
+   *  change, a measure of how much work the repair did.
+   *
+   *  @return the number of nodes settled
+   */
+  public int numSettled() {
+    return numSettled;
+  }
+
+  /**
+   *  Changes the weight of an arc and repairs the tree.
+   *
+   *  @param arc     the arc id
+   *  @param weight  the new weight, which must not be negative
+   *  @throws Error  if the arc is not an arc of this graph or has been
+   *                 deleted
+   */
+  public void setWeight(int arc, int weight) {
+    if (weight < 0 || weight == INFINITY) {
+      throw new IllegalArgumentException("Edge weights must not be negative.");
+    }
+    checkArc(arc);
+    if (arcWeight[arc] == INFINITY) {
+      throw new Error("Arc " + arc + " has been deleted.");
+    }
+    numSettled = 0;
+    changeWeight(arc, weight);
+  }
+
+  /**
+   *  Adds an arc between two existing nodes and repairs the tree.
+   *
+   *  @param tail    the id of the tail
+   *  @param head    the id of the head
+   *  @param weight  the weight, which must not be negative
+   *  @return        the id of the new arc
+   */
+  public int insertArc(int tail, int head, int weight) {
+    if (weight < 0 || weight == INFINITY) {
+      throw new IllegalArgumentException("Edge weights must not be negative.");
+    }
+    if (tail < 0 || tail >= numNodes || head < 0 || head >= numNodes) {
+      throw new Error("The supplied arc does not join two nodes of this graph.");
+    }
+    int arc = addArc(tail, head, INFINITY);
+    numSettled = 0;
+    changeWeight(arc, weight);
+    return arc;
+  }
+
+  /**
+   *  Deletes an arc and repairs the tree.  Deleting an arc twice does
+   *  nothing.
+   *
+   *  @param arc  the arc id
+   *  @throws Error  if the arc is not an arc of this graph
+   */
+  public void deleteArc(int arc) {
+    checkArc(arc);
+    numSettled = 0;
+    changeWeight(arc, INFINITY);
+  }
+
+  /**
+   *  Checks that an arc id names an original or inserted arc.
+   */
+  private void checkArc(int arc) {
+    if (arc < 0 || arc >= numArcs) {
+      throw new Error("Arc " + arc + " is not an arc of this graph.");
+    }
+  }
+
+  /**
+   *  Copies the current weights of the arcs entering and leaving a node
+   *  from a weight provider, repairing the tree after each change.  This is
+   *  what a moved node needs when weights come from coordinates.  Inserted
+   *  and deleted arcs are left alone.
+   *
+   *  @param node     the node id
+   *  @param weights  the current weights of the original graph's arcs
+   */
+  public void refreshNode(int node, WeightProvider weights) {
+    numSettled = 0;
+    for (int i = 0; i < outSize[node]; i++) {
+      int arc = out[node][i];
+      if (arc < numOriginalArcs && arcWeight[arc] != INFINITY) {
+        changeWeight(arc, weights.weight(arc));
+      }
+    }
+    for (int i = 0; i < inSize[node]; i++) {
+      int arc = in[node][i];
+      if (arc < numOriginalArcs && arcWeight[arc] != INFINITY) {
+        changeWeight(arc, weights.weight(arc));
+      }
+    }
+  }
+
+  /**
+   *  Sets the weight of an arc and repairs the tree.
+   */
+  private void changeWeight(int arc, int weight) {
+    int oldWeight = arcWeight[arc];
+    if (weight == oldWeight) {
+      return;
+    }
+    arcWeight[arc] = weight;
+    if (weight < oldWeight) {
+      decreased(arc);
+    }
+    else {
+      increased(arc);
+    }
+  }
+
+  /**
+   *  Repairs the tree after an arc got cheaper: its head improves if the
+   *  arc now offers a shorter path, and the improvement spreads.
+   */
+  private void decreased(int arc) {
+    int tail = arcTail[arc];
+    int head = arcHead[arc];
+    long candidate = (long) distance[tail] + arcWeight[arc];
+    if (candidate < distance[head]) {
+      distance[head] = (int) candidate;
+      parentArc[head] = arc;
+      queue.insert(head, candidate);
+      propagate();
+    }
+  }
+
+  /**
+   *  Repairs the tree after an arc got dearer.  Only the subtree below the
+   *  arc can lose its paths, so it is cut off, reseeded from the arcs that
+   *  enter it from the rest of the tree, and searched again.
+   */
+  private void increased(int arc) {
+    int root = arcHead[arc];
+    if (parentArc[root] != arc) {
+      return;
+    }
+    // Collect the subtree by following tree arcs down from its root
+    int size = 0;
+    affectedList[size++] = root;
+    affected[root] = true;
+    for (int i = 0; i < size; i++) {
+      int node = affectedList[i];
+      for (int j = 0; j < outSize[node]; j++) {
+        int child = out[node][j];
+        int head = arcHead[child];
+        if (parentArc[head] == child && !affected[head]) {
+          affected[head] = true;
+          affectedList[size++] = head;
+        }
+      }
+    }
+    // Give each node of the subtree its best path from outside it
+    for (int i = 0; i < size; i++) {
+      int node = affectedList[i];
+      long best = INFINITY;
+      int bestArc = -1;
+      for (int j = 0; j < inSize[node]; j++) {
+        int incoming = in[node][j];
+        int tail = arcTail[incoming];
+        if (!affected[tail]) {
+          long candidate = (long) distance[tail] + arcWeight[incoming];
+          if (candidate < best) {
+            best = candidate;
+            bestArc = incoming;
+          }
+        }
+      }
+      distance[node] = (int) best;
+      parentArc[node] = bestArc;
+      if (best < INFINITY) {
+        queue.insert(node, best);
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      affected[affectedList[i]] = false;
+    }
+    propagate();
+  }
+
+  /**
+   *  Runs Dijkstra's algorithm from the nodes on the queue, relaxing only
+   *  into nodes whose distance drops.
+   */
+  private void propagate() {
+    while (!queue.isEmpty()) {
+      int node = queue.extractMin();
+      numSettled += 1;
+      long base = distance[node];
+      for (int i = 0; i < outSize[node]; i++) {
+        int arc = out[node][i];
+        int head = arcHead[arc];
+        long candidate = base + arcWeight[arc];
+        if (candidate < distance[head]) {
+          distance[head] = (int) candidate;
+          parentArc[head] = arc;
+          queue.insertOrDecrease(head, candidate);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Appends an arc to the arc arrays and the adjacency lists.
+   *
+   *  @return the id of the arc
+   */
+  private int addArc(int tail, int head, int weight) {
+    if (numArcs == arcTail.length) {
+      int capacity = 2 * numArcs;
+      arcTail = Arrays.copyOf(arcTail, capacity);
+      arcHead = Arrays.copyOf(arcHead, capacity);
+      arcWeight = Arrays.copyOf(arcWeight, capacity);
+    }
+    int arc = numArcs++;
+    arcTail[arc] = tail;
+    arcHead[arc] = head;
+    arcWeight[arc] = weight;
+    if (outSize[tail] == out[tail].length) {
+      out[tail] = Arrays.copyOf(out[tail], 2 * outSize[tail]);
+    }
+    out[tail][outSize[tail]++] = arc;
+    if (inSize[head] == in[head].length) {
+      in[head] = Arrays.copyOf(in[head], 2 * inSize[head]);
+    }
+    in[head][inSize[head]++] = arc;
+    return arc;
+  }
+}
@@ -0,0 +1,132 @@
+import java.util.Random;
+
+/**
+ *  Compares DynamicShortestPaths with searching from scratch on a
+ *  road-like graph that receives a stream of random changes: weights
+ *  raised, weights lowered, arcs deleted and arcs inserted.  The program
+ *  keeps its own copy of the changed graph.  After every few changes it
+ *  runs a fresh ShortestPathSolver on that copy and checks that every
+ *  node's distance matches the repaired tree.  It stops at the first
+ *  difference.  Otherwise it prints the average time and settled nodes per
+ *  repair and per fresh search.
+ *
+ *  Usage: java DynamicShortestPathsBenchmark [nodes] [changes] [checkEvery] [seed]
+ */
+public class DynamicShortestPathsBenchmark {
+  /** Largest amount a weight is raised or lowered by. */
+  private static final int MAX_STEP = 200;
+
+  /** Largest weight of an inserted arc. */
+  private static final int MAX_INSERTED_WEIGHT = 5000;
+
+  /**
+   *  Runs the comparison.
+   *
+   *  @param args  optional node count, number of changes, changes between
+   *               checks and random seed
+   */
+  public static void main(String[] args) {
+    int numNodes = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    int numChanges = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+    int checkEvery = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+    CsrBuilder builder = new CsrBuilder();
+    GraphGenerators.roadLike(numNodes, seed, builder);
+    CsrGraph<Object,Object> graph = builder.build();
+    System.out.printf("%d nodes, %d arcs%n", graph.numNodes(), graph.numArcs());
+
+    // The program's own copy of the changing graph
+    int numOriginal = graph.numArcs();
+    int[] tails = new int[numOriginal + numChanges];
+    int[] heads = new int[tails.length];
+    int[] weights = new int[tails.length];
+    boolean[] deleted = new boolean[tails.length];
+    for (int arc = 0; arc < numOriginal; arc++) {
+      tails[arc] = graph.tail(arc);
+      heads[arc] = graph.head(arc);
+      weights[arc] = graph.weight(arc);
+    }
+    int numArcs = numOriginal;
+
+    int source = 0;
+    DynamicShortestPaths tree = new DynamicShortestPaths(graph, source);
+    Random random = new Random(seed);
+    long repairNanos = 0;
+    long repairSettled = 0;
+    long searchNanos = 0;
+    long searchSettled = 0;
+    int numSearches = 0;
+    for (int change = 1; change <= numChanges; change++) {
+      int arc = random.nextInt(numArcs);
+      int kind = random.nextInt(4);
+      long start = System.nanoTime();
+      if (kind == 3) {
+        int tail = random.nextInt(graph.numNodes());
+        int head = random.nextInt(graph.numNodes());
+        int weight = random.nextInt(MAX_INSERTED_WEIGHT + 1);
+        int inserted = tree.insertArc(tail, head, weight);
+        repairNanos += System.nanoTime() - start;
+        if (inserted != numArcs) {
+          fail("insertArc returned arc " + inserted + ", expected " + numArcs);
+        }
+        tails[numArcs] = tail;
+        heads[numArcs] = head;
+        weights[numArcs] = weight;
+        numArcs += 1;
+      }
+      else if (kind == 2) {
+        tree.deleteArc(arc);
+        repairNanos += System.nanoTime() - start;
+        deleted[arc] = true;
+      }
+      else if (!deleted[arc]) {
+        int step = 1 + random.nextInt(MAX_STEP);
+        int weight = kind == 0 ? weights[arc] + step : Math.max(0, weights[arc] - step);
+        tree.setWeight(arc, weight);
+        repairNanos += System.nanoTime() - start;
+        weights[arc] = weight;
+      }
+      repairSettled += tree.numSettled();
+
+      if (change % checkEvery == 0) {
+        CsrBuilder copy = new CsrBuilder(graph.numNodes(), numArcs);
+        for (int v = 0; v < graph.numNodes(); v++) {
+          copy.addNode(0, 0);
+        }
+        for (int a = 0; a < numArcs; a++) {
+          if (!deleted[a]) {
+            copy.addArc(tails[a], heads[a], weights[a]);
+          }
+        }
+        ShortestPathSolver solver = new ShortestPathSolver(copy.build());
+        start = System.nanoTime();
+        solver.solve(source);
+        searchNanos += System.nanoTime() - start;
+        searchSettled += solver.numSettled();
+        numSearches += 1;
+        for (int v = 0; v < graph.numNodes(); v++) {
+          if (solver.distance(v) != tree.distance(v)) {
+            fail("after change " + change + " node " + v + " is at " + tree.distance(v)
+                 + ", a fresh search says " + solver.distance(v));
+          }
+        }
+      }
+    }
+    System.out.printf("%d changes, %d checks agree%n", numChanges, numSearches);
+    System.out.println("               ms each   settled each");
+    System.out.printf("repair      %10.4f %14d%n", repairNanos / 1e6 / numChanges, repairSettled / numChanges);
+    if (numSearches > 0) {
+      System.out.printf("from scratch%10.4f %14d%n", searchNanos / 1e6 / numSearches, searchSettled / numSearches);
+    }
+  }
+
+  /**
+   *  Reports a disagreement and stops.
+   *
+   *  @param message  what went wrong
+   */
+  private static void fail(String message) {
+    System.out.println("MISMATCH: " + message);
+    System.exit(1);
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ *  A Heuristic based on the straight-line distance between node coordinates.
+ *  When arc weights are themselves straight-line distances the geometry is
+ *  a lower bound for free, but the project's weights are truncated to ints,
+ *  which can make a path slightly shorter than the line between its ends.
+ *  So the straight-line distance is scaled by the smallest ratio of weight to
+ *  length over all arcs.  This keeps the estimate consistent for whatever
+ *  weights the graph has; for long arcs the scale is very close to 1.
+ *
+ *  The scale is computed from the weights as they are when the heuristic is
+ *  built, and the coordinates are those of the snapshot.  Build a new
+ *  heuristic if nodes move.
+ */
+public class EuclideanHeuristic implements Heuristic {
+  /** The graph, which must have coordinates. */
+  private final IntGraph graph;
+
+  /** Factor by which straight-line distances are shrunk. */
+  private final double scale;
+
+  /** x coordinate of the current target. */
+  private int targetX;
+
+  /** y coordinate of the current target. */
+  private int targetY;
+
+  /**
+   *  Constructor.  Uses the weights stored in the graph.
+   *
+   *  @param graph  a graph with coordinates
+   */
+  public EuclideanHeuristic(IntGraph graph) {
+    this(graph, graph);
+  }
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph    a graph with coordinates
+   *  @param weights  the weights of the graph's arcs
+   */
+  public EuclideanHeuristic(IntGraph graph, WeightProvider weights) {
+    if (!graph.hasCoordinates()) {
+      throw new IllegalArgumentException("A Euclidean heuristic needs node coordinates.");
+    }
+    this.graph = graph;
+    double minRatio = 1.0;
+    for (int arc = 0; arc < graph.numArcs(); arc++) {
+      double length = lineDistance(graph.tail(arc), graph.head(arc));
+      if (length > 0) {
+        minRatio = Math.min(minRatio, weights.weight(arc) / length);
+      }
+    }
+    // Leave room for rounding so that the bound is never exceeded
+    this.scale = minRatio * (1 - 1e-9);
+  }
+
+  /**
+   *  Returns the factor applied to straight-line distances.
+   *
+   *  @return the scale, between 0 and 1
+   */
+  public double scale() {
+    return scale;
+  }
+
+  /**
+   *  Prepares the heuristic for a query toward the given target.
+   *
+   *  @param target  the id of the target node
+   */
+  public void setTarget(int target) {
+    targetX = graph.x(target);
+    targetY = graph.y(target);
+  }
+
+  /**
+   *  Returns the scaled straight-line distance from a node to the target.
+   *
+   *  @param node  the node id
+   *  @return      the estimate
+   */
+  public int estimate(int node) {
+    return (int) (scale * Math.hypot(graph.x(node) - targetX, graph.y(node) - targetY));
+  }
+
+  /**
+   *  Returns the straight-line distance between two nodes.
+   *
+   *  @param from  one node id
+   *  @param to    the other node id
+   *  @return      the distance
+   */
+  private double lineDistance(int from, int to) {
+    return Math.hypot(graph.x(to) - graph.x(from), graph.y(to) - graph.y(from));
+  }
+}
@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  A cache of the Euclidean weights of the arcs of a placed graph.  Each
+ *  weight is the truncated straight-line distance between the coordinates
+ *  of the arc's endpoints, computed once and kept in an int array indexed
+ *  by arc id.  The cache listens to the PlacedData of every node; when a
+ *  node moves only the arcs entering or leaving it are recomputed, and only
+ *  when a weight is next asked for.
+ *
+ *  The cache is not thread-safe: nodes should be moved on the same thread
+ *  that runs searches, as the GUI does.  Call detach() when the cache is no
+ *  longer needed so that the graph's nodes stop referring to it.
+ *
+ *  @param <T>  the type of the data inside each PlacedData
+ *  @param <E>  the type of the data associated with an edge
+ */
+public class EuclideanWeights<T,E> implements WeightProvider {
+  /** The snapshot whose arcs are weighed. */
+  private final CsrGraph<PlacedData<T>,E> graph;
+
+  /** Cached weight of each arc. */
+  private final int[] weights;
+
+  /** Nodes that moved since the weights were last brought up to date. */
+  private final int[] dirtyNodes;
+
+  /** Number of entries in dirtyNodes. */
+  private int numDirty;
+
+  /** Is each node already recorded in dirtyNodes? */
+  private final boolean[] dirty;
+
+  /** The listener registered with each node's data. */
+  private final PlacedData.MoveListener[] listeners;
+
+  /** Listeners told which nodes' arcs were recomputed, or null if there are none. */
+  private List<RefreshListener> refreshListeners;
+
+  /**
+   *  Told after refresh() has recomputed the weights of a moved node's
+   *  arcs, so that results derived from those weights can be repaired
+   *  rather than recomputed.
+   */
+  public interface RefreshListener {
+    /**
+     *  Called once per moved node, after every weight is up to date.
+     *
+     *  @param node  the id of a node whose arcs were reweighed
+     */
+    void refreshed(int node);
+  }
+
+  /**
+   *  Constructor.  Takes the weights from the snapshot, which must have been
+   *  built with CsrGraph.euclidean, and starts listening for moves.
+   *
+   *  @param graph  a snapshot of a placed graph, with its node objects
+   */
+  public EuclideanWeights(CsrGraph<PlacedData<T>,E> graph) {
+    this.graph = graph;
+    int numNodes = graph.numNodes();
+    weights = new int[graph.numArcs()];
+    for (int arc = 0; arc < weights.length; arc++) {
+      weights[arc] = graph.weight(arc);
+    }
+    dirtyNodes = new int[numNodes];
+    dirty = new boolean[numNodes];
+    listeners = new PlacedData.MoveListener[numNodes];
+    for (int node = 0; node < numNodes; node++) {
+      listeners[node] = new NodeMoveListener(node);
+      graph.node(node).getData().addMoveListener(listeners[node]);
+    }
+  }
+
+  /**
+   *  Returns the snapshot whose arcs are weighed.
+   *
+   *  @return the snapshot
+   */
+  public CsrGraph<PlacedData<T>,E> graph() {
+    return graph;
+  }
+
+  /**
+   *  Returns the current Euclidean weight of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the weight of the arc
+   */
+  public int weight(int arc) {
+    if (numDirty > 0) {
+      refresh();
+    }
+    return weights[arc];
+  }
+
+  /**
+   *  Recomputes the weights of the arcs touching every node that moved.
+   */
+  public void refresh() {
+    int count = numDirty;
+    for (int i = 0; i < count; i++) {
+      int node = dirtyNodes[i];
+      dirty[node] = false;
+      for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+        weights[arc] = computeWeight(arc);
+      }
+      for (int index = graph.inStart(node); index < graph.inEnd(node); index++) {
+        int arc = graph.inArc(index);
+        weights[arc] = computeWeight(arc);
+      }
+    }
+    numDirty = 0;
+    if (refreshListeners != null) {
+      for (int i = 0; i < count; i++) {
+        for (int j = 0; j < refreshListeners.size(); j++) {
+          refreshListeners.get(j).refreshed(dirtyNodes[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Registers a listener to be told which nodes refresh() reweighed.
+   *
+   *  @param listener  the listener to add
+   */
+  public void addRefreshListener(RefreshListener listener) {
+    if (refreshListeners == null) {
+      refreshListeners = new ArrayList<RefreshListener>(1);
+    }
+    refreshListeners.add(listener);
+  }
+
+  /**
+   *  Unregisters a listener added by addRefreshListener.
+   *
+   *  @param listener  the listener to remove
+   */
+  public void removeRefreshListener(RefreshListener listener) {
+    if (refreshListeners != null) {
+      refreshListeners.remove(listener);
+    }
+  }
+
+  /**
+   *  Stops listening to the graph's nodes.  The cached weights remain
+   *  readable but are no longer kept up to date.
+   */
+  public void detach() {
+    refresh();
+    for (int node = 0; node < listeners.length; node++) {
+      graph.node(node).getData().removeMoveListener(listeners[node]);
+    }
+  }
+
+  /**
+   *  Computes the weight of an arc from the current node coordinates.
+   *
+   *  @param arc  the arc id
+   *  @return     the truncated distance between its endpoints
+   */
+  private int computeWeight(int arc) {
+    return CsrGraph.euclideanWeight(graph.node(graph.tail(arc)).getData(),
+                                    graph.node(graph.head(arc)).getData());
+  }
+
+  /**
+   *  Records that one particular node moved.
+   */
+  private class NodeMoveListener implements PlacedData.MoveListener {
+    /** The id of the node this listener watches. */
+    private final int node;
+
+    /**
+     *  Constructor.
+     *
+     *  @param node  the id of the node to watch
+     */
+    public NodeMoveListener(int node) {
+      this.node = node;
+    }
+
+    /**
+     *  Marks the node as dirty.
+     *
+     *  @param data  the data that moved
+     */
+    public void moved(PlacedData<?> data) {
+      if (!dirty[node]) {
+        dirty[node] = true;
+        dirtyNodes[numDirty++] = node;
+      }
+    }
+  }
+}
@@ -1,5 +1,8 @@
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  *  A graph, similar in idea to the List interface of the Collections
@@ -32,6 +35,53 @@ public interface Graph<N,E> {
    */
   public Set<Edge<N,E>> getEdges();
 
+  /**
+   *  Get a read-only view of the nodes in the graph.  Unlike getNodes, the
+   *  view is not a copy: it reflects later changes to the graph, so it must
+   *  not be iterated while the graph is being changed.  The default
+   *  implementation wraps getNodes, so it does copy; graphs that can do
+   *  better override it.
+   *
+   *  @return a read-only view of the nodes in the graph
+   */
+  public default Collection<Node<N,E>> nodes() {
+    return Collections.unmodifiableCollection(getNodes());
+  }
+
+  /**
+   *  Get a read-only view of the edges in the graph, with the same contract
+   *  as nodes().
+   *
+   *  @return a read-only view of the edges in the graph
+   */
+  public default Collection<Edge<N,E>> edges() {
+    return Collections.unmodifiableCollection(getEdges());
+  }
+
+  /**
+   *  Hands every node of the graph to an action, without copying the node
+   *  set.  The action must not change the graph.
+   *
+   *  @param action  the action to apply to each node
+   */
+  public default void forEachNode(Consumer<? super Node<N,E>> action) {
+    for (Node<N,E> node : nodes()) {
+      action.accept(node);
+    }
+  }
+
+  /**
+   *  Hands every edge of the graph to an action, without copying the edge
+   *  set.  The action must not change the graph.
+   *
+   *  @param action  the action to apply to each edge
+   */
+  public default void forEachEdge(Consumer<? super Edge<N,E>> action) {
+    for (Edge<N,E> edge : edges()) {
+      action.accept(edge);
+    }
+  }
+
   /**
    *  Find a particular edge given its tail and head.
    *
@@ -41,6 +91,19 @@ public interface Graph<N,E> {
    */
   public Edge<N,E> findEdge(Node<N,E> tail, Node<N,E> head);
 
+  /**
+   *  Returns the graph's version: a counter that changes whenever a node or
+   *  edge is added or removed, or a node's coordinates change, so anything
+   *  computed from the graph can tell whether it is stale.  A graph that
+   *  does not keep a version returns -1, and results computed from it
+   *  should not be reused.
+   *
+   *  @return the version, or -1 if the graph does not keep one
+   */
+  public default long version() {
+    return -1;
+  }
+
   /**
    *  Short-cut to get the number of nodes in the graph.  This is
    *  equivalent to, though not necessarily implemented as,
@@ -200,6 +263,28 @@ public interface Graph<N,E> {
      */
     public Set<Edge<N,E>> getIncomingEdges();
 
+    /**
+     *  Return a read-only view of the edges leaving this node.  Unlike
+     *  getOutgoingEdges the view is not a copy, so it must not be iterated
+     *  while the graph is being changed.  The default implementation wraps
+     *  getOutgoingEdges.
+     *
+     *  @return a read-only view of the edges leaving this node
+     */
+    public default Collection<Edge<N,E>> outgoingEdges() {
+      return Collections.unmodifiableCollection(getOutgoingEdges());
+    }
+
+    /**
+     *  Return a read-only view of the edges entering this node, with the
+     *  same contract as outgoingEdges().
+     *
+     *  @return a read-only view of the edges entering this node
+     */
+    public default Collection<Edge<N,E>> incomingEdges() {
+      return Collections.unmodifiableCollection(getIncomingEdges());
+    }
+
     /**
      *  Is this node equal to that node, (i.e., are the contents equal
      *  to each other)?
@@ -26,14 +26,14 @@ public class GraphComponent extends JComponent {
    *  so the data associated with a node includes its position and
    *  color.
    */
-  ComplexGraph<PlacedData<Integer>, Integer> graphWithPlacement;
+  GraphImplementation<PlacedData<Integer>, Integer> graphWithPlacement;
 
   /** 
    *  Constructor.
    *
    *  @param graphWithPlacement - the graph to draw
    */
-  public GraphComponent(ComplexGraph<PlacedData<Integer>, Integer> graphWithPlacement) {
+  public GraphComponent(GraphImplementation<PlacedData<Integer>, Integer> graphWithPlacement) {
     this.graphWithPlacement = graphWithPlacement;
     setMinimumSize(new Dimension(100, 100));
     setPreferredSize(new Dimension(400, 400));
@@ -45,7 +45,7 @@ public class GraphComponent extends JComponent {
    *  @param g the graphics context in which to render
    */
   public void paint(Graphics g) {
-    for (Graph.Edge<PlacedData<Integer>, Integer> edge : graphWithPlacement.getEdges()) {
+    for (Graph.Edge<PlacedData<Integer>, Integer> edge : graphWithPlacement.edges()) {
       g.setColor(Color.black);
       int x1 = edge.getTail().getData().getX();
       int y1 = edge.getTail().getData().getY();
@@ -75,7 +75,7 @@ public class GraphComponent extends JComponent {
                                       3);
       g.fillPolygon(arrowHead);
     }
-    for (Graph.Node<PlacedData<Integer>, Integer> node : graphWithPlacement.getNodes()) {
+    for (Graph.Node<PlacedData<Integer>, Integer> node : graphWithPlacement.nodes()) {
       g.setColor(node.getData().getColor());
       g.fillOval(node.getData().getX() - NODE_RADIUS,
                  node.getData().getY() - NODE_RADIUS,
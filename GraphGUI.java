@@ -2,6 +2,7 @@ import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;        
 import java.io.*;
+import java.nio.file.Paths;
 
 /**
  *  Class that runs a maze display/solution GUI.
@@ -14,7 +15,7 @@ public class GraphGUI {
   private GraphComponent graphComponent; 
 
   /** Holds the graph to solve */
-  private ComplexGraph<PlacedData<Integer>,Integer> graph;
+  private GraphImplementation<PlacedData<Integer>,Integer> graph;
 
   /** The window */
   private JFrame frame;
@@ -22,12 +23,44 @@ public class GraphGUI {
   /** The node last selected by the user. */
   private Graph.Node<PlacedData<Integer>, Integer> chosenNode;
 
+  /** Snapshot of the graph that shortest paths are searched on */
+  private CsrGraph<PlacedData<Integer>,Integer> snapshot;
+
+  /** Weights of the snapshot's arcs: edgeWeights, or the weights of a loaded file */
+  private WeightProvider weights;
+
+  /** Cached edge weights of the graph, kept current as nodes are dragged, or null for a loaded file */
+  private EuclideanWeights<Integer,Integer> edgeWeights;
+
+  /** Shortest-path tree of the last node searched from, repaired as nodes are dragged */
+  private DynamicShortestPaths shortestPathTree;
+
   /**
    *  Constructor that builds a completely empty graph.
    */
   public GraphGUI() {
-    this.graph = new ComplexGraph<PlacedData<Integer>, Integer>();
+    this.graph = new GraphImplementation<PlacedData<Integer>, Integer>();
     initializeGraph();
+    this.snapshot = CsrGraph.euclidean(this.graph);
+    this.edgeWeights = new EuclideanWeights<Integer,Integer>(this.snapshot);
+    this.edgeWeights.addRefreshListener(new TreeRepairer());
+    this.weights = this.edgeWeights;
+    this.graphComponent = new GraphComponent(this.graph);
+  }
+
+  /**
+   *  Constructor that builds the graph from a loaded snapshot.  Shortest
+   *  paths use the weights read from the file, which do not change as
+   *  nodes are dragged.
+   *
+   *  @param loaded  the graph to display, as read by GraphLoader
+   */
+  public GraphGUI(CsrGraph<?,?> loaded) {
+    this.graph = new GraphImplementation<PlacedData<Integer>, Integer>();
+    GraphGenerators.PlacedGraphSink sink = new GraphGenerators.PlacedGraphSink(this.graph);
+    GraphLoader.copy(loaded, sink);
+    this.snapshot = CsrGraph.of(this.graph, sink.weigher());
+    this.weights = this.snapshot;
     this.graphComponent = new GraphComponent(this.graph);
   }
 
@@ -74,7 +107,7 @@ public class GraphGUI {
     resetButton.addActionListener(new ActionListener(){
         public void actionPerformed(ActionEvent e) {
         	// Returns graph to originally painted state
-          	for (Graph.Node<PlacedData<Integer>, Integer> node : graph.getNodes()) { 
+          	for (Graph.Node<PlacedData<Integer>, Integer> node : graph.nodes()) { 
             	node.getData().setColor(Color.cyan);
           	}
           	graphComponent.repaint();
@@ -91,7 +124,7 @@ public class GraphGUI {
           new Thread(new Runnable() {
               public void run() {
                 if (chosenNode != null) {
-                  new GraphImplementation().depthFirstTraversal(chosenNode, new NodeProcessor());
+                  graph.depthFirstTraversal(chosenNode, new NodeProcessor());
                 }
               }
             }).start();
@@ -106,7 +139,7 @@ public class GraphGUI {
           new Thread(new Runnable() {
               public void run() {
                 if (chosenNode != null) {
-                  new GraphImplementation().breadthFirstTraversal(chosenNode, new NodeProcessor());
+                  graph.breadthFirstTraversal(chosenNode, new NodeProcessor());
                 }
               }
             }).start();
@@ -120,9 +153,20 @@ public class GraphGUI {
     	public void actionPerformed(ActionEvent e) {
         	if (chosenNode != null) {
           		Dijkstra dijkstraAlgorithm = new Dijkstra();
-          		dijkstraAlgorithm.executeDijkstra(graph, chosenNode);
+          		if (edgeWeights != null) {
+          			dijkstraAlgorithm.executeDijkstra(edgeWeights, treeFor(chosenNode));
+          		}
+          		else {
+          			dijkstraAlgorithm.executeDijkstra(snapshot, treeFor(chosenNode));
+          		}
           		// Display shortest distances in GraphApplication window
-				dijkstraOutput.setText(" From chosen node: " + chosenNode.toString() + "\n" + "\n" + dijkstraAlgorithm.printDijkstra(chosenNode));
+				dijkstraOutput.setText(" From chosen node: " + chosenNode.toString() + "\n" + "\n");
+				try {
+					dijkstraAlgorithm.writeDijkstra(new TextAreaWriter(dijkstraOutput));
+				}
+				catch (IOException ex) {
+					dijkstraOutput.append(" " + ex.getMessage());
+				}
         	}
       	}
     });
@@ -147,15 +191,20 @@ public class GraphGUI {
 
   /**
    *  The obligatory main method for the application.  With no
-   *  arguments the application will read the graph from the standard
-   *  input; with one argument (a file name) it will read the graph
-   *  from the named file.
+   *  arguments the application shows the built-in sample graph; with
+   *  one argument (a file name) it will read the graph from the named
+   *  file, which may be a DIMACS .gr file or an edge list.
    *
    *  @param args  the command-line arguments
    */
   public static void main(String[] args) throws IOException {
     GraphGUI graphSolver;
-    graphSolver = new GraphGUI();
+    if (args.length > 0) {
+      graphSolver = new GraphGUI(GraphLoader.load(Paths.get(args[0])));
+    }
+    else {
+      graphSolver = new GraphGUI();
+    }
     graphSolver.execute();
   }
 
@@ -186,7 +235,7 @@ public class GraphGUI {
     */
     public void mousePressed(MouseEvent e) {
       System.out.println("MousePressed");
-      for (Graph.Node<PlacedData<Integer>, Integer> node : graph.getNodes()) {
+      for (Graph.Node<PlacedData<Integer>, Integer> node : graph.nodes()) {
         double nodeX = node.getData().getX();
         double nodeY = node.getData().getY();
         double mouseX = e.getX();
@@ -203,6 +252,66 @@ public class GraphGUI {
       }
     }
   } // end of nested class MyMouseListener
+
+ /**
+  * Returns the shortest-path tree of a node, building it the first time the
+  * node is searched from. Later searches from the same node only repair
+  * the parts of the tree that dragging has changed.
+  *
+  * @param node The node to search from
+  * @return The tree
+  */
+  private DynamicShortestPaths treeFor(Graph.Node<PlacedData<Integer>, Integer> node) {
+    int source = snapshot.id(node);
+    if (shortestPathTree == null || shortestPathTree.source() != source) {
+      shortestPathTree = null;
+      if (edgeWeights != null) {
+        edgeWeights.refresh();
+      }
+      shortestPathTree = new DynamicShortestPaths(snapshot, weights, source);
+    }
+    return shortestPathTree;
+  }
+
+ /**
+  * Repairs the current shortest-path tree when the weights of a dragged
+  * node's edges are recomputed.
+  */
+  private class TreeRepairer implements EuclideanWeights.RefreshListener {
+    public void refreshed(int node) {
+      if (shortestPathTree != null) {
+        shortestPathTree.refreshNode(node, edgeWeights);
+      }
+    }
+  }
+
+ /**
+  * Appends what is written to a text area, a buffer at a time, so a long
+  * result never has to be held as one String.
+  */
+  private static class TextAreaWriter extends Writer {
+    /** The text area to append to. */
+    private final JTextArea area;
+
+    /**
+     * Constructor.
+     *
+     * @param area The text area to append to.
+     */
+    public TextAreaWriter(JTextArea area) {
+      this.area = area;
+    }
+
+    public void write(char[] chars, int offset, int length) {
+      area.append(new String(chars, offset, length));
+    }
+
+    public void flush() {
+    }
+
+    public void close() {
+    }
+  }
  
  /**
   * Creates a graph, adding nodes and edges.
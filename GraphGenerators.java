@@ -0,0 +1,372 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ *  Generators for large synthetic graphs, for load testing.  Every
+ *  generator streams its nodes and edges into a GraphSink, so a CsrBuilder
+ *  receives primitive arrays directly and a PlacedGraphSink receives the
+ *  nodes and edges of an ordinary Graph, without any intermediate graph in
+ *  between.  The same seed always produces the same graph.
+ *
+ *  Nodes are placed on the plane and edges are weighted by their length,
+ *  like the graphs of the GUI application.  Except for the k-nearest
+ *  neighbour graph, every edge is added in both directions.
+ */
+public class GraphGenerators {
+  /** Distance between neighbouring grid points. */
+  public static final int SPACING = 100;
+
+  /**
+   *  Not instantiable.
+   */
+  private GraphGenerators() {
+  }
+
+  /**
+   *  Generates a grid with rectangular obstacles.  Node y * width + x sits
+   *  at (x, y) times SPACING and is joined to its four neighbours, except
+   *  that nodes inside obstacles are left without edges.  Obstacles are
+   *  random rectangles added until about the given fraction of the nodes is
+   *  blocked.
+   *
+   *  @param width      the number of columns
+   *  @param height     the number of rows
+   *  @param obstacles  the fraction of nodes to block, from 0 to 1
+   *  @param seed       the random seed
+   *  @param sink       receives the graph
+   *  @throws IllegalArgumentException  if width or height is not positive,
+   *                                    or obstacles is not from 0 to 1
+   */
+  public static void grid(int width, int height, double obstacles, long seed, GraphSink sink) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("The grid must be at least 1 by 1, not " + width + " by " + height + ".");
+    }
+    if (!(obstacles >= 0 && obstacles <= 1)) {
+      throw new IllegalArgumentException("The obstacle fraction must be from 0 to 1, not " + obstacles + ".");
+    }
+    Random random = new Random(seed);
+    boolean[] blocked = new boolean[width * height];
+    int toBlock = (int) (obstacles * width * height);
+    int maxSide = Math.max(1, Math.min(width, height) / 10);
+    while (toBlock > 0) {
+      int w = 1 + random.nextInt(maxSide);
+      int h = 1 + random.nextInt(maxSide);
+      int left = random.nextInt(width);
+      int top = random.nextInt(height);
+      for (int y = top; y < Math.min(height, top + h) && toBlock > 0; y++) {
+        for (int x = left; x < Math.min(width, left + w) && toBlock > 0; x++) {
+          if (!blocked[y * width + x]) {
+            blocked[y * width + x] = true;
+            toBlock -= 1;
+          }
+        }
+      }
+    }
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        sink.addNode(x * SPACING, y * SPACING);
+      }
+    }
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int v = y * width + x;
+        if (x + 1 < width && !blocked[v] && !blocked[v + 1]) {
+          addRoad(sink, v, v + 1);
+        }
+        if (y + 1 < height && !blocked[v] && !blocked[v + width]) {
+          addRoad(sink, v, v + width);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Generates a k-nearest-neighbour graph: points scattered uniformly over
+   *  a square, with an arc from every point to each of its k nearest
+   *  neighbours and the reverse arc wherever the relation is not mutual, so
+   *  that every edge can be travelled both ways and no arc is repeated.
+   *
+   *  @param numNodes  the number of points
+   *  @param k         the number of neighbours of each point
+   *  @param seed      the random seed
+   *  @param sink      receives the graph
+   */
+  public static void nearestNeighbours(int numNodes, int k, long seed, GraphSink sink) {
+    k = Math.min(k, numNodes - 1);
+    Random random = new Random(seed);
+    int side = Math.max(1, (int) Math.sqrt(numNodes));
+    int[] xs = new int[numNodes];
+    int[] ys = new int[numNodes];
+    for (int v = 0; v < numNodes; v++) {
+      xs[v] = random.nextInt(side * SPACING);
+      ys[v] = random.nextInt(side * SPACING);
+      sink.addNode(xs[v], ys[v]);
+    }
+    if (k <= 0) {
+      return;
+    }
+
+    // Sort the points into cells of about one point each
+    int[] cellStart = new int[side * side + 1];
+    int[] cellOf = new int[numNodes];
+    for (int v = 0; v < numNodes; v++) {
+      cellOf[v] = (ys[v] / SPACING) * side + xs[v] / SPACING;
+      cellStart[cellOf[v] + 1] += 1;
+    }
+    for (int c = 0; c < side * side; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    int[] byCell = new int[numNodes];
+    int[] fill = Arrays.copyOf(cellStart, side * side);
+    for (int v = 0; v < numNodes; v++) {
+      byCell[fill[cellOf[v]]++] = v;
+    }
+
+    // Search rings of cells outward until no closer point can remain
+    int[] neighbours = new int[numNodes * k];
+    long[] best = new long[k];
+    int[] bestNode = new int[k];
+    for (int v = 0; v < numNodes; v++) {
+      int found = 0;
+      int cx = cellOf[v] % side;
+      int cy = cellOf[v] / side;
+      for (int ring = 0; ring < side; ring++) {
+        for (int y = cy - ring; y <= cy + ring; y++) {
+          for (int x = cx - ring; x <= cx + ring; x++) {
+            boolean onRing = Math.abs(y - cy) == ring || Math.abs(x - cx) == ring;
+            if (!onRing || x < 0 || y < 0 || x >= side || y >= side) {
+              continue;
+            }
+            int cell = y * side + x;
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+              int w = byCell[i];
+              if (w == v) {
+                continue;
+              }
+              long dx = xs[w] - xs[v];
+              long dy = ys[w] - ys[v];
+              long d = dx * dx + dy * dy;
+              if (found < k || d < best[found - 1]) {
+                // Insertion into the sorted list of the k best so far
+                int j = found < k ? found++ : k - 1;
+                while (j > 0 && best[j - 1] > d) {
+                  best[j] = best[j - 1];
+                  bestNode[j] = bestNode[j - 1];
+                  j -= 1;
+                }
+                best[j] = d;
+                bestNode[j] = w;
+              }
+            }
+          }
+        }
+        long reach = (long) ring * SPACING;
+        if (found == k && best[k - 1] <= reach * reach) {
+          break;
+        }
+      }
+      System.arraycopy(bestNode, 0, neighbours, v * k, k);
+    }
+    for (int v = 0; v < numNodes; v++) {
+      for (int i = v * k; i < v * k + k; i++) {
+        int w = neighbours[i];
+        sink.addEdge(v, w);
+        if (!contains(neighbours, w * k, k, v)) {
+          sink.addEdge(w, v);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Generates a Barabasi-Albert scale-free graph.  Each new node is joined
+   *  to links distinct existing nodes, chosen with probability proportional
+   *  to their degree, which gives a power-law degree distribution with a
+   *  few very large hubs.  Nodes are placed at random.
+   *
+   *  @param numNodes  the number of nodes
+   *  @param links     the number of edges each new node adds
+   *  @param seed      the random seed
+   *  @param sink      receives the graph
+   */
+  public static void barabasiAlbert(int numNodes, int links, long seed, GraphSink sink) {
+    Random random = new Random(seed);
+    int side = Math.max(1, (int) Math.sqrt(numNodes)) * SPACING;
+    // Every edge endpoint so far, so that a uniform pick is a degree-weighted pick
+    int[] endpoints = new int[2 * numNodes * links];
+    int numEndpoints = 0;
+    int[] chosen = new int[links];
+    for (int v = 0; v < numNodes; v++) {
+      sink.addNode(random.nextInt(side), random.nextInt(side));
+      int wanted = Math.min(links, v);
+      int numChosen = 0;
+      while (numChosen < wanted) {
+        int w = numEndpoints == 0 ? random.nextInt(v) : endpoints[random.nextInt(numEndpoints)];
+        if (!contains(chosen, 0, numChosen, w)) {
+          chosen[numChosen++] = w;
+        }
+      }
+      for (int i = 0; i < numChosen; i++) {
+        addRoad(sink, v, chosen[i]);
+        endpoints[numEndpoints++] = v;
+        endpoints[numEndpoints++] = chosen[i];
+      }
+    }
+  }
+
+  /**
+   *  Generates a planar road-like network.  Nodes sit on a jittered square
+   *  grid; every eighth row and column is an arterial road whose segments
+   *  are always present, other segments survive with probability 0.8, and
+   *  about one cell in ten gets a diagonal shortcut.  A diagonal stays inside
+   *  its own cell, so no two roads cross.  Like a real road network the
+   *  result is sparse and nearly, but not always, connected.
+   *
+   *  @param numNodes  roughly the number of nodes; rounded down to a square
+   *  @param seed      the random seed
+   *  @param sink      receives the graph
+   */
+  public static void roadLike(int numNodes, long seed, GraphSink sink) {
+    Random random = new Random(seed);
+    int side = Math.max(1, (int) Math.sqrt(numNodes));
+    int jitter = SPACING * 3 / 10;
+    for (int y = 0; y < side; y++) {
+      for (int x = 0; x < side; x++) {
+        sink.addNode(x * SPACING + random.nextInt(2 * jitter + 1) - jitter,
+                     y * SPACING + random.nextInt(2 * jitter + 1) - jitter);
+      }
+    }
+    for (int y = 0; y < side; y++) {
+      for (int x = 0; x < side; x++) {
+        int v = y * side + x;
+        if (x + 1 < side && (y % 8 == 0 || random.nextDouble() < 0.8)) {
+          addRoad(sink, v, v + 1);
+        }
+        if (y + 1 < side && (x % 8 == 0 || random.nextDouble() < 0.8)) {
+          addRoad(sink, v, v + side);
+        }
+        if (x + 1 < side && y + 1 < side && random.nextDouble() < 0.1) {
+          if (random.nextBoolean()) {
+            addRoad(sink, v, v + side + 1);
+          }
+          else {
+            addRoad(sink, v + 1, v + side);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   *  Adds an edge in both directions.
+   */
+  private static void addRoad(GraphSink sink, int v, int w) {
+    sink.addEdge(v, w);
+    sink.addEdge(w, v);
+  }
+
+  /**
+   *  Does a slice of an array contain a value?
+   */
+  private static boolean contains(int[] values, int from, int length, int value) {
+    for (int i = from; i < from + length; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   *  A sink that adds the generated nodes and edges to a placed Graph.
+   *  Node data is the node id and edge data is the edge's number in the
+   *  order of generation.  The weights of edges added with a weight of their
+   *  own are kept alongside, and weigher() hands them to CsrGraph.of.
+   */
+  public static class PlacedGraphSink implements GraphSink {
+    /** The graph being filled. */
+    private final Graph<PlacedData<Integer>,Integer> graph;
+
+    /** The nodes added, by id. */
+    private final List<Graph.Node<PlacedData<Integer>,Integer>> nodes;
+
+    /** Number of edges added. */
+    private int numEdges;
+
+    /** Weight of each edge by number, or -1 for an edge weighed by its length. */
+    private int[] weights = new int[16];
+
+    /**
+     *  Constructor.
+     *
+     *  @param graph  the graph to add to, normally empty
+     */
+    public PlacedGraphSink(Graph<PlacedData<Integer>,Integer> graph) {
+      this.graph = graph;
+      this.nodes = new ArrayList<Graph.Node<PlacedData<Integer>,Integer>>();
+    }
+
+    /**
+     *  Returns the graph being filled.
+     *
+     *  @return the graph
+     */
+    public Graph<PlacedData<Integer>,Integer> graph() {
+      return graph;
+    }
+
+    /**
+     *  Returns the node added with the given id.
+     *
+     *  @param id  the node id
+     *  @return    the node
+     */
+    public Graph.Node<PlacedData<Integer>,Integer> node(int id) {
+      return nodes.get(id);
+    }
+
+    public void addNode(int x, int y) {
+      nodes.add(graph.addNode(new PlacedData<Integer>(nodes.size(), x, y)));
+    }
+
+    /**
+     *  Returns a weigher giving each edge the weight it was added with, or
+     *  the straight-line distance between its endpoints if it was added
+     *  without one.
+     *
+     *  @return the weigher
+     */
+    public CsrGraph.Weigher<PlacedData<Integer>,Integer> weigher() {
+      return new CsrGraph.Weigher<PlacedData<Integer>,Integer>() {
+        public int weight(Graph.Edge<PlacedData<Integer>,Integer> edge) {
+          int weight = weights[edge.getData()];
+          return weight >= 0 ? weight : CsrGraph.euclideanWeight(edge.getTail().getData(), edge.getHead().getData());
+        }
+      };
+    }
+
+    public void addEdge(int tail, int head) {
+      add(tail, head, -1);
+    }
+
+    public void addEdge(int tail, int head, int weight) {
+      if (weight < 0) {
+        throw new IllegalArgumentException("Edge weights must not be negative.");
+      }
+      add(tail, head, weight);
+    }
+
+    /**
+     *  Adds an edge and records its weight.
+     */
+    private void add(int tail, int head, int weight) {
+      if (numEdges == weights.length) {
+        weights = Arrays.copyOf(weights, numEdges * 2);
+      }
+      weights[numEdges] = weight;
+      graph.addEdge(numEdges++, nodes.get(tail), nodes.get(head));
+    }
+  }
+}
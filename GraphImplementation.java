@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Implements the Graph interface
@@ -14,14 +15,22 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
   	Collection<Node<N,E>> nodeSet = new HashSet<Graph.Node<N,E>>();
   	/** A hashset of edges. */
   	Collection<Edge<N,E>> edgeSet = new HashSet<Graph.Edge<N,E>>();
-  	/** A hashset of outgoing edges. */
-  	private Set<Edge<N,E>> outEdges = new HashSet<Graph.Edge<N,E>>();
-  	/** A hashset of incoming edges. */
-  	private Set<Edge<N,E>> inEdges = new HashSet<Graph.Edge<N,E>>();
+  	/** Map from a node (or any node equal to it) to the graph's own node, which holds its adjacency index. */
+  	private Map<Node<N,E>, GraphNode> nodeIndex = new HashMap<Graph.Node<N,E>, GraphNode>();
 	
 	/** Number of nodes */
 	private int numNodes = 0;
 
+	/** Changes whenever the graph or the coordinates of its nodes change */
+	private long version = 0;
+
+	/** Bumps the version when the PlacedData of a node moves */
+	private final PlacedData.MoveListener moveListener = new PlacedData.MoveListener() {
+		public void moved(PlacedData<?> data) {
+			version += 1;
+		}
+	};
+
    /**
 	*  Gets a new set of all of the nodes in the graph.  Changes made to the
 	*  returned set will not be reflected in the graph, though changes made to
@@ -44,6 +53,48 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 		return new HashSet<Edge<N,E>>(edgeSet);
 	}
 
+   /**
+	*  Gets a read-only view of the nodes in the graph, backed by the
+	*  graph's own node set, so no copy is made.
+	*
+	*  @return a read-only view of the nodes in the graph
+	*/
+	public Collection<Node<N,E>> nodes() {
+		return Collections.unmodifiableCollection(nodeSet);
+	}
+
+   /**
+	*  Gets a read-only view of the edges in the graph, backed by the
+	*  graph's own edge set, so no copy is made.
+	*
+	*  @return a read-only view of the edges in the graph
+	*/
+	public Collection<Edge<N,E>> edges() {
+		return Collections.unmodifiableCollection(edgeSet);
+	}
+
+   /**
+	*  Hands every node of the graph to an action.
+	*
+	*  @param action  the action to apply to each node
+	*/
+	public void forEachNode(Consumer<? super Node<N,E>> action) {
+		for (Node<N,E> node : nodeSet) {
+			action.accept(node);
+		}
+	}
+
+   /**
+	*  Hands every edge of the graph to an action.
+	*
+	*  @param action  the action to apply to each edge
+	*/
+	public void forEachEdge(Consumer<? super Edge<N,E>> action) {
+		for (Edge<N,E> edge : edgeSet) {
+			action.accept(edge);
+		}
+	}
+
    /**
 	*  Finds a particular edge given its tail and head.
 	*
@@ -52,12 +103,21 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 	*  @return      the edge, or null if there is no such edge
 	*/
 	public Edge<N,E> findEdge(Node<N,E> tail, Node<N,E> head) {
-		for (Edge<N,E> edge : edgeSet) {
-			if (edge.getTail().equals(tail) && edge.getHead().equals(head)) {
-				return edge;
-			}
+		GraphNode tailNode = nodeIndex.get(tail);
+		if (tailNode == null) {
+			return null;
 		}
-		return null;
+		return tailNode.outgoing.get(head);
+	}
+
+   /**
+	*  Returns the graph's version, which changes whenever a node or edge is
+	*  added or removed or the PlacedData of a node moves.
+	*
+	*  @return the version
+	*/
+	public long version() {
+		return version;
 	}
 
    /**
@@ -92,21 +152,39 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 		GraphNode newNode = new GraphNode(data);
 		numNodes += 1;
 		nodeSet.add(newNode);
+		nodeIndex.put(newNode, newNode);
+		if (data instanceof PlacedData) {
+			((PlacedData<?>) data).addMoveListener(moveListener);
+		}
+		version += 1;
 		return newNode;
 	}
 
    /**
-	*  Adds an edge to the graph, given the tail and head nodes.
+	*  Adds an edge to the graph, given the tail and head nodes.  If the
+	*  graph already has an edge from tail to head, that edge is returned
+	*  unchanged, since the two would be equal.
 	*
 	*  @param tail  the tail ("from" node) of the edge to be added
 	*  @param head  the head ("to" node) of the edge to be added
 	*  @return the new edge
+	*  @throws Error  if either the tail or head nodes do not belong to this graph
 	*/
 	public Edge<N,E> addEdge(E data, Node<N,E> tail, Node<N,E> head) {
-		GraphEdge newEdge = new GraphEdge(data, tail, head);
-		if (!edgeSet.contains(newEdge)) {
-			edgeSet.add(newEdge);
+		GraphNode tailNode = nodeIndex.get(tail);
+		GraphNode headNode = nodeIndex.get(head);
+		if (tailNode == null || headNode == null) {
+			throw new Error("The supplied node is not a node of this graph.");
+		}
+		Edge<N,E> oldEdge = tailNode.outgoing.get(headNode);
+		if (oldEdge != null) {
+			return oldEdge;
 		}
+		GraphEdge newEdge = new GraphEdge(data, tailNode, headNode);
+		edgeSet.add(newEdge);
+		tailNode.outgoing.put(headNode, newEdge);
+		headNode.incoming.put(tailNode, newEdge);
+		version += 1;
 		return newEdge;
 	}
 
@@ -117,23 +195,28 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 	*  @throws Error  if the node does not belong to this graph
 	*/
 	public void removeNode(Node<N,E> node) { 
-		try {
-			// Remove node
-			numNodes -= 1;
-			getNodes().remove((Object) node);
-			// Remove incidence edges
-			for (Iterator<Edge<N,E>> outEdgeItr = node.getOutgoingEdges().iterator(); outEdgeItr.hasNext(); ) {
-				Edge<N,E> edge = outEdgeItr.next();
-				outEdgeItr.remove(); 
-			}
-			for (Iterator<Edge<N,E>> inEdgeItr = node.getIncomingEdges().iterator(); inEdgeItr.hasNext(); ) {
-				Edge<N,E> edge = inEdgeItr.next();
-				inEdgeItr.remove(); 
-			}
-		} catch (ArrayIndexOutOfBoundsException e) {
-			throw new Error("The supplied node is not an edge of this graph.");
+		GraphNode graphNode = nodeIndex.remove(node);
+		if (graphNode == null) {
+			throw new Error("The supplied node is not a node of this graph.");
 		}
-		
+		// Remove node
+		numNodes -= 1;
+		nodeSet.remove(graphNode);
+		// Remove incident edges from the graph and from the neighbors' indices
+		for (Edge<N,E> edge : graphNode.outgoing.values()) {
+			edgeSet.remove(edge);
+			((GraphNode) edge.getHead()).incoming.remove(graphNode);
+		}
+		for (Edge<N,E> edge : graphNode.incoming.values()) {
+			edgeSet.remove(edge);
+			((GraphNode) edge.getTail()).outgoing.remove(graphNode);
+		}
+		graphNode.outgoing.clear();
+		graphNode.incoming.clear();
+		if (graphNode.data instanceof PlacedData) {
+			((PlacedData<?>) graphNode.data).removeMoveListener(moveListener);
+		}
+		version += 1;
 	}
 
    /**
@@ -145,6 +228,7 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 	public void removeEdge(Edge<N,E> edge) { 
 		if (edgeSet.contains(edge)) {
 			edgeSet.remove(edge);
+			unindexEdge(edge);
 		}
 		else {
 			throw new Error("The supplied edge is not an edge of this graph.");
@@ -159,15 +243,32 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 	*  @throws Error  if either the tail or head nodes do not belong to this graph
 	*/
 	public void removeEdge(Node<N,E> tail, Node<N,E> head) {  
-		for (Iterator<Edge<N,E>> edgeItr = edgeSet.iterator(); edgeItr.hasNext(); ) {
-			Edge<N,E> edge = edgeItr.next();
-			if (edge.getTail().equals(tail) && edge.getHead().equals(head)) { 
-				edgeItr.remove();
-			}
-		}
-		if (!nodeSet.contains(tail) || !nodeSet.contains(head)) {
+		GraphNode tailNode = nodeIndex.get(tail);
+		if (tailNode == null || !nodeIndex.containsKey(head)) {
 			throw new Error("The supplied edge is not an edge of this graph.");
 		}
+		Edge<N,E> edge = tailNode.outgoing.get(head);
+		if (edge != null) {
+			edgeSet.remove(edge);
+			unindexEdge(edge);
+		}
+	}
+
+   /**
+	*  Removes an edge from the adjacency indices of its tail and head.
+	*
+	*  @param edge  the edge being removed
+	*/
+	private void unindexEdge(Edge<N,E> edge) {
+		GraphNode tailNode = nodeIndex.get(edge.getTail());
+		GraphNode headNode = nodeIndex.get(edge.getHead());
+		version += 1;
+		if (tailNode != null) {
+			tailNode.outgoing.remove(edge.getHead());
+		}
+		if (headNode != null) {
+			headNode.incoming.remove(edge.getTail());
+		}
 	}
 
    /**
@@ -305,7 +406,7 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 		for (Node<N,E> node : nodeSet) {
 	 		builder.append("\n  Node: ");
 	  		builder.append(node.getData().toString());
-	  		for (Edge<N,E> edge : edgeSet) { 
+	  		for (Edge<N,E> edge : nodeIndex.get(node).outgoing.values()) { 
 	    		if (edge != null) {
 	      			builder.append("\n    To: ").append(edge.getHead().getData()).append(", ").append(edge.getData());
 	    		}
@@ -316,16 +417,29 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 
 
    /**
-	*  Verifies the internal consistency of the graph structure.
+	*  Verifies the internal consistency of the graph structure: every edge
+	*  joins two nodes of the graph and is recorded in the adjacency index
+	*  of both, and the indices hold no other edges.
 	*
 	*  @return  true if consistent, false otherwise
 	*/
 	public boolean validateGraph() {
+		if (nodeIndex.size() != nodeSet.size()) { return false; }
 		for (Edge<N,E> edge : edgeSet) {
-			if (edge == null) { return true; }
-			if (!edgeSet.contains(edge)) { return false; }
+			if (edge == null) { return false; }
+			GraphNode tailNode = nodeIndex.get(edge.getTail());
+			GraphNode headNode = nodeIndex.get(edge.getHead());
+			if (tailNode == null || headNode == null) { return false; }
+			if (tailNode.outgoing.get(headNode) != edge) { return false; }
+			if (headNode.incoming.get(tailNode) != edge) { return false; }
+		}
+		int numOutgoing = 0;
+		int numIncoming = 0;
+		for (GraphNode node : nodeIndex.values()) {
+			numOutgoing += node.outgoing.size();
+			numIncoming += node.incoming.size();
 		}
-		return true;
+		return numOutgoing == edgeSet.size() && numIncoming == edgeSet.size();
 	}
 
    /**
@@ -339,6 +453,12 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 	  	/** Data associated with this node */
 	  	public N data;
 
+	  	/** Edges leaving this node, keyed by their head */
+	  	private Map<Node<N,E>, Edge<N,E>> outgoing = new HashMap<Node<N,E>, Edge<N,E>>();
+
+	  	/** Edges entering this node, keyed by their tail */
+	  	private Map<Node<N,E>, Edge<N,E>> incoming = new HashMap<Node<N,E>, Edge<N,E>>();
+
 	   /** 
 	  	* Constructor. Create a node with given data.
 	  	*
@@ -367,12 +487,7 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 	    *  @return the set of edges leaving this node
 	    */
 	    public Set<Edge<N,E>> getOutgoingEdges() {
-	    	for (Edge<N,E> edge : edgeSet) {
-	    		if (edge.getTail() == this) {
-	    			outEdges.add(edge);
-	    		}
-	    	}
-	    	return outEdges;
+	    	return new HashSet<Edge<N,E>>(outgoing.values());
 	    }
 
 	   /**
@@ -384,12 +499,27 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 	    *  @return the set of edges entering this node
 	    */
 	    public Set<Edge<N,E>> getIncomingEdges() {
-	    	for (Edge<N,E> edge : edgeSet) {
-	    		if (edge.getHead() == this) {
-	    			inEdges.add(edge);
-	    		}
-	    	}
-	    	return inEdges;
+	    	return new HashSet<Edge<N,E>>(incoming.values());
+	    }
+
+	   /**
+	    *  Return a read-only view of the edges leaving this node, backed by
+	    *  its adjacency index.
+	    *
+	    *  @return a read-only view of the edges leaving this node
+	    */
+	    public Collection<Edge<N,E>> outgoingEdges() {
+	    	return Collections.unmodifiableCollection(outgoing.values());
+	    }
+
+	   /**
+	    *  Return a read-only view of the edges entering this node, backed by
+	    *  its adjacency index.
+	    *
+	    *  @return a read-only view of the edges entering this node
+	    */
+	    public Collection<Edge<N,E>> incomingEdges() {
+	    	return Collections.unmodifiableCollection(incoming.values());
 	    }
 
 	    /**
@@ -439,6 +569,16 @@ public class GraphImplementation<N,E>  implements Graph<N,E>{
 	    	int hashCode = data.hashCode();
 	    	return hashCode;
 	    }
+
+	   /**
+	    *  Returns a string representation of this node: that of its data.
+	    *
+	    *  @return the string
+	    */
+	    @Override
+	    public String toString() {
+	    	return String.valueOf(data);
+	    }
    } // end of GraphNode nested class
 
 
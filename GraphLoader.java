@@ -0,0 +1,370 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  Loads graphs from text files into CsrGraph snapshots.  Two formats are
+ *  understood:
+ *
+ *    - the DIMACS shortest-path format: a .gr file of "a tail head weight"
+ *      arc lines with 1-based node ids, optionally with a .co file of
+ *      "v id x y" coordinate lines, and
+ *    - plain edge lists: one "tail head [weight]" line per arc with 0-based
+ *      node ids, weight 1 when it is left out, and lines starting with # or
+ *      % ignored.
+ *
+ *  Files are memory-mapped and parsed byte by byte straight into the
+ *  primitive arrays of a CsrBuilder; no String or other object is created
+ *  per line, so the load is bound by the speed of the disk.
+ */
+public class GraphLoader {
+  /**
+   *  Not instantiable.
+   */
+  private GraphLoader() {
+  }
+
+  /**
+   *  Loads a graph, choosing the format by file name.  A name ending in .gr
+   *  is read as DIMACS, together with the .co file of the same name if
+   *  there is one; anything else is read as an edge list.
+   *
+   *  @param file  the file to read
+   *  @return      the snapshot
+   *  @throws IOException  if the file cannot be read or is malformed
+   */
+  public static <N,E> CsrGraph<N,E> load(Path file) throws IOException {
+    String name = file.getFileName().toString();
+    if (name.endsWith(".gr")) {
+      Path coordinates = file.resolveSibling(name.substring(0, name.length() - 3) + ".co");
+      return loadDimacs(file, Files.exists(coordinates) ? coordinates : null);
+    }
+    return loadEdgeList(file);
+  }
+
+  /**
+   *  Loads a graph in DIMACS shortest-path format.
+   *
+   *  @param arcs         the .gr file
+   *  @param coordinates  the .co file, or null to place every node at (0, 0)
+   *  @return             the snapshot
+   *  @throws IOException  if a file cannot be read or is malformed
+   */
+  public static <N,E> CsrGraph<N,E> loadDimacs(Path arcs, Path coordinates) throws IOException {
+    int[] xs = null;
+    int[] ys = null;
+    if (coordinates != null) {
+      try (ByteScanner in = new ByteScanner(coordinates)) {
+        int c;
+        while ((c = in.read()) != -1) {
+          if (c == 'p') {
+            // p aux sp co <nodes>
+            in.skipWord();
+            in.skipWord();
+            in.skipWord();
+            int numNodes = (int) in.readLong();
+            xs = new int[numNodes];
+            ys = new int[numNodes];
+          }
+          else if (c == 'v') {
+            if (xs == null) {
+              throw new IOException("Coordinate line before the problem line in " + coordinates);
+            }
+            int id = checkId(in.readLong() - 1, xs.length, coordinates);
+            xs[id] = (int) in.readLong();
+            ys[id] = (int) in.readLong();
+          }
+          else if (c != 'c' && c != '\n' && c != '\r') {
+            throw new IOException("Unexpected line in " + coordinates);
+          }
+          in.skipLine(c);
+        }
+      }
+    }
+    CsrBuilder builder = null;
+    int numNodes = 0;
+    try (ByteScanner in = new ByteScanner(arcs)) {
+      int c;
+      while ((c = in.read()) != -1) {
+        if (c == 'p') {
+          // p sp <nodes> <arcs>
+          in.skipWord();
+          numNodes = (int) in.readLong();
+          int numArcs = (int) in.readLong();
+          if (xs != null && xs.length != numNodes) {
+            throw new IOException("The coordinate file does not match " + arcs);
+          }
+          builder = new CsrBuilder(numNodes, numArcs);
+          for (int v = 0; v < numNodes; v++) {
+            builder.addNode(xs == null ? 0 : xs[v], ys == null ? 0 : ys[v]);
+          }
+        }
+        else if (c == 'a') {
+          if (builder == null) {
+            throw new IOException("Arc line before the problem line in " + arcs);
+          }
+          int tail = checkId(in.readLong() - 1, numNodes, arcs);
+          int head = checkId(in.readLong() - 1, numNodes, arcs);
+          builder.addArc(tail, head, checkWeight(in.readLong(), arcs));
+        }
+        else if (c != 'c' && c != '\n' && c != '\r') {
+          throw new IOException("Unexpected line in " + arcs);
+        }
+        in.skipLine(c);
+      }
+    }
+    if (builder == null) {
+      throw new IOException("No problem line in " + arcs);
+    }
+    return builder.build();
+  }
+
+  /**
+   *  Loads a graph from an edge list.  The graph has one more node than the
+   *  largest id mentioned, and every node is placed at (0, 0).
+   *
+   *  @param file  the file to read
+   *  @return      the snapshot
+   *  @throws IOException  if the file cannot be read or is malformed
+   */
+  public static <N,E> CsrGraph<N,E> loadEdgeList(Path file) throws IOException {
+    CsrBuilder builder = new CsrBuilder();
+    long maxId = -1;
+    try (ByteScanner in = new ByteScanner(file)) {
+      int c;
+      while ((c = in.peek()) != -1) {
+        if (c == '#' || c == '%') {
+          in.skipLine(in.read());
+          continue;
+        }
+        in.skipSpaces();
+        if (in.atEndOfLine()) {
+          in.skipLine(in.read());
+          continue;
+        }
+        long tail = in.readLong();
+        long head = in.readLong();
+        in.skipSpaces();
+        long weight = in.atEndOfLine() ? 1 : in.readLong();
+        maxId = Math.max(maxId, Math.max(tail, head));
+        builder.addArc(checkId(tail, Integer.MAX_VALUE, file), checkId(head, Integer.MAX_VALUE, file),
+                       checkWeight(weight, file));
+        in.skipLine(in.read());
+      }
+    }
+    for (long v = 0; v <= maxId; v++) {
+      builder.addNode(0, 0);
+    }
+    return builder.build();
+  }
+
+  /**
+   *  Streams the nodes and arcs of a snapshot into a sink, for instance a
+   *  PlacedGraphSink to turn a loaded file into an ordinary Graph.  Every
+   *  arc is passed on with its weight from the snapshot.
+   *
+   *  @param graph  the snapshot
+   *  @param sink   receives its nodes and arcs
+   */
+  public static void copy(IntGraph graph, GraphSink sink) {
+    for (int v = 0; v < graph.numNodes(); v++) {
+      sink.addNode(graph.hasCoordinates() ? graph.x(v) : 0, graph.hasCoordinates() ? graph.y(v) : 0);
+    }
+    for (int arc = 0; arc < graph.numArcs(); arc++) {
+      sink.addEdge(graph.tail(arc), graph.head(arc), graph.weight(arc));
+    }
+  }
+
+  /**
+   *  Loads the file named on the command line and prints its size and the
+   *  time taken.
+   *
+   *  @param args  the file name
+   *  @throws IOException  if the file cannot be read or is malformed
+   */
+  public static void main(String[] args) throws IOException {
+    long start = System.nanoTime();
+    IntGraph graph = load(Paths.get(args[0]));
+    long elapsed = System.nanoTime() - start;
+    System.out.printf("%d nodes, %d arcs in %.1f ms%n", graph.numNodes(), graph.numArcs(), elapsed / 1e6);
+  }
+
+  /**
+   *  Checks that a node id is in range.
+   */
+  private static int checkId(long id, int numNodes, Path file) throws IOException {
+    if (id < 0 || id >= numNodes) {
+      throw new IOException("Node id " + id + " out of range in " + file);
+    }
+    return (int) id;
+  }
+
+  /**
+   *  Checks that a weight is a non-negative int.
+   */
+  private static int checkWeight(long weight, Path file) throws IOException {
+    if (weight < 0 || weight > Integer.MAX_VALUE) {
+      throw new IOException("Weight " + weight + " out of range in " + file);
+    }
+    return (int) weight;
+  }
+
+  /**
+   *  Reads a file a byte at a time through a window of memory-mapped
+   *  buffers.  Files larger than one window are mapped piece by piece, and
+   *  since the parser only ever looks at one byte, tokens that straddle two
+   *  windows need no special care.
+   */
+  private static class ByteScanner implements AutoCloseable {
+    /** Size of each mapped window. */
+    private static final long WINDOW = 1L << 30;
+
+    /** The file being read. */
+    private final FileChannel channel;
+
+    /** The path of the file, for error messages. */
+    private final Path file;
+
+    /** The current window. */
+    private MappedByteBuffer buffer;
+
+    /** File position of the start of the next window. */
+    private long nextWindow;
+
+    /**
+     *  Constructor.  Opens the file and maps its first window.
+     *
+     *  @param file  the file to read
+     *  @throws IOException  if it cannot be opened
+     */
+    public ByteScanner(Path file) throws IOException {
+      this.file = file;
+      this.channel = FileChannel.open(file, StandardOpenOption.READ);
+      nextWindow();
+    }
+
+    /**
+     *  Returns the next byte without consuming it.
+     *
+     *  @return the byte, or -1 at the end of the file
+     */
+    public int peek() throws IOException {
+      if (!buffer.hasRemaining() && !nextWindow()) {
+        return -1;
+      }
+      return buffer.get(buffer.position());
+    }
+
+    /**
+     *  Consumes and returns the next byte.
+     *
+     *  @return the byte, or -1 at the end of the file
+     */
+    public int read() throws IOException {
+      if (!buffer.hasRemaining() && !nextWindow()) {
+        return -1;
+      }
+      return buffer.get();
+    }
+
+    /**
+     *  Skips spaces and tabs, but not line ends.
+     */
+    public void skipSpaces() throws IOException {
+      int c = peek();
+      while (c == ' ' || c == '\t') {
+        buffer.get();
+        c = peek();
+      }
+    }
+
+    /**
+     *  Skips any spaces and then one word.
+     */
+    public void skipWord() throws IOException {
+      skipSpaces();
+      int c = peek();
+      while (c != -1 && c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+        buffer.get();
+        c = peek();
+      }
+    }
+
+    /**
+     *  Is the next byte the end of a line or of the file?
+     *
+     *  @return true if no more tokens remain on the line
+     */
+    public boolean atEndOfLine() throws IOException {
+      int c = peek();
+      return c == -1 || c == '\n' || c == '\r';
+    }
+
+    /**
+     *  Skips the rest of the line, given its last byte read.
+     *
+     *  @param last  the last byte read, which may itself be the newline
+     */
+    public void skipLine(int last) throws IOException {
+      int c = last;
+      while (c != '\n' && c != -1) {
+        c = read();
+      }
+    }
+
+    /**
+     *  Skips spaces and reads a decimal integer.
+     *
+     *  @return the integer
+     *  @throws IOException  if there is no integer
+     */
+    public long readLong() throws IOException {
+      skipSpaces();
+      boolean negative = false;
+      int c = read();
+      if (c == '-') {
+        negative = true;
+        c = read();
+      }
+      if (c < '0' || c > '9') {
+        throw new IOException("Number expected in " + file);
+      }
+      long value = 0;
+      while (c >= '0' && c <= '9') {
+        value = value * 10 + (c - '0');
+        c = peek();
+        if (c >= '0' && c <= '9') {
+          buffer.get();
+        }
+      }
+      return negative ? -value : value;
+    }
+
+    /**
+     *  Maps the next window of the file.
+     *
+     *  @return false if the end of the file has been reached
+     */
+    private boolean nextWindow() throws IOException {
+      long size = channel.size();
+      if (nextWindow >= size && buffer != null) {
+        return false;
+      }
+      long length = Math.min(WINDOW, size - nextWindow);
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, nextWindow, length);
+      nextWindow += length;
+      return length > 0;
+    }
+
+    /**
+     *  Closes the file.
+     */
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/**
+ *  Receives a graph one node and one edge at a time, so that a producer
+ *  such as a generator or a file loader can fill any representation
+ *  without building an intermediate graph first.  Nodes are numbered in the
+ *  order they are added, starting from 0.
+ */
+public interface GraphSink {
+  /**
+   *  Adds the next node.
+   *
+   *  @param x  the x coordinate of the node
+   *  @param y  the y coordinate of the node
+   */
+  void addNode(int x, int y);
+
+  /**
+   *  Adds a directed edge between two nodes that have already been added,
+   *  weighted by the straight-line distance between them.
+   *
+   *  @param tail  the id of the tail ("from" node)
+   *  @param head  the id of the head ("to" node)
+   */
+  void addEdge(int tail, int head);
+
+  /**
+   *  Adds a directed edge between two nodes that have already been added,
+   *  with a weight of its own, as read from a file.
+   *
+   *  @param tail    the id of the tail ("from" node)
+   *  @param head    the id of the head ("to" node)
+   *  @param weight  the weight, which must not be negative
+   */
+  void addEdge(int tail, int head, int weight);
+}
@@ -0,0 +1,23 @@
+/**
+ *  A lower bound on the distance from any node to a query's target, used to
+ *  guide an A* search.  A heuristic must be consistent: for every arc (u,v)
+ *  of weight w, estimate(u) may exceed estimate(v) by at most w, and the
+ *  estimate at the target must be 0.  Consistency is what lets AStarSolver
+ *  settle each node once and still return exact distances.
+ */
+public interface Heuristic {
+  /**
+   *  Prepares the heuristic for a query toward the given target.
+   *
+   *  @param target  the id of the target node
+   */
+  void setTarget(int target);
+
+  /**
+   *  Returns a lower bound on the distance from a node to the current target.
+   *
+   *  @param node  the node id
+   *  @return      the estimate, never negative
+   */
+  int estimate(int node);
+}
@@ -0,0 +1,294 @@
+import java.util.Arrays;
+
+/**
+ *  An indexed d-ary min-heap over the dense integer ids 0..capacity-1, keyed
+ *  by primitive long priorities.  Each id can be present at most once, and
+ *  the position of every id in the heap is tracked so that its priority can
+ *  be lowered in place (decrease-key) instead of inserting a duplicate entry.
+ *  No objects are allocated once the heap has been constructed.
+ */
+public class IndexedMinHeap implements IntPriorityQueue {
+  /** The default number of children per heap node. */
+  public static final int DEFAULT_ARITY = 4;
+
+  /** Number of children per heap node. */
+  private final int arity;
+
+  /** The ids in heap order; only the first size entries are meaningful. */
+  private final int[] heap;
+
+  /** Position of each id in heap, or -1 if the id is not in the heap. */
+  private final int[] position;
+
+  /** Current priority of each id that is in the heap. */
+  private final long[] keys;
+
+  /** Number of ids currently in the heap. */
+  private int size;
+
+  /**
+   *  Constructor.  Creates an empty 4-ary heap.
+   *
+   *  @param capacity  one more than the largest id that will be inserted
+   */
+  public IndexedMinHeap(int capacity) {
+    this(capacity, DEFAULT_ARITY);
+  }
+
+  /**
+   *  Constructor.  Creates an empty heap with the given arity.
+   *
+   *  @param capacity  one more than the largest id that will be inserted
+   *  @param arity     the number of children per heap node, at least 2
+   */
+  public IndexedMinHeap(int capacity, int arity) {
+    if (arity < 2) {
+      throw new IllegalArgumentException("Heap arity must be at least 2.");
+    }
+    this.arity = arity;
+    this.heap = new int[capacity];
+    this.position = new int[capacity];
+    this.keys = new long[capacity];
+    Arrays.fill(position, -1);
+  }
+
+  /**
+   *  Is the heap empty?
+   *
+   *  @return true if there are no ids in the heap
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   *  Returns the number of ids in the heap.
+   *
+   *  @return the number of ids in the heap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   *  Returns the number of distinct ids this heap can hold.
+   *
+   *  @return the capacity of the heap
+   */
+  public int capacity() {
+    return heap.length;
+  }
+
+  /**
+   *  Is the given id currently in the heap?
+   *
+   *  @param id  the id to look for
+   *  @return    true if id is in the heap
+   */
+  public boolean contains(int id) {
+    return position[id] >= 0;
+  }
+
+  /**
+   *  Returns the priority of an id that is in the heap.
+   *
+   *  @param id  the id whose priority is wanted
+   *  @return    the current priority of id
+   */
+  public long key(int id) {
+    return keys[id];
+  }
+
+  /**
+   *  Adds an id that is not yet in the heap.
+   *
+   *  @param id   the id to add
+   *  @param key  its priority
+   *  @throws IllegalStateException if the id is already in the heap
+   */
+  public void insert(int id, long key) {
+    if (position[id] >= 0) {
+      throw new IllegalStateException("Id " + id + " is already in the heap.");
+    }
+    keys[id] = key;
+    heap[size] = id;
+    position[id] = size;
+    size += 1;
+    siftUp(size - 1);
+  }
+
+  /**
+   *  Lowers the priority of an id that is in the heap.
+   *
+   *  @param id   the id whose priority is to be lowered
+   *  @param key  the new priority, no greater than the current one
+   *  @throws IllegalStateException if the id is not in the heap
+   */
+  public void decreaseKey(int id, long key) {
+    int index = position[id];
+    if (index < 0) {
+      throw new IllegalStateException("Id " + id + " is not in the heap.");
+    }
+    if (key > keys[id]) {
+      throw new IllegalArgumentException("New key is greater than the current key.");
+    }
+    keys[id] = key;
+    siftUp(index);
+  }
+
+  /**
+   *  Sets the priority of an id that is in the heap, raising or lowering it.
+   *
+   *  @param id   the id whose priority is to be changed
+   *  @param key  the new priority
+   *  @throws IllegalStateException if the id is not in the heap
+   */
+  public void changeKey(int id, long key) {
+    int index = position[id];
+    if (index < 0) {
+      throw new IllegalStateException("Id " + id + " is not in the heap.");
+    }
+    long oldKey = keys[id];
+    keys[id] = key;
+    if (key < oldKey) {
+      siftUp(index);
+    }
+    else {
+      siftDown(index);
+    }
+  }
+
+  /**
+   *  Inserts the id if it is absent, or lowers its priority if it is
+   *  present with a larger one.  This is the relaxation step of
+   *  Dijkstra-style searches.
+   *
+   *  @param id   the id to insert or update
+   *  @param key  the candidate priority
+   *  @return     true if the heap changed
+   */
+  public boolean insertOrDecrease(int id, long key) {
+    int index = position[id];
+    if (index < 0) {
+      insert(id, key);
+      return true;
+    }
+    if (key < keys[id]) {
+      keys[id] = key;
+      siftUp(index);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   *  Returns the id with the smallest priority without removing it.
+   *
+   *  @return the id at the top of the heap
+   *  @throws IllegalStateException if the heap is empty
+   */
+  public int peekMin() {
+    if (size == 0) {
+      throw new IllegalStateException("The heap is empty.");
+    }
+    return heap[0];
+  }
+
+  /**
+   *  Returns the smallest priority in the heap.
+   *
+   *  @return the priority of the id at the top of the heap
+   *  @throws IllegalStateException if the heap is empty
+   */
+  public long minKey() {
+    return keys[peekMin()];
+  }
+
+  /**
+   *  Removes and returns the id with the smallest priority.  Its priority
+   *  remains available through key() until the id is inserted again.
+   *
+   *  @return the id that was at the top of the heap
+   *  @throws IllegalStateException if the heap is empty
+   */
+  public int extractMin() {
+    int min = peekMin();
+    size -= 1;
+    position[min] = -1;
+    if (size > 0) {
+      int last = heap[size];
+      heap[0] = last;
+      position[last] = 0;
+      siftDown(0);
+    }
+    return min;
+  }
+
+  /**
+   *  Removes every id from the heap.  Runs in time proportional to the
+   *  number of ids in the heap, not to its capacity.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      position[heap[i]] = -1;
+    }
+    size = 0;
+  }
+
+  /**
+   *  Moves the entry at index up until its parent is no larger.
+   *
+   *  @param index  the heap index of the entry to move
+   */
+  private void siftUp(int index) {
+    int id = heap[index];
+    long key = keys[id];
+    while (index > 0) {
+      int parentIndex = (index - 1) / arity;
+      int parent = heap[parentIndex];
+      if (keys[parent] <= key) {
+        break;
+      }
+      heap[index] = parent;
+      position[parent] = index;
+      index = parentIndex;
+    }
+    heap[index] = id;
+    position[id] = index;
+  }
+
+  /**
+   *  Moves the entry at index down until none of its children is smaller.
+   *
+   *  @param index  the heap index of the entry to move
+   */
+  private void siftDown(int index) {
+    int id = heap[index];
+    long key = keys[id];
+    while (true) {
+      int firstChild = index * arity + 1;
+      if (firstChild >= size) {
+        break;
+      }
+      int lastChild = Math.min(firstChild + arity, size);
+      int minIndex = firstChild;
+      long minKey = keys[heap[firstChild]];
+      for (int child = firstChild + 1; child < lastChild; child++) {
+        long childKey = keys[heap[child]];
+        if (childKey < minKey) {
+          minIndex = child;
+          minKey = childKey;
+        }
+      }
+      if (minKey >= key) {
+        break;
+      }
+      int minId = heap[minIndex];
+      heap[index] = minId;
+      position[minId] = index;
+      index = minIndex;
+    }
+    heap[index] = id;
+    position[id] = index;
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ *  Read-only access to a directed graph whose nodes are the dense ids
+ *  0..numNodes()-1, in compressed sparse row form: the outgoing arcs of node
+ *  v are the arc ids outStart(v) up to (but not including) outEnd(v), and
+ *  the incoming arcs are listed through inStart, inEnd and inArc.  Every
+ *  arc has a tail, a head and a non-negative int weight.
+ *
+ *  The shortest-path engines are written against this interface, so they
+ *  run unchanged on a heap snapshot (CsrGraph) or on one served straight
+ *  from a mapped file (MappedGraph).  Nothing in it boxes: nodes, arcs and
+ *  weights are ints, and forEachOutgoing and forEachIncoming hand each arc
+ *  to an ArcVisitor without creating an iterator or edge object.
+ *
+ *  CsrGraph.of and CsrGraph.euclidean bridge from a Graph to an IntGraph;
+ *  asGraph bridges back, so Processor based code can run on any IntGraph.
+ */
+public interface IntGraph extends WeightProvider {
+  /**
+   *  Receives the arcs of a node, one call per arc.
+   */
+  interface ArcVisitor {
+    /**
+     *  Called for each arc.
+     *
+     *  @param arc        the arc id
+     *  @param neighbour  the node at the other end of the arc
+     *  @param weight     the weight of the arc
+     */
+    void visit(int arc, int neighbour, int weight);
+  }
+
+  /**
+   *  Returns the number of nodes.
+   *
+   *  @return the number of nodes
+   */
+  int numNodes();
+
+  /**
+   *  Returns the number of arcs.
+   *
+   *  @return the number of arcs
+   */
+  int numArcs();
+
+  /**
+   *  Returns the id of the first outgoing arc of a node.
+   *
+   *  @param node  the node id
+   *  @return      the first arc id
+   */
+  int outStart(int node);
+
+  /**
+   *  Returns one past the id of the last outgoing arc of a node.
+   *
+   *  @param node  the node id
+   *  @return      the end of the node's arc slice
+   */
+  int outEnd(int node);
+
+  /**
+   *  Returns the number of arcs leaving a node.
+   *
+   *  @param node  the node id
+   *  @return      the out-degree of the node
+   */
+  default int outDegree(int node) {
+    return outEnd(node) - outStart(node);
+  }
+
+  /**
+   *  Returns the index into the incoming arc list of the first arc entering
+   *  a node.  Use inArc to turn the index into an arc id.
+   *
+   *  @param node  the node id
+   *  @return      the first index
+   */
+  int inStart(int node);
+
+  /**
+   *  Returns one past the index of the last arc entering a node.
+   *
+   *  @param node  the node id
+   *  @return      the end of the node's incoming slice
+   */
+  int inEnd(int node);
+
+  /**
+   *  Returns the arc id stored at an index of the incoming arc list.
+   *
+   *  @param index  an index between inStart(v) and inEnd(v) for some v
+   *  @return       the arc id
+   */
+  int inArc(int index);
+
+  /**
+   *  Hands every arc leaving a node to a visitor, with its head.
+   *
+   *  @param node     the node id
+   *  @param visitor  receives each arc
+   */
+  default void forEachOutgoing(int node, ArcVisitor visitor) {
+    for (int arc = outStart(node), end = outEnd(node); arc < end; arc++) {
+      visitor.visit(arc, head(arc), weight(arc));
+    }
+  }
+
+  /**
+   *  Hands every arc entering a node to a visitor, with its tail.
+   *
+   *  @param node     the node id
+   *  @param visitor  receives each arc
+   */
+  default void forEachIncoming(int node, ArcVisitor visitor) {
+    for (int index = inStart(node), end = inEnd(node); index < end; index++) {
+      int arc = inArc(index);
+      visitor.visit(arc, tail(arc), weight(arc));
+    }
+  }
+
+  /**
+   *  Returns the tail ("from" node) of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the tail node id
+   */
+  int tail(int arc);
+
+  /**
+   *  Returns the head ("to" node) of an arc.
+   *
+   *  @param arc  the arc id
+   *  @return     the head node id
+   */
+  int head(int arc);
+
+  /**
+   *  Does the graph carry node coordinates?
+   *
+   *  @return true if x() and y() may be called
+   */
+  boolean hasCoordinates();
+
+  /**
+   *  Returns the x coordinate of a node.
+   *
+   *  @param node  the node id
+   *  @return      the x coordinate
+   */
+  int x(int node);
+
+  /**
+   *  Returns the y coordinate of a node.
+   *
+   *  @param node  the node id
+   *  @return      the y coordinate
+   */
+  int y(int node);
+
+  /**
+   *  Returns a read-only Graph view of this graph, whose node data are the
+   *  node ids and whose edge data are the arc weights.
+   *
+   *  @return the view
+   */
+  default Graph<Integer,Integer> asGraph() {
+    return new IntGraphView(this);
+  }
+}
@@ -0,0 +1,479 @@
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ *  A read-only Graph view of an IntGraph, so that code written against the
+ *  Graph interface -- Processor based traversals, rendering, printing --
+ *  can run on a snapshot or a mapped file without copying it into node and
+ *  edge objects.  The data of a node is its id and the data of an edge is
+ *  its weight.  Node and edge objects are flyweights holding only an id and
+ *  are created on demand; two of them are equal when they name the same
+ *  node or arc of the same graph.
+ *
+ *  The mutators throw UnsupportedOperationException.
+ */
+public class IntGraphView implements Graph<Integer,Integer> {
+  /** The graph being viewed. */
+  private final IntGraph graph;
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph  the graph to view
+   */
+  public IntGraphView(IntGraph graph) {
+    this.graph = graph;
+  }
+
+  /**
+   *  Returns the graph being viewed.
+   *
+   *  @return the graph
+   */
+  public IntGraph graph() {
+    return graph;
+  }
+
+  /**
+   *  Returns the view of the node with the given id.
+   *
+   *  @param node  the node id
+   *  @return      the node
+   */
+  public Node<Integer,Integer> node(int node) {
+    if (node < 0 || node >= graph.numNodes()) {
+      throw new Error("Node " + node + " is not a node of this graph.");
+    }
+    return new NodeView(node);
+  }
+
+  /**
+   *  Returns the view of the arc with the given id.
+   *
+   *  @param arc  the arc id
+   *  @return     the edge
+   */
+  public Edge<Integer,Integer> edge(int arc) {
+    if (arc < 0 || arc >= graph.numArcs()) {
+      throw new Error("Arc " + arc + " is not an edge of this graph.");
+    }
+    return new EdgeView(arc);
+  }
+
+  /**
+   *  Returns the id of a node of this view.
+   *
+   *  @param node  the node
+   *  @return      its id
+   *  @throws Error  if the node is not a node of this graph
+   */
+  public int id(Node<Integer,Integer> node) {
+    if (!(node instanceof NodeView) || ((NodeView) node).view() != this) {
+      throw new Error("The supplied node is not a node of this graph.");
+    }
+    return ((NodeView) node).id;
+  }
+
+  public Set<Node<Integer,Integer>> getNodes() {
+    Set<Node<Integer,Integer>> nodes = new HashSet<Node<Integer,Integer>>();
+    for (int node = 0; node < graph.numNodes(); node++) {
+      nodes.add(new NodeView(node));
+    }
+    return nodes;
+  }
+
+  public Set<Edge<Integer,Integer>> getEdges() {
+    Set<Edge<Integer,Integer>> edges = new HashSet<Edge<Integer,Integer>>();
+    for (int arc = 0; arc < graph.numArcs(); arc++) {
+      edges.add(new EdgeView(arc));
+    }
+    return edges;
+  }
+
+  /**
+   *  Returns a read-only view of the nodes, creating each node object as it
+   *  is reached.
+   *
+   *  @return a view of the nodes
+   */
+  public Collection<Node<Integer,Integer>> nodes() {
+    return new AbstractList<Node<Integer,Integer>>() {
+      public Node<Integer,Integer> get(int node) {
+        return new NodeView(node);
+      }
+
+      public int size() {
+        return graph.numNodes();
+      }
+    };
+  }
+
+  /**
+   *  Returns a read-only view of the edges, creating each edge object as it
+   *  is reached.
+   *
+   *  @return a view of the edges
+   */
+  public Collection<Edge<Integer,Integer>> edges() {
+    return arcs(0, graph.numArcs());
+  }
+
+  public void forEachNode(Consumer<? super Node<Integer,Integer>> action) {
+    for (int node = 0; node < graph.numNodes(); node++) {
+      action.accept(new NodeView(node));
+    }
+  }
+
+  public void forEachEdge(Consumer<? super Edge<Integer,Integer>> action) {
+    for (int arc = 0; arc < graph.numArcs(); arc++) {
+      action.accept(new EdgeView(arc));
+    }
+  }
+
+  public Edge<Integer,Integer> findEdge(Node<Integer,Integer> tail, Node<Integer,Integer> head) {
+    if (!contains(tail) || !contains(head)) {
+      return null;
+    }
+    int headId = id(head);
+    for (int arc = graph.outStart(id(tail)); arc < graph.outEnd(id(tail)); arc++) {
+      if (graph.head(arc) == headId) {
+        return new EdgeView(arc);
+      }
+    }
+    return null;
+  }
+
+  public int numNodes() {
+    return graph.numNodes();
+  }
+
+  /**
+   *  Returns the view's version, which never changes since the view is
+   *  read-only.
+   *
+   *  @return 0
+   */
+  public long version() {
+    return 0;
+  }
+
+  public int numEdges() {
+    return graph.numArcs();
+  }
+
+  public Node<Integer,Integer> addNode(Integer data) {
+    throw new UnsupportedOperationException("This graph is read-only.");
+  }
+
+  public Edge<Integer,Integer> addEdge(Integer data, Node<Integer,Integer> tail, Node<Integer,Integer> head) {
+    throw new UnsupportedOperationException("This graph is read-only.");
+  }
+
+  public void removeNode(Node<Integer,Integer> node) {
+    throw new UnsupportedOperationException("This graph is read-only.");
+  }
+
+  public void removeEdge(Edge<Integer,Integer> edge) {
+    throw new UnsupportedOperationException("This graph is read-only.");
+  }
+
+  public void removeEdge(Node<Integer,Integer> tail, Node<Integer,Integer> head) {
+    throw new UnsupportedOperationException("This graph is read-only.");
+  }
+
+  public Set<Node<Integer,Integer>> otherNodes(Set<Node<Integer,Integer>> group) {
+    Set<Node<Integer,Integer>> other = new HashSet<Node<Integer,Integer>>();
+    for (int node = 0; node < graph.numNodes(); node++) {
+      Node<Integer,Integer> view = new NodeView(node);
+      if (!group.contains(view)) {
+        other.add(view);
+      }
+    }
+    return other;
+  }
+
+  public Set<Node<Integer,Integer>> endpoints(Set<Edge<Integer,Integer>> edges) {
+    Set<Node<Integer,Integer>> endpoints = new HashSet<Node<Integer,Integer>>();
+    for (Edge<Integer,Integer> edge : edges) {
+      endpoints.add(edge.getTail());
+      endpoints.add(edge.getHead());
+    }
+    return endpoints;
+  }
+
+  /**
+   *  Performs a breadth-first traversal with the contract of
+   *  CsrGraph.breadthFirstTraversal.
+   *
+   *  @param start      the starting node for the traversal
+   *  @param processor  the processing object to be applied to each node/edge
+   *  @return           true if the processor ever returns true, false otherwise
+   *  @throws Error if the starting node is not a node of this graph
+   */
+  public boolean breadthFirstTraversal(Node<Integer,Integer> start, Processor<Integer,Integer> processor) {
+    int startId = id(start);
+    int[] queue = new int[graph.numNodes()];
+    boolean[] visited = new boolean[graph.numNodes()];
+    int first = 0;
+    int last = 0;
+    queue[last++] = startId;
+    visited[startId] = true;
+    while (first < last) {
+      int node = queue[first++];
+      if (processor.preProcessNode(new NodeView(node))) {
+        return true;
+      }
+      for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+        if (processor.processEdge(new EdgeView(arc))) {
+          return true;
+        }
+        int head = graph.head(arc);
+        if (!visited[head]) {
+          visited[head] = true;
+          queue[last++] = head;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   *  Performs a depth-first traversal on an explicit stack, with the
+   *  contract of CsrGraph.depthFirstTraversal.
+   *
+   *  @param start      the starting node for the traversal
+   *  @param processor  the processing class to be applied to each node/edge
+   *  @return           true if the processor ever returns true, false otherwise
+   *  @throws Error if the starting node is not a node of this graph
+   */
+  public boolean depthFirstTraversal(Node<Integer,Integer> start, Processor<Integer,Integer> processor) {
+    int startId = id(start);
+    int[] stack = new int[graph.numNodes()];
+    int[] nextArc = new int[graph.numNodes()];
+    boolean[] visited = new boolean[graph.numNodes()];
+    int depth = 0;
+    stack[depth] = startId;
+    nextArc[depth] = graph.outStart(startId);
+    visited[startId] = true;
+    if (processor.preProcessNode(new NodeView(startId))) {
+      return true;
+    }
+    while (depth >= 0) {
+      int node = stack[depth];
+      if (nextArc[depth] == graph.outEnd(node)) {
+        if (processor.postProcessNode(new NodeView(node))) {
+          return true;
+        }
+        depth -= 1;
+        continue;
+      }
+      int arc = nextArc[depth]++;
+      if (processor.processEdge(new EdgeView(arc))) {
+        return true;
+      }
+      int head = graph.head(arc);
+      if (!visited[head]) {
+        visited[head] = true;
+        if (processor.preProcessNode(new NodeView(head))) {
+          return true;
+        }
+        depth += 1;
+        stack[depth] = head;
+        nextArc[depth] = graph.outStart(head);
+      }
+    }
+    return false;
+  }
+
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("Graph");
+    for (int node = 0; node < graph.numNodes(); node++) {
+      builder.append("\n  Node: ").append(node);
+      for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+        builder.append("\n    To: ").append(graph.head(arc)).append(", ").append(graph.weight(arc));
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   *  Verifies that every arc slice is well formed and every arc joins two
+   *  nodes of the graph.
+   *
+   *  @return  true if consistent, false otherwise
+   */
+  public boolean validateGraph() {
+    int n = graph.numNodes();
+    int m = graph.numArcs();
+    int previous = 0;
+    for (int node = 0; node < n; node++) {
+      if (graph.outStart(node) != previous || graph.outEnd(node) < previous) { return false; }
+      previous = graph.outEnd(node);
+    }
+    if (previous != m) { return false; }
+    for (int arc = 0; arc < m; arc++) {
+      int tail = graph.tail(arc);
+      int head = graph.head(arc);
+      if (tail < 0 || tail >= n || head < 0 || head >= n) { return false; }
+      if (arc < graph.outStart(tail) || arc >= graph.outEnd(tail)) { return false; }
+      if (graph.weight(arc) < 0) { return false; }
+    }
+    return true;
+  }
+
+  /**
+   *  Returns a read-only list of the arcs with ids from start up to end.
+   */
+  private List<Edge<Integer,Integer>> arcs(final int start, final int end) {
+    return new AbstractList<Edge<Integer,Integer>>() {
+      public Edge<Integer,Integer> get(int index) {
+        return new EdgeView(start + index);
+      }
+
+      public int size() {
+        return end - start;
+      }
+    };
+  }
+
+  /**
+   *  Is the given node a node of this view?
+   */
+  private boolean contains(Node<Integer,Integer> node) {
+    return node instanceof NodeView && ((NodeView) node).view() == this;
+  }
+
+  /**
+   *  A flyweight view of a node, holding only its id.
+   */
+  private class NodeView implements Graph.Node<Integer,Integer> {
+    /** The node id. */
+    private final int id;
+
+    /**
+     *  Constructor.
+     *
+     *  @param id  the node id
+     */
+    NodeView(int id) {
+      this.id = id;
+    }
+
+    /**
+     *  Returns the view this node belongs to.
+     */
+    IntGraphView view() {
+      return IntGraphView.this;
+    }
+
+    public Integer getData() {
+      return id;
+    }
+
+    public Set<Edge<Integer,Integer>> getOutgoingEdges() {
+      Set<Edge<Integer,Integer>> edges = new HashSet<Edge<Integer,Integer>>();
+      for (int arc = graph.outStart(id); arc < graph.outEnd(id); arc++) {
+        edges.add(new EdgeView(arc));
+      }
+      return edges;
+    }
+
+    public Set<Edge<Integer,Integer>> getIncomingEdges() {
+      Set<Edge<Integer,Integer>> edges = new HashSet<Edge<Integer,Integer>>();
+      for (int index = graph.inStart(id); index < graph.inEnd(id); index++) {
+        edges.add(new EdgeView(graph.inArc(index)));
+      }
+      return edges;
+    }
+
+    public Collection<Edge<Integer,Integer>> outgoingEdges() {
+      return arcs(graph.outStart(id), graph.outEnd(id));
+    }
+
+    public Collection<Edge<Integer,Integer>> incomingEdges() {
+      final int start = graph.inStart(id);
+      final int end = graph.inEnd(id);
+      return new AbstractList<Edge<Integer,Integer>>() {
+        public Edge<Integer,Integer> get(int index) {
+          return new EdgeView(graph.inArc(start + index));
+        }
+
+        public int size() {
+          return end - start;
+        }
+      };
+    }
+
+    public boolean equals(Node<Integer,Integer> that) {
+      return that instanceof NodeView && ((NodeView) that).view() == view() && ((NodeView) that).id == id;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(Object that) {
+      return that instanceof Node && equals((Node<Integer,Integer>) that);
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(id);
+    }
+  }
+
+  /**
+   *  A flyweight view of an arc, holding only its id.
+   */
+  private class EdgeView implements Graph.Edge<Integer,Integer> {
+    /** The arc id. */
+    private final int arc;
+
+    /**
+     *  Constructor.
+     *
+     *  @param arc  the arc id
+     */
+    EdgeView(int arc) {
+      this.arc = arc;
+    }
+
+    /**
+     *  Returns the view this edge belongs to.
+     */
+    IntGraphView view() {
+      return IntGraphView.this;
+    }
+
+    public Integer getData() {
+      return graph.weight(arc);
+    }
+
+    public Node<Integer,Integer> getTail() {
+      return new NodeView(graph.tail(arc));
+    }
+
+    public Node<Integer,Integer> getHead() {
+      return new NodeView(graph.head(arc));
+    }
+
+    public boolean equals(Edge<Integer,Integer> that) {
+      return that instanceof EdgeView && ((EdgeView) that).view() == view() && ((EdgeView) that).arc == arc;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(Object that) {
+      return that instanceof Edge && equals((Edge<Integer,Integer>) that);
+    }
+
+    @Override
+    public int hashCode() {
+      return arc;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/**
+ *  A priority queue of the dense integer ids 0..capacity-1 keyed by
+ *  non-negative long priorities, with the decrease-key operation that
+ *  Dijkstra-style searches need.  Each id is present at most once.
+ *
+ *  Some implementations are monotone: they only accept keys no smaller than
+ *  the last key extracted, which every Dijkstra search with non-negative
+ *  weights satisfies.  In exchange they avoid key comparisons in the hot
+ *  loop altogether.
+ */
+public interface IntPriorityQueue {
+  /**
+   *  Is the queue empty?
+   *
+   *  @return true if there are no ids in the queue
+   */
+  boolean isEmpty();
+
+  /**
+   *  Returns the number of ids in the queue.
+   *
+   *  @return the number of ids in the queue
+   */
+  int size();
+
+  /**
+   *  Inserts the id if it is absent, or lowers its priority if it is
+   *  present with a larger one.
+   *
+   *  @param id   the id to insert or update
+   *  @param key  the candidate priority
+   *  @return     true if the queue changed
+   */
+  boolean insertOrDecrease(int id, long key);
+
+  /**
+   *  Returns the smallest priority in the queue.
+   *
+   *  @return the priority of the id that extractMin would return
+   *  @throws IllegalStateException if the queue is empty
+   */
+  long minKey();
+
+  /**
+   *  Removes and returns an id with the smallest priority.
+   *
+   *  @return the id removed
+   *  @throws IllegalStateException if the queue is empty
+   */
+  int extractMin();
+
+  /**
+   *  Removes every id from the queue, so that it can be reused for a new
+   *  search starting again from key 0.  Implementations run in time
+   *  proportional to the number of ids in the queue, not to its capacity,
+   *  since ShortestPathSolver clears the queue at the start of every query.
+   */
+  void clear();
+}
@@ -0,0 +1,178 @@
+/**
+ *  Finds every node within a given cost of a source: a one-to-many search
+ *  bounded by a budget rather than by a target.  The nodes are reported one
+ *  at a time, in order of distance, as the search settles them, and the
+ *  search stops expanding as soon as the nearest node left on the frontier
+ *  is further than the budget.  Only the nodes within the budget and the
+ *  frontier around them are ever touched, however large the graph.
+ *
+ *  Use it as a cursor:
+ *
+ *    search.start(source, budget);
+ *    while (search.next()) {
+ *      ... search.node(), search.distance(), search.parentArc() ...
+ *    }
+ *    search.forEachBoundaryArc(visitor);
+ *
+ *  The boundary arcs are the arcs that leave the reached region: their tail
+ *  is within the budget and their head is not.  The budget runs out part of
+ *  the way along each of them, at the fraction
+ *  (budget - distance of tail) / weight, so joining those points outlines
+ *  the isochrone.
+ *
+ *  Like the ShortestPathSolver it is built on, a search allocates its
+ *  working state once and reuses it for every query; it is not
+ *  thread-safe.
+ */
+public class IsochroneSearch {
+  /** The graph being searched. */
+  private final IntGraph graph;
+
+  /** The weights of the graph's arcs. */
+  private final WeightProvider weights;
+
+  /** The underlying search, driven one node at a time. */
+  private final ShortestPathSolver solver;
+
+  /** The nodes reached by the current query, in the order they were settled. */
+  private final int[] reached;
+
+  /** Number of nodes reached by the current query. */
+  private int numReached;
+
+  /** The budget of the current query. */
+  private int budget;
+
+  /** The node the cursor is on, or -1 before the first call to next(). */
+  private int node = -1;
+
+  /** Has the current query reached every node within its budget? */
+  private boolean finished = true;
+
+  /**
+   *  Constructor.  Uses the weights stored in the graph.
+   *
+   *  @param graph  the graph to search
+   */
+  public IsochroneSearch(IntGraph graph) {
+    this(graph, graph);
+  }
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph    the graph to search
+   *  @param weights  the weights of the graph's arcs
+   */
+  public IsochroneSearch(IntGraph graph, WeightProvider weights) {
+    this.graph = graph;
+    this.weights = weights;
+    this.solver = new ShortestPathSolver(graph, weights);
+    this.reached = new int[graph.numNodes()];
+  }
+
+  /**
+   *  Begins a new query.  Any query in progress is abandoned.
+   *
+   *  @param source  the id of the source node
+   *  @param budget  the greatest distance to report
+   *  @throws Error  if source is not a node of the graph
+   */
+  public void start(int source, int budget) {
+    solver.start(source);
+    this.budget = budget;
+    numReached = 0;
+    node = -1;
+    finished = false;
+  }
+
+  /**
+   *  Moves the cursor to the next nearest node within the budget, settling
+   *  it and relaxing the arcs that leave it.
+   *
+   *  @return true if there was such a node, false once the query is done
+   */
+  public boolean next() {
+    if (finished) {
+      return false;
+    }
+    if (!solver.hasNext() || solver.peekDistance() > budget) {
+      finished = true;
+      return false;
+    }
+    node = solver.settleNext();
+    reached[numReached++] = node;
+    return true;
+  }
+
+  /**
+   *  Returns the node the cursor is on.
+   *
+   *  @return the node id
+   */
+  public int node() {
+    return node;
+  }
+
+  /**
+   *  Returns the distance of the node the cursor is on.
+   *
+   *  @return its distance from the source
+   */
+  public int distance() {
+    return solver.distance(node);
+  }
+
+  /**
+   *  Returns the last arc on the shortest path to the node the cursor is on.
+   *
+   *  @return the arc id, or -1 for the source
+   */
+  public int parentArc() {
+    return solver.parentArc(node);
+  }
+
+  /**
+   *  Returns the number of nodes reported so far by the current query.
+   *
+   *  @return the number of reached nodes
+   */
+  public int numReached() {
+    return numReached;
+  }
+
+  /**
+   *  Returns the shortest path to a node reported by the current query.
+   *
+   *  @param target  the id of the target node
+   *  @return        the path, which is not found if target has not been
+   *                 reported
+   */
+  public ShortestPath pathTo(int target) {
+    return solver.pathTo(target);
+  }
+
+  /**
+   *  Hands every arc that leaves the reached region to a visitor: every arc
+   *  whose tail is within the budget and whose head is not.  The boundary is
+   *  only known once every node within the budget has been reached, so any
+   *  nodes the cursor has not yet reported are reached first, and the
+   *  cursor ends up past the last node.
+   *
+   *  @param visitor  receives each boundary arc, its head and its weight
+   */
+  public void forEachBoundaryArc(IntGraph.ArcVisitor visitor) {
+    while (next()) {
+      // Reach the rest of the region
+    }
+    for (int i = 0; i < numReached; i++) {
+      int tail = reached[i];
+      for (int arc = graph.outStart(tail), end = graph.outEnd(tail); arc < end; arc++) {
+        int head = graph.head(arc);
+        if (!solver.isSettled(head)) {
+          visitor.visit(arc, head, weights.weight(arc));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,447 @@
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  Finds the k shortest loopless paths between two nodes of an IntGraph by
+ *  Yen's algorithm, for routing that needs alternatives to the single best
+ *  route.  The paths come back in order of cost from an iterator that finds
+ *  each one only when it is asked for, so taking the first k costs k - 1
+ *  rounds of spur searches and no more.
+ *
+ *  A round deviates from the last path found at each of its nodes in turn:
+ *  the spur search from that node may not use the nodes before it on the
+ *  path, nor the next arc of any path already found that shares the same
+ *  root.  Those nodes and arcs are masked for the one search rather than
+ *  removed from a copy of the graph: the search runs on a ShortestPathSolver
+ *  whose weights report a masked arc, or an arc into a masked node, as
+ *  INFINITY, which the solver never relaxes.  The masks are stamped with a
+ *  generation number, like the solver's own state, so setting up a search
+ *  costs only the marking of the root.
+ *
+ *  The spur searches of one round are independent.  Given a ForkJoinPool
+ *  they are spread over its workers, each with its own solver and masks,
+ *  as DistanceMatrix does with its rows; the weights must then be safe to
+ *  read concurrently.
+ *
+ *  Paths of a Graph are found on its snapshot, from CsrGraph.of or
+ *  CsrGraph.euclidean, and ShortestPath.nodes and ShortestPath.edges turn
+ *  them back into the graph's own nodes and edges.
+ */
+public class KShortestPaths {
+  /** Orders candidate paths by cost, then by number of arcs. */
+  private static final Comparator<ShortestPath> BY_COST = new Comparator<ShortestPath>() {
+    public int compare(ShortestPath a, ShortestPath b) {
+      if (a.cost() != b.cost()) {
+        return Integer.compare(a.cost(), b.cost());
+      }
+      return Integer.compare(a.numArcs(), b.numArcs());
+    }
+  };
+
+  /** The graph being searched. */
+  private final IntGraph graph;
+
+  /** The weights of the graph's arcs. */
+  private final WeightProvider weights;
+
+  /** A spur searcher for each thread, created on first use. */
+  private final ThreadLocal<SpurSearch> searches = new ThreadLocal<SpurSearch>();
+
+  /**
+   *  Constructor.  Uses the weights stored in the graph.
+   *
+   *  @param graph  the graph to search
+   */
+  public KShortestPaths(IntGraph graph) {
+    this(graph, graph);
+  }
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph    the graph to search
+   *  @param weights  the weights of the graph's arcs
+   */
+  public KShortestPaths(IntGraph graph, WeightProvider weights) {
+    this.graph = graph;
+    this.weights = weights;
+  }
+
+  /**
+   *  Returns the loopless paths between two nodes, shortest first, running
+   *  the spur searches on the calling thread.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @return        an iterator over the paths, which finds each on demand
+   *  @throws Error  if source or target is not a node of the graph
+   */
+  public Iterator<ShortestPath> paths(int source, int target) {
+    return paths(source, target, null);
+  }
+
+  /**
+   *  Returns the loopless paths between two nodes, shortest first.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @param pool    the pool to run each round's spur searches on, or null
+   *                 to run them on the thread calling next()
+   *  @return        an iterator over the paths, which finds each on demand
+   *  @throws Error  if source or target is not a node of the graph
+   */
+  public Iterator<ShortestPath> paths(int source, int target, ForkJoinPool pool) {
+    if (source < 0 || source >= graph.numNodes()) {
+      throw new Error("The supplied source is not a node of this graph.");
+    }
+    if (target < 0 || target >= graph.numNodes()) {
+      throw new Error("The supplied target is not a node of this graph.");
+    }
+    return new Paths(source, target, pool);
+  }
+
+  /**
+   *  Returns up to k shortest loopless paths between two nodes.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @param k       the most paths to return
+   *  @return        the paths, shortest first
+   */
+  public List<ShortestPath> shortest(int source, int target, int k) {
+    List<ShortestPath> result = new ArrayList<ShortestPath>(k);
+    Iterator<ShortestPath> paths = paths(source, target);
+    while (result.size() < k && paths.hasNext()) {
+      result.add(paths.next());
+    }
+    return result;
+  }
+
+  /**
+   *  Returns the loopless paths between two nodes of a snapshot, shortest
+   *  first, using the weights stored in the snapshot.
+   *
+   *  @param snapshot  the snapshot of the graph
+   *  @param source    the source node
+   *  @param target    the target node
+   *  @return          an iterator over the paths, in ids of the snapshot
+   *  @throws Error    if source or target is not a node of the snapshot
+   */
+  public static <N,E> Iterator<ShortestPath> between(CsrGraph<N,E> snapshot, Graph.Node<N,E> source,
+                                                     Graph.Node<N,E> target) {
+    return new KShortestPaths(snapshot).paths(snapshot.id(source), snapshot.id(target));
+  }
+
+  /**
+   *  Returns this thread's spur searcher, creating it if need be.
+   *
+   *  @return the searcher
+   */
+  private SpurSearch search() {
+    SpurSearch search = searches.get();
+    if (search == null) {
+      search = new SpurSearch();
+      searches.set(search);
+    }
+    return search;
+  }
+
+  /**
+   *  The paths between two nodes, found one round of Yen's algorithm at a
+   *  time.
+   */
+  private class Paths implements Iterator<ShortestPath> {
+    /** The source node id. */
+    private final int source;
+
+    /** The target node id. */
+    private final int target;
+
+    /** The pool for the spur searches, or null. */
+    private final ForkJoinPool pool;
+
+    /** The paths returned so far, shortest first. */
+    private final List<ShortestPath> found = new ArrayList<ShortestPath>();
+
+    /** Candidates for the next path. */
+    private final PriorityQueue<ShortestPath> candidates = new PriorityQueue<ShortestPath>(11, BY_COST);
+
+    /** Arc sequences of every path found or made a candidate. */
+    private final Set<ArcSequence> seen = new HashSet<ArcSequence>();
+
+    /** The next path to return, or null if it has not been found yet. */
+    private ShortestPath next;
+
+    /** Are there no more paths? */
+    private boolean exhausted;
+
+    /**
+     *  Constructor.
+     */
+    Paths(int source, int target, ForkJoinPool pool) {
+      this.source = source;
+      this.target = target;
+      this.pool = pool;
+    }
+
+    /**
+     *  Is there another path?  Finds it if it has not been found yet.
+     *
+     *  @return true if next() will return a path
+     */
+    public boolean hasNext() {
+      if (next == null && !exhausted) {
+        next = findNext();
+        exhausted = next == null;
+      }
+      return next != null;
+    }
+
+    /**
+     *  Returns the next shortest path.
+     *
+     *  @return the path
+     *  @throws NoSuchElementException  if there are no more paths
+     */
+    public ShortestPath next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ShortestPath path = next;
+      next = null;
+      found.add(path);
+      return path;
+    }
+
+    /**
+     *  Finds the next path: the shortest path itself at first, and after
+     *  that the cheapest candidate once the spurs of the last path found
+     *  have been added.
+     *
+     *  @return the path, or null if there are no more
+     */
+    private ShortestPath findNext() {
+      if (found.isEmpty()) {
+        ShortestPath first = search().find(source, target, this, 0);
+        if (first == null) {
+          return null;
+        }
+        seen.add(new ArcSequence(first));
+        return first;
+      }
+      ShortestPath last = found.get(found.size() - 1);
+      ShortestPath[] spurs = new ShortestPath[last.numArcs()];
+      if (pool == null || spurs.length < 2) {
+        for (int i = 0; i < spurs.length; i++) {
+          spurs[i] = search().find(source, target, this, i);
+        }
+      }
+      else {
+        pool.invoke(new Spurs(this, spurs, 0, spurs.length));
+      }
+      for (ShortestPath spur : spurs) {
+        if (spur != null && seen.add(new ArcSequence(spur))) {
+          candidates.add(spur);
+        }
+      }
+      return candidates.poll();
+    }
+  }
+
+  /**
+   *  A solver whose weights can mask nodes and arcs, owned by one thread.
+   */
+  private class SpurSearch implements WeightProvider {
+    /** The solver, searching with this searcher's masked weights. */
+    private final ShortestPathSolver solver;
+
+    /** Generation in which each arc was last masked. */
+    private final int[] maskedArc;
+
+    /** Generation in which each node was last masked. */
+    private final int[] maskedNode;
+
+    /** The current generation; masks stamped with another value are lifted. */
+    private int generation;
+
+    /**
+     *  Constructor.
+     */
+    SpurSearch() {
+      this.solver = new ShortestPathSolver(graph, this);
+      this.maskedArc = new int[graph.numArcs()];
+      this.maskedNode = new int[graph.numNodes()];
+    }
+
+    /**
+     *  Returns the weight of an arc, or INFINITY if it or its head is
+     *  masked.
+     *
+     *  @param arc  the arc id
+     *  @return     its weight
+     */
+    public int weight(int arc) {
+      if (maskedArc[arc] == generation || maskedNode[graph.head(arc)] == generation) {
+        return ShortestPath.INFINITY;
+      }
+      return weights.weight(arc);
+    }
+
+    /**
+     *  Finds the path that follows the last path found up to one of its
+     *  nodes and then takes the shortest way to the target that avoids the
+     *  rest of that root and the deviations already found.  Before any path
+     *  has been found, finds the shortest path itself.
+     *
+     *  @param source  the source node id
+     *  @param target  the target node id
+     *  @param paths   the paths found so far
+     *  @param spur    the index along the last path of the node to deviate at
+     *  @return        the path, or null if there is none
+     */
+    ShortestPath find(int source, int target, Paths paths, int spur) {
+      generation += 1;
+      if (generation == 0) {
+        // The stamps have wrapped around; old ones could now look current
+        Arrays.fill(maskedArc, 0);
+        Arrays.fill(maskedNode, 0);
+        generation = 1;
+      }
+      if (paths.found.isEmpty()) {
+        ShortestPath path = solver.shortestPath(source, target);
+        return path.isFound() ? path : null;
+      }
+      ShortestPath last = paths.found.get(paths.found.size() - 1);
+      long rootCost = 0;
+      for (int i = 0; i < spur; i++) {
+        maskedNode[last.node(i)] = generation;
+        rootCost += weights.weight(last.arc(i));
+      }
+      for (ShortestPath path : paths.found) {
+        if (path.numArcs() > spur && sharesRoot(path, last, spur)) {
+          maskedArc[path.arc(spur)] = generation;
+        }
+      }
+      ShortestPath tail = solver.shortestPath(last.node(spur), target);
+      if (!tail.isFound() || rootCost + tail.cost() >= ShortestPath.INFINITY) {
+        return null;
+      }
+      int length = spur + tail.numArcs();
+      int[] nodes = new int[length + 1];
+      int[] arcs = new int[length];
+      for (int i = 0; i < spur; i++) {
+        nodes[i] = last.node(i);
+        arcs[i] = last.arc(i);
+      }
+      for (int i = 0; i < tail.numArcs(); i++) {
+        nodes[spur + i] = tail.node(i);
+        arcs[spur + i] = tail.arc(i);
+      }
+      nodes[length] = target;
+      return new ShortestPath(source, target, (int) (rootCost + tail.cost()), nodes, arcs);
+    }
+
+    /**
+     *  Do two paths begin with the same arcs?
+     *
+     *  @param a       a path
+     *  @param b       another path
+     *  @param length  the number of arcs to compare
+     *  @return        true if their first length arcs are the same
+     */
+    private boolean sharesRoot(ShortestPath a, ShortestPath b, int length) {
+      for (int i = 0; i < length; i++) {
+        if (a.arc(i) != b.arc(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   *  A range of spur searches, split in half until a single one is left.
+   */
+  private class Spurs extends RecursiveAction {
+    /** Version for serialization. */
+    private static final long serialVersionUID = 1L;
+
+    /** The paths being extended. */
+    private final Paths paths;
+
+    /** Where each spur search puts its path. */
+    private final ShortestPath[] results;
+
+    /** First spur index of the range. */
+    private final int from;
+
+    /** One past the last spur index of the range. */
+    private final int to;
+
+    /**
+     *  Constructor.
+     */
+    Spurs(Paths paths, ShortestPath[] results, int from, int to) {
+      this.paths = paths;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    /**
+     *  Runs the spur searches, forking the upper half when there is more
+     *  than one.
+     */
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        results[from] = search().find(paths.source, paths.target, paths, from);
+      }
+      else if (to > from) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new Spurs(paths, results, from, middle), new Spurs(paths, results, middle, to));
+      }
+    }
+  }
+
+  /**
+   *  The arcs of a path, compared by value, to recognise a path found twice.
+   */
+  private static final class ArcSequence {
+    /** The arc ids. */
+    private final int[] arcs;
+
+    /** Their hash code. */
+    private final int hash;
+
+    /**
+     *  Constructor.
+     */
+    ArcSequence(ShortestPath path) {
+      arcs = new int[path.numArcs()];
+      for (int i = 0; i < arcs.length; i++) {
+        arcs[i] = path.arc(i);
+      }
+      hash = Arrays.hashCode(arcs);
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      return that instanceof ArcSequence && Arrays.equals(arcs, ((ArcSequence) that).arcs);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
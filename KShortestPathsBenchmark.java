@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  Checks KShortestPaths against brute force and times it.
+ *
+ *  First, on many small random graphs, every simple path from node 0 to the
+ *  last node is enumerated by depth-first search.  The iterator must return
+ *  exactly those paths, each once, in order of cost.  This is run both on
+ *  the calling thread and on the common ForkJoinPool.  The program stops
+ *  at the first difference.
+ *
+ *  Then, on a road-like graph, it times finding the first k paths from
+ *  node 0 to the node furthest from it, with and without the pool.
+ *
+ *  Usage: java KShortestPathsBenchmark [trials] [nodes] [k] [seed]
+ */
+public class KShortestPathsBenchmark {
+  /** Nodes in each small random graph. */
+  private static final int SMALL_NODES = 9;
+
+  /** Arcs in each small random graph, before dropping loops. */
+  private static final int SMALL_ARCS = 22;
+
+  /** Largest weight in the small random graphs. */
+  private static final int SMALL_MAX_WEIGHT = 9;
+
+  /**
+   *  Runs the check and the timing.
+   *
+   *  @param args  optional number of small graphs, size of the timed graph,
+   *               number of paths to time and random seed
+   */
+  public static void main(String[] args) {
+    int numTrials = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    int numNodes = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+    int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+    Random random = new Random(seed);
+    long numPaths = 0;
+    for (int trial = 0; trial < numTrials; trial++) {
+      CsrBuilder builder = new CsrBuilder();
+      for (int v = 0; v < SMALL_NODES; v++) {
+        builder.addNode(0, 0);
+      }
+      for (int i = 0; i < SMALL_ARCS; i++) {
+        int tail = random.nextInt(SMALL_NODES);
+        int head = random.nextInt(SMALL_NODES);
+        if (tail != head) {
+          builder.addArc(tail, head, 1 + random.nextInt(SMALL_MAX_WEIGHT));
+        }
+      }
+      CsrGraph<Object,Object> graph = builder.build();
+      Set<List<Integer>> expected = new HashSet<List<Integer>>();
+      enumerate(graph, 0, SMALL_NODES - 1, new boolean[SMALL_NODES], new ArrayList<Integer>(), expected);
+      check(graph, expected, null, trial);
+      check(graph, expected, ForkJoinPool.commonPool(), trial);
+      numPaths += expected.size();
+    }
+    System.out.printf("%d small graphs, %d paths, all agree%n", numTrials, numPaths);
+
+    CsrBuilder builder = new CsrBuilder();
+    GraphGenerators.roadLike(numNodes, seed, builder);
+    CsrGraph<Object,Object> graph = builder.build();
+    int target = furthest(graph, 0);
+    System.out.printf("%d nodes, %d arcs, %d paths from 0 to %d%n", graph.numNodes(), graph.numArcs(), k, target);
+    System.out.println("pool          ms   last cost");
+    for (ForkJoinPool pool : new ForkJoinPool[] { null, ForkJoinPool.commonPool() }) {
+      // Once to warm up, once to time
+      firstPaths(graph, target, k, pool);
+      long start = System.nanoTime();
+      ShortestPath last = firstPaths(graph, target, k, pool);
+      System.out.printf("%-8s %8.1f %11s%n", pool == null ? "none" : "common",
+                        (System.nanoTime() - start) / 1e6, last == null ? "-" : Integer.toString(last.cost()));
+    }
+  }
+
+  /**
+   *  Checks that the iterator returns exactly the expected paths, each
+   *  once, in order of cost, each a loopless chain of arcs from source to
+   *  target whose weights add up to its cost.
+   *
+   *  @param graph     the graph
+   *  @param expected  every simple path, as a list of arc ids
+   *  @param pool      the pool to run spur searches on, or null
+   *  @param trial     the trial number, for messages
+   */
+  private static void check(CsrGraph<Object,Object> graph, Set<List<Integer>> expected,
+                            ForkJoinPool pool, int trial) {
+    Set<List<Integer>> found = new HashSet<List<Integer>>();
+    int lastCost = 0;
+    Iterator<ShortestPath> paths = new KShortestPaths(graph).paths(0, SMALL_NODES - 1, pool);
+    while (paths.hasNext()) {
+      ShortestPath path = paths.next();
+      List<Integer> arcs = new ArrayList<Integer>();
+      Set<Integer> visited = new HashSet<Integer>();
+      visited.add(path.node(0));
+      int cost = 0;
+      for (int i = 0; i < path.numArcs(); i++) {
+        int arc = path.arc(i);
+        if (graph.tail(arc) != path.node(i) || graph.head(arc) != path.node(i + 1)) {
+          fail(trial, "path " + path + " has a step that is not an arc of the graph");
+        }
+        if (!visited.add(path.node(i + 1))) {
+          fail(trial, "path " + path + " has a loop");
+        }
+        cost += graph.weight(arc);
+        arcs.add(arc);
+      }
+      if (cost != path.cost() || path.cost() < lastCost) {
+        fail(trial, "path " + path + " has the wrong cost or is out of order");
+      }
+      if (!expected.contains(arcs) || !found.add(arcs)) {
+        fail(trial, "path " + path + " is not a simple path or was returned twice");
+      }
+      lastCost = path.cost();
+    }
+    if (found.size() != expected.size()) {
+      fail(trial, "found " + found.size() + " paths of " + expected.size());
+    }
+  }
+
+  /**
+   *  Adds every simple path from a node to the target, as a list of arc
+   *  ids following the arcs taken so far, to a set.
+   *
+   *  @param graph    the graph
+   *  @param node     the node reached
+   *  @param target   the target
+   *  @param onPath   which nodes are on the path so far
+   *  @param arcs     the arcs of the path so far
+   *  @param paths    receives the paths
+   */
+  private static void enumerate(IntGraph graph, int node, int target, boolean[] onPath,
+                                List<Integer> arcs, Set<List<Integer>> paths) {
+    if (node == target) {
+      paths.add(new ArrayList<Integer>(arcs));
+      return;
+    }
+    onPath[node] = true;
+    for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+      int head = graph.head(arc);
+      if (!onPath[head]) {
+        arcs.add(arc);
+        enumerate(graph, head, target, onPath, arcs, paths);
+        arcs.remove(arcs.size() - 1);
+      }
+    }
+    onPath[node] = false;
+  }
+
+  /**
+   *  Returns the reachable node furthest from a source.
+   *
+   *  @param graph   the graph
+   *  @param source  the source
+   *  @return        the node with the greatest finite distance
+   */
+  private static int furthest(IntGraph graph, int source) {
+    ShortestPathSolver solver = new ShortestPathSolver(graph);
+    solver.solve(source);
+    int furthest = source;
+    for (int v = 0; v < graph.numNodes(); v++) {
+      int distance = solver.distance(v);
+      if (distance != ShortestPath.INFINITY && distance > solver.distance(furthest)) {
+        furthest = v;
+      }
+    }
+    return furthest;
+  }
+
+  /**
+   *  Finds the first k paths from node 0 to a target.
+   *
+   *  @param graph   the graph
+   *  @param target  the target
+   *  @param k       the number of paths
+   *  @param pool    the pool to run spur searches on, or null
+   *  @return        the last path found, or null if there is none
+   */
+  private static ShortestPath firstPaths(IntGraph graph, int target, int k, ForkJoinPool pool) {
+    Iterator<ShortestPath> paths = new KShortestPaths(graph).paths(0, target, pool);
+    ShortestPath last = null;
+    for (int i = 0; i < k && paths.hasNext(); i++) {
+      last = paths.next();
+    }
+    return last;
+  }
+
+  /**
+   *  Reports a disagreement and stops.
+   *
+   *  @param trial    the trial number
+   *  @param message  what went wrong
+   */
+  private static void fail(int trial, String message) {
+    System.out.println("MISMATCH in small graph " + trial + ": " + message);
+    System.exit(1);
+  }
+}
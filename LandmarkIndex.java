@@ -0,0 +1,318 @@
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ *  Preprocessed landmark distances for ALT search (A*, Landmarks and the
+ *  Triangle inequality).  A handful of landmark nodes are chosen, and the
+ *  distances from every landmark to every node and from every node to every
+ *  landmark are stored.  For a landmark L the triangle inequality gives two
+ *  lower bounds on the distance from v to a target t,
+ *
+ *      d(L,t) - d(L,v)   and   d(v,L) - d(t,L),
+ *
+ *  and the largest of these over all landmarks is a consistent heuristic
+ *  that does not depend on the weights being geometric.  Use the index as
+ *  the Heuristic of an AStarSolver built on the same graph and weights.
+ *
+ *  Landmarks are picked by farthest-point selection, which spreads them to
+ *  the edges of the graph where their bounds are tightest.  The tables are
+ *  stored node-major in two int arrays, so an estimate reads k consecutive
+ *  entries of each, and they can be saved to and loaded from a stream so
+ *  that the preprocessing is not repeated on every start-up.
+ */
+public class LandmarkIndex implements Heuristic {
+  /** Marks the beginning of a saved index. */
+  private static final int MAGIC = 0x414c5431; // "ALT1"
+
+  /** The table entry for a node that cannot be reached. */
+  private static final int INFINITY = Integer.MAX_VALUE;
+
+  /** Number of nodes of the graph the index was built for. */
+  private final int numNodes;
+
+  /** The landmark node ids. */
+  private final int[] landmarks;
+
+  /** Distance from landmark i to node v, at v * k + i. */
+  private final int[] fromLandmark;
+
+  /** Distance from node v to landmark i, at v * k + i. */
+  private final int[] toLandmark;
+
+  /** Distance from each landmark to the current target. */
+  private final int[] targetFrom;
+
+  /** Distance from the current target to each landmark. */
+  private final int[] targetTo;
+
+  /**
+   *  Constructor.  Wraps tables that have already been computed.
+   *
+   *  @param numNodes      the number of nodes of the graph
+   *  @param landmarks     the landmark node ids
+   *  @param fromLandmark  distances from the landmarks, node-major
+   *  @param toLandmark    distances to the landmarks, node-major
+   */
+  private LandmarkIndex(int numNodes, int[] landmarks, int[] fromLandmark, int[] toLandmark) {
+    this.numNodes = numNodes;
+    this.landmarks = landmarks;
+    this.fromLandmark = fromLandmark;
+    this.toLandmark = toLandmark;
+    this.targetFrom = new int[landmarks.length];
+    this.targetTo = new int[landmarks.length];
+  }
+
+  /**
+   *  Chooses landmarks and computes their distance tables, using the weights
+   *  stored in the graph.
+   *
+   *  @param graph         the graph to index
+   *  @param numLandmarks  how many landmarks to choose
+   *  @return              the index
+   */
+  public static LandmarkIndex build(IntGraph graph, int numLandmarks) {
+    return build(graph, graph, numLandmarks);
+  }
+
+  /**
+   *  Chooses landmarks by farthest-point selection and computes their
+   *  distance tables.  The first landmark is the node farthest from node 0;
+   *  each later one is the node whose distance from the nearest landmark
+   *  chosen so far is greatest, preferring nodes no landmark can reach.
+   *
+   *  @param graph         the graph to index
+   *  @param weights       the weights of the graph's arcs
+   *  @param numLandmarks  how many landmarks to choose
+   *  @return              the index
+   */
+  public static LandmarkIndex build(IntGraph graph, WeightProvider weights, int numLandmarks) {
+    int numNodes = graph.numNodes();
+    int k = Math.min(numLandmarks, numNodes);
+    int[] landmarks = new int[k];
+    int[] fromLandmark = new int[numNodes * k];
+    int[] toLandmark = new int[numNodes * k];
+    if (k == 0) {
+      return new LandmarkIndex(numNodes, landmarks, fromLandmark, toLandmark);
+    }
+    int[] distances = new int[numNodes];
+    IndexedMinHeap queue = new IndexedMinHeap(numNodes);
+
+    // Distance from the nearest landmark so far; start from node 0
+    int[] nearest = new int[numNodes];
+    search(graph, weights, 0, true, distances, queue);
+    System.arraycopy(distances, 0, nearest, 0, numNodes);
+    boolean[] chosen = new boolean[numNodes];
+    for (int i = 0; i < k; i++) {
+      int landmark = farthest(nearest, chosen);
+      landmarks[i] = landmark;
+      chosen[landmark] = true;
+      search(graph, weights, landmark, true, distances, queue);
+      for (int v = 0; v < numNodes; v++) {
+        fromLandmark[v * k + i] = distances[v];
+        nearest[v] = i == 0 ? distances[v] : Math.min(nearest[v], distances[v]);
+      }
+      search(graph, weights, landmark, false, distances, queue);
+      for (int v = 0; v < numNodes; v++) {
+        toLandmark[v * k + i] = distances[v];
+      }
+    }
+    return new LandmarkIndex(numNodes, landmarks, fromLandmark, toLandmark);
+  }
+
+  /**
+   *  Returns the number of landmarks.
+   *
+   *  @return the number of landmarks
+   */
+  public int numLandmarks() {
+    return landmarks.length;
+  }
+
+  /**
+   *  Returns the id of a landmark.
+   *
+   *  @param index  which landmark, from 0 to numLandmarks()-1
+   *  @return       its node id
+   */
+  public int landmark(int index) {
+    return landmarks[index];
+  }
+
+  /**
+   *  Prepares the heuristic for a query toward the given target by looking
+   *  up the target's own table entries once.
+   *
+   *  @param target  the id of the target node
+   */
+  public void setTarget(int target) {
+    int k = landmarks.length;
+    for (int i = 0; i < k; i++) {
+      targetFrom[i] = fromLandmark[target * k + i];
+      targetTo[i] = toLandmark[target * k + i];
+    }
+  }
+
+  /**
+   *  Returns the best landmark lower bound on the distance from a node to
+   *  the current target.  If the tables prove the target unreachable from
+   *  the node the estimate is Integer.MAX_VALUE.
+   *
+   *  @param node  the node id
+   *  @return      the estimate
+   */
+  public int estimate(int node) {
+    int k = landmarks.length;
+    int base = node * k;
+    int best = 0;
+    for (int i = 0; i < k; i++) {
+      int fromToNode = fromLandmark[base + i];
+      int fromToTarget = targetFrom[i];
+      if (fromToTarget != INFINITY) {
+        if (fromToNode != INFINITY && fromToTarget - fromToNode > best) {
+          best = fromToTarget - fromToNode;
+        }
+      }
+      else if (fromToNode != INFINITY) {
+        // L reaches node but not the target, so node cannot reach it either
+        return INFINITY;
+      }
+      int nodeToLandmark = toLandmark[base + i];
+      int targetToLandmark = targetTo[i];
+      if (nodeToLandmark != INFINITY) {
+        if (targetToLandmark != INFINITY && nodeToLandmark - targetToLandmark > best) {
+          best = nodeToLandmark - targetToLandmark;
+        }
+      }
+      else if (targetToLandmark != INFINITY) {
+        // The target reaches L but node does not, so node cannot reach the target
+        return INFINITY;
+      }
+    }
+    return best;
+  }
+
+  /**
+   *  Writes the index to a stream.
+   *
+   *  @param out  the stream to write to; it is not closed
+   *  @throws IOException  if the stream cannot be written
+   */
+  public void save(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    data.writeInt(MAGIC);
+    data.writeInt(numNodes);
+    data.writeInt(landmarks.length);
+    writeInts(data, landmarks);
+    writeInts(data, fromLandmark);
+    writeInts(data, toLandmark);
+    data.flush();
+  }
+
+  /**
+   *  Reads an index written by save.
+   *
+   *  @param in     the stream to read from; it is not closed
+   *  @param graph  the graph the index is to be used with
+   *  @return       the index
+   *  @throws IOException  if the stream cannot be read, is not an index, was
+   *                       built for a graph of a different size, or has a
+   *                       landmark count or landmark that does not fit it
+   */
+  public static LandmarkIndex load(InputStream in, IntGraph graph) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not a landmark index.");
+    }
+    int numNodes = data.readInt();
+    if (numNodes != graph.numNodes()) {
+      throw new IOException("The landmark index was built for a graph with " + numNodes + " nodes.");
+    }
+    int k = data.readInt();
+    if (k <= 0 || k > numNodes) {
+      throw new IOException("The landmark index has " + k + " landmarks for " + numNodes + " nodes.");
+    }
+    long tableSize = (long) numNodes * k;
+    if (tableSize > Integer.MAX_VALUE) {
+      throw new IOException("The landmark index is too large: " + tableSize + " distances per direction.");
+    }
+    int[] landmarks = readInts(data, k);
+    for (int landmark : landmarks) {
+      if (landmark < 0 || landmark >= numNodes) {
+        throw new IOException("Landmark " + landmark + " is not a node of the graph.");
+      }
+    }
+    int[] fromLandmark = readInts(data, (int) tableSize);
+    int[] toLandmark = readInts(data, (int) tableSize);
+    return new LandmarkIndex(numNodes, landmarks, fromLandmark, toLandmark);
+  }
+
+  /**
+   *  Writes an int array without its length.
+   */
+  private static void writeInts(DataOutputStream data, int[] values) throws IOException {
+    for (int value : values) {
+      data.writeInt(value);
+    }
+  }
+
+  /**
+   *  Reads an int array of known length.
+   */
+  private static int[] readInts(DataInputStream data, int length) throws IOException {
+    int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = data.readInt();
+    }
+    return values;
+  }
+
+  /**
+   *  Returns the unchosen node with the greatest distance, treating
+   *  unreachable nodes as farthest of all.
+   *
+   *  @param distances  the distance of each node from the chosen landmarks
+   *  @param chosen     which nodes are already landmarks
+   *  @return           the farthest node
+   */
+  private static int farthest(int[] distances, boolean[] chosen) {
+    int best = -1;
+    for (int v = 0; v < distances.length; v++) {
+      if (!chosen[v] && (best < 0 || distances[v] > distances[best])) {
+        best = v;
+      }
+    }
+    return best;
+  }
+
+  /**
+   *  Runs a full Dijkstra search from or to a node.
+   *
+   *  @param graph      the graph
+   *  @param weights    the weights of its arcs
+   *  @param root       the node to search from (forward) or to (backward)
+   *  @param forward    true to follow outgoing arcs, false for incoming arcs
+   *  @param distances  receives the distance of every node
+   *  @param queue      an empty heap sized to the graph
+   */
+  private static void search(IntGraph graph, WeightProvider weights, int root, boolean forward,
+                             int[] distances, IndexedMinHeap queue) {
+    Arrays.fill(distances, INFINITY);
+    distances[root] = 0;
+    queue.insert(root, 0);
+    while (!queue.isEmpty()) {
+      int node = queue.extractMin();
+      long nodeDistance = distances[node];
+      int start = forward ? graph.outStart(node) : graph.inStart(node);
+      int end = forward ? graph.outEnd(node) : graph.inEnd(node);
+      for (int i = start; i < end; i++) {
+        int arc = forward ? i : graph.inArc(i);
+        int next = forward ? graph.head(arc) : graph.tail(arc);
+        long newDistance = nodeDistance + weights.weight(arc);
+        if (newDistance < distances[next]) {
+          distances[next] = (int) newDistance;
+          queue.insertOrDecrease(next, newDistance);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  A graph served straight from a binary snapshot file.  Opening a file
+ *  maps each of its sections into memory and reads nothing else, so it
+ *  takes milliseconds however large the graph is; pages are brought in by
+ *  the operating system as queries touch them, and processes that open the
+ *  same file share them in the page cache.  No node or edge objects are
+ *  ever created, and every IntGraph engine can search the result directly.
+ *
+ *  The file is little-endian and laid out as a fixed header followed by
+ *  sections that each start on an 8-byte boundary:
+ *
+ *    header     magic "CSRG", version, flags, numNodes, numArcs, then the
+ *               file position and length of each section as longs
+ *    offsets    numNodes+1 ints: first outgoing arc of each node
+ *    targets    numArcs ints: head of each arc
+ *    weights    numArcs ints: weight of each arc
+ *    tails      numArcs ints: tail of each arc
+ *    inOffsets  numNodes+1 ints: first incoming index of each node
+ *    inArcs     numArcs ints: arc ids grouped by head
+ *    xs, ys     numNodes ints each, present if the coordinates flag is set
+ *    payload    free-form bytes for the application, possibly empty
+ *
+ *  Each section is mapped on its own, so a single section is limited to
+ *  2 GB but the file as a whole is not.
+ */
+public class MappedGraph implements IntGraph {
+  /** Marks the beginning of a snapshot file. */
+  private static final int MAGIC = 0x43535247; // "CSRG"
+
+  /** The version of the format this class writes. */
+  public static final int VERSION = 1;
+
+  /** Flag set when the file carries node coordinates. */
+  private static final int HAS_COORDINATES = 1;
+
+  /** Number of sections described in the header. */
+  private static final int NUM_SECTIONS = 9;
+
+  /** Size of the header: five ints, padding, and a position and length per section. */
+  private static final int HEADER_SIZE = 24 + NUM_SECTIONS * 16;
+
+  /** Section numbers, in file order. */
+  private static final int OFFSETS = 0, TARGETS = 1, WEIGHTS = 2, TAILS = 3,
+    IN_OFFSETS = 4, IN_ARCS = 5, XS = 6, YS = 7, PAYLOAD = 8;
+
+  /** Number of nodes. */
+  private final int numNodes;
+
+  /** Number of arcs. */
+  private final int numArcs;
+
+  /** The mapped sections. */
+  private final IntBuffer offsets, targets, weights, tails, inOffsets, inArcs, xs, ys;
+
+  /** The mapped payload. */
+  private final ByteBuffer payload;
+
+  /**
+   *  Constructor.  Maps the sections of an open file.
+   *
+   *  @param channel  the file
+   *  @param file     its path, for error messages
+   *  @throws IOException  if the file is not a snapshot this class can read
+   */
+  private MappedGraph(FileChannel channel, Path file) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while (header.hasRemaining()) {
+      if (channel.read(header, header.position()) < 0) {
+        throw new IOException(file + " is too short to be a graph snapshot.");
+      }
+    }
+    header.flip();
+    if (header.getInt() != MAGIC) {
+      throw new IOException(file + " is not a graph snapshot.");
+    }
+    int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException(file + " has snapshot version " + version + "; only " + VERSION + " is supported.");
+    }
+    int flags = header.getInt();
+    numNodes = header.getInt();
+    numArcs = header.getInt();
+    header.getInt();
+    long[] position = new long[NUM_SECTIONS];
+    long[] length = new long[NUM_SECTIONS];
+    for (int s = 0; s < NUM_SECTIONS; s++) {
+      position[s] = header.getLong();
+      length[s] = header.getLong();
+      if (position[s] < HEADER_SIZE || position[s] > channel.size()
+          || length[s] < 0 || length[s] > channel.size() - position[s]) {
+        throw new IOException(file + " is truncated or corrupt.");
+      }
+    }
+    offsets = ints(channel, position[OFFSETS], length[OFFSETS], numNodes + 1, file);
+    targets = ints(channel, position[TARGETS], length[TARGETS], numArcs, file);
+    weights = ints(channel, position[WEIGHTS], length[WEIGHTS], numArcs, file);
+    tails = ints(channel, position[TAILS], length[TAILS], numArcs, file);
+    inOffsets = ints(channel, position[IN_OFFSETS], length[IN_OFFSETS], numNodes + 1, file);
+    inArcs = ints(channel, position[IN_ARCS], length[IN_ARCS], numArcs, file);
+    if ((flags & HAS_COORDINATES) != 0) {
+      xs = ints(channel, position[XS], length[XS], numNodes, file);
+      ys = ints(channel, position[YS], length[YS], numNodes, file);
+    }
+    else {
+      xs = null;
+      ys = null;
+    }
+    payload = channel.map(FileChannel.MapMode.READ_ONLY, position[PAYLOAD], length[PAYLOAD]).asReadOnlyBuffer();
+  }
+
+  /**
+   *  Maps a snapshot file.  The mapping stays valid after the file has been
+   *  closed, so nothing needs to be released.
+   *
+   *  @param file  the file to open
+   *  @return      the graph
+   *  @throws IOException  if the file cannot be read or is not a snapshot
+   */
+  public static MappedGraph open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new MappedGraph(channel, file);
+    }
+  }
+
+  /**
+   *  Writes a graph to a snapshot file, with its own weights and no payload.
+   *
+   *  @param graph  the graph to write
+   *  @param file   the file to create or replace
+   *  @throws IOException  if the file cannot be written
+   */
+  public static void save(IntGraph graph, Path file) throws IOException {
+    save(graph, graph, null, file);
+  }
+
+  /**
+   *  Writes a graph to a snapshot file.
+   *
+   *  @param graph    the graph to write
+   *  @param weights  the weights to store for its arcs
+   *  @param payload  bytes to store in the payload section, or null
+   *  @param file     the file to create or replace
+   *  @throws IOException  if the file cannot be written
+   */
+  public static void save(IntGraph graph, WeightProvider weights, ByteBuffer payload, Path file) throws IOException {
+    int n = graph.numNodes();
+    int m = graph.numArcs();
+    boolean coordinates = graph.hasCoordinates();
+    long[] length = {
+      4L * (n + 1), 4L * m, 4L * m, 4L * m, 4L * (n + 1), 4L * m,
+      coordinates ? 4L * n : 0, coordinates ? 4L * n : 0,
+      payload == null ? 0 : payload.remaining()
+    };
+    long[] position = new long[NUM_SECTIONS];
+    long next = HEADER_SIZE;
+    for (int s = 0; s < NUM_SECTIONS; s++) {
+      position[s] = next;
+      next = (next + length[s] + 7) & ~7L;
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(coordinates ? HAS_COORDINATES : 0);
+      buffer.putInt(n).putInt(m).putInt(0);
+      for (int s = 0; s < NUM_SECTIONS; s++) {
+        buffer.putLong(position[s]).putLong(length[s]);
+      }
+      long written = flush(channel, buffer, 0);
+
+      for (int s = 0; s < NUM_SECTIONS; s++) {
+        // Zero padding up to the start of the section
+        while (written + buffer.position() < position[s]) {
+          if (!buffer.hasRemaining()) {
+            written = flush(channel, buffer, written);
+          }
+          buffer.put((byte) 0);
+        }
+        if (s == PAYLOAD) {
+          if (payload != null) {
+            written = flush(channel, buffer, written);
+            ByteBuffer bytes = payload.duplicate();
+            while (bytes.hasRemaining()) {
+              written += channel.write(bytes, written);
+            }
+          }
+          break;
+        }
+        int count = (int) (length[s] / 4);
+        for (int i = 0; i < count; i++) {
+          if (buffer.remaining() < 4) {
+            written = flush(channel, buffer, written);
+          }
+          buffer.putInt(value(graph, weights, s, i));
+        }
+      }
+      flush(channel, buffer, written);
+    }
+  }
+
+  /**
+   *  Returns the payload section.
+   *
+   *  @return a read-only view of the payload, positioned at its start
+   */
+  public ByteBuffer payload() {
+    return payload.duplicate();
+  }
+
+  public int numNodes() {
+    return numNodes;
+  }
+
+  public int numArcs() {
+    return numArcs;
+  }
+
+  public int outStart(int node) {
+    return offsets.get(node);
+  }
+
+  public int outEnd(int node) {
+    return offsets.get(node + 1);
+  }
+
+  public int inStart(int node) {
+    return inOffsets.get(node);
+  }
+
+  public int inEnd(int node) {
+    return inOffsets.get(node + 1);
+  }
+
+  public int inArc(int index) {
+    return inArcs.get(index);
+  }
+
+  public int tail(int arc) {
+    return tails.get(arc);
+  }
+
+  public int head(int arc) {
+    return targets.get(arc);
+  }
+
+  public int weight(int arc) {
+    return weights.get(arc);
+  }
+
+  public boolean hasCoordinates() {
+    return xs != null;
+  }
+
+  public int x(int node) {
+    return xs.get(node);
+  }
+
+  public int y(int node) {
+    return ys.get(node);
+  }
+
+  /**
+   *  Returns entry i of section s of a graph being saved.
+   */
+  private static int value(IntGraph graph, WeightProvider weights, int s, int i) {
+    switch (s) {
+      case OFFSETS:    return i < graph.numNodes() ? graph.outStart(i) : graph.numArcs();
+      case TARGETS:    return graph.head(i);
+      case WEIGHTS:    return weights.weight(i);
+      case TAILS:      return graph.tail(i);
+      case IN_OFFSETS: return i < graph.numNodes() ? graph.inStart(i) : graph.numArcs();
+      case IN_ARCS:    return graph.inArc(i);
+      case XS:         return graph.x(i);
+      default:         return graph.y(i);
+    }
+  }
+
+  /**
+   *  Writes out a buffer at a file position and empties it.
+   *
+   *  @return the file position after the bytes written
+   */
+  private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+    buffer.clear();
+    return position;
+  }
+
+  /**
+   *  Maps a section of ints.
+   */
+  private static IntBuffer ints(FileChannel channel, long position, long length, int count, Path file)
+      throws IOException {
+    if (length != 4L * count) {
+      throw new IOException(file + " has a section of the wrong size.");
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, length)
+      .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+  }
+}
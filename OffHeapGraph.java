@@ -0,0 +1,1233 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ *  A Graph whose topology, coordinates and weights live outside the Java
+ *  heap.  Every node is a record of five ints and every edge a record of
+ *  seven ints in chunks of direct memory, so a graph of 100M edges costs
+ *  the garbage collector nothing but a few hundred chunk objects, against
+ *  the hundred-odd bytes of node, edge and hash-set entry objects per
+ *  element of GraphImplementation.
+ *
+ *  Edges are kept on doubly-linked outgoing and incoming lists threaded
+ *  through the edge records, so adding and removing an edge costs O(1)
+ *  once it has been found.  Node and edge ids are handed out in order and
+ *  never reused.  The int-id methods (firstOut, nextOut, head, weight, ...)
+ *  walk the lists without allocating; the Graph methods hand out small
+ *  flyweight Node and Edge views that hold nothing but an id, and two views
+ *  are equal when they name the same node or edge of the same graph.
+ *
+ *  Node and edge data are the only things kept on the heap, and the arrays
+ *  holding them are not allocated until some non-null data is added.  The
+ *  weight of an edge is the truncated straight-line distance between its
+ *  endpoints, as in CsrGraph.euclidean, unless it is given to addArc; it is
+ *  recomputed when setLocation moves an endpoint.  A node added with
+ *  PlacedData takes its coordinates from the data once, when it is added.
+ *
+ *  The graph is not thread-safe.  Its memory is released when the graph
+ *  becomes unreachable.
+ *
+ *  @param <N>  the type of the data associated with a node
+ *  @param <E>  the type of the data associated with an edge
+ */
+public class OffHeapGraph<N,E> implements Graph<N,E>, GraphSink {
+  /** Marks the end of an edge list. */
+  public static final int NONE = -1;
+
+  /** Fields of a node record. */
+  private static final int X = 0, Y = 1, FIRST_OUT = 2, FIRST_IN = 3, STATE = 4, NODE_STRIDE = 5;
+
+  /** Fields of an edge record. */
+  private static final int TAIL = 0, HEAD = 1, WEIGHT = 2, NEXT_OUT = 3, PREV_OUT = 4,
+    NEXT_IN = 5, PREV_IN = 6, EDGE_STRIDE = 7;
+
+  /** States of a node or edge. */
+  private static final int DEAD = 0, LIVE = 1;
+
+  /** Node records. */
+  private final Records nodes = new Records(NODE_STRIDE);
+
+  /** Edge records; a removed edge has its tail set to NONE. */
+  private final Records edges = new Records(EDGE_STRIDE);
+
+  /** Data of each node by id, or null while every node's data is null. */
+  private Object[] nodeData;
+
+  /** Data of each edge by id, or null while every edge's data is null. */
+  private Object[] edgeData;
+
+  /** Number of live nodes. */
+  private int numNodes;
+
+  /** Number of live edges. */
+  private int numEdges;
+
+  /** Changes whenever the graph or the coordinates of its nodes change. */
+  private long version;
+
+  /**
+   *  Gets a new set of all of the nodes in the graph.
+   *
+   *  @return a new set of views of the nodes in the graph
+   */
+  public Set<Node<N,E>> getNodes() {
+    Set<Node<N,E>> set = new HashSet<Node<N,E>>();
+    for (int node = 0; node < nodes.size(); node++) {
+      if (isNode(node)) {
+        set.add(new NodeView(node));
+      }
+    }
+    return set;
+  }
+
+  /**
+   *  Gets a new set of all of the edges in the graph.
+   *
+   *  @return a new set of views of the edges in the graph
+   */
+  public Set<Edge<N,E>> getEdges() {
+    Set<Edge<N,E>> set = new HashSet<Edge<N,E>>();
+    for (int edge = 0; edge < edges.size(); edge++) {
+      if (isEdge(edge)) {
+        set.add(new EdgeView(edge));
+      }
+    }
+    return set;
+  }
+
+  /**
+   *  Gets a read-only view of the nodes in the graph, whose iterator walks
+   *  the node records and creates each view as it goes.
+   *
+   *  @return a read-only view of the nodes in the graph
+   */
+  public Collection<Node<N,E>> nodes() {
+    return new AbstractCollection<Node<N,E>>() {
+      public Iterator<Node<N,E>> iterator() {
+        return new IdIterator<Node<N,E>>(nodes.size()) {
+          boolean live(int id) { return isNode(id); }
+          Node<N,E> view(int id) { return new NodeView(id); }
+        };
+      }
+
+      public int size() {
+        return numNodes;
+      }
+    };
+  }
+
+  /**
+   *  Gets a read-only view of the edges in the graph, whose iterator walks
+   *  the edge records and creates each view as it goes.
+   *
+   *  @return a read-only view of the edges in the graph
+   */
+  public Collection<Edge<N,E>> edges() {
+    return new AbstractCollection<Edge<N,E>>() {
+      public Iterator<Edge<N,E>> iterator() {
+        return new IdIterator<Edge<N,E>>(edges.size()) {
+          boolean live(int id) { return isEdge(id); }
+          Edge<N,E> view(int id) { return new EdgeView(id); }
+        };
+      }
+
+      public int size() {
+        return numEdges;
+      }
+    };
+  }
+
+  public void forEachNode(Consumer<? super Node<N,E>> action) {
+    for (int node = 0; node < nodes.size(); node++) {
+      if (isNode(node)) {
+        action.accept(new NodeView(node));
+      }
+    }
+  }
+
+  public void forEachEdge(Consumer<? super Edge<N,E>> action) {
+    for (int edge = 0; edge < edges.size(); edge++) {
+      if (isEdge(edge)) {
+        action.accept(new EdgeView(edge));
+      }
+    }
+  }
+
+  /**
+   *  Finds a particular edge given its tail and head.
+   *
+   *  @param tail  the tail ("from" node) of the edge to be found
+   *  @param head  the head ("to" node) of the edge to be found
+   *  @return      the edge, or null if there is no such edge
+   */
+  public Edge<N,E> findEdge(Node<N,E> tail, Node<N,E> head) {
+    int tailId = idOf(tail);
+    int headId = idOf(head);
+    if (tailId == NONE || headId == NONE) {
+      return null;
+    }
+    int edge = findArc(tailId, headId);
+    return edge == NONE ? null : new EdgeView(edge);
+  }
+
+  public int numNodes() {
+    return numNodes;
+  }
+
+  /**
+   *  Returns the graph's version, which changes whenever a node or edge is
+   *  added or removed or setLocation moves a node.
+   *
+   *  @return the version
+   */
+  public long version() {
+    return version;
+  }
+
+  public int numEdges() {
+    return numEdges;
+  }
+
+  /**
+   *  Adds a node to the graph.  If the data is a PlacedData the node takes
+   *  its coordinates, otherwise the node is placed at (0, 0).
+   *
+   *  @param data  the data to be associated with the node
+   *  @return      the new node
+   */
+  public Node<N,E> addNode(N data) {
+    if (data instanceof PlacedData) {
+      PlacedData<?> placed = (PlacedData<?>) data;
+      return node(addNode(data, placed.getX(), placed.getY()));
+    }
+    return node(addNode(data, 0, 0));
+  }
+
+  /**
+   *  Adds a node at the given coordinates.
+   *
+   *  @param data  the data to be associated with the node, or null
+   *  @param x     the x coordinate
+   *  @param y     the y coordinate
+   *  @return      the id of the new node
+   */
+  public int addNode(N data, int x, int y) {
+    int node = nodes.add();
+    nodes.set(node, X, x);
+    nodes.set(node, Y, y);
+    nodes.set(node, FIRST_OUT, NONE);
+    nodes.set(node, FIRST_IN, NONE);
+    nodes.set(node, STATE, LIVE);
+    if (data != null || nodeData != null) {
+      nodeData = store(nodeData, node, data);
+    }
+    numNodes += 1;
+    version += 1;
+    return node;
+  }
+
+  public void addNode(int x, int y) {
+    addNode(null, x, y);
+  }
+
+  /**
+   *  Adds an edge to the graph, given the tail and head nodes.  If the
+   *  graph already has an edge from tail to head, that edge is returned
+   *  unchanged.
+   *
+   *  @param tail  the tail ("from" node) of the edge to be added
+   *  @param head  the head ("to" node) of the edge to be added
+   *  @return the new edge
+   *  @throws Error  if either the tail or head nodes do not belong to this graph
+   */
+  public Edge<N,E> addEdge(E data, Node<N,E> tail, Node<N,E> head) {
+    int tailId = idOf(tail);
+    int headId = idOf(head);
+    if (tailId == NONE || headId == NONE) {
+      throw new Error("The supplied node is not a node of this graph.");
+    }
+    int edge = findArc(tailId, headId);
+    if (edge == NONE) {
+      edge = link(tailId, headId, euclideanWeight(tailId, headId));
+      if (data != null || edgeData != null) {
+        edgeData = store(edgeData, edge, data);
+      }
+    }
+    return new EdgeView(edge);
+  }
+
+  public void addEdge(int tail, int head) {
+    addArc(tail, head, euclideanWeight(checkNode(tail), checkNode(head)));
+  }
+
+  public void addEdge(int tail, int head, int weight) {
+    addArc(tail, head, weight);
+  }
+
+  /**
+   *  Adds an edge with the given weight and no data.  If the graph already
+   *  has an edge from tail to head, its id is returned unchanged.
+   *
+   *  @param tail    the id of the tail
+   *  @param head    the id of the head
+   *  @param weight  the weight, which must not be negative
+   *  @return        the id of the edge
+   */
+  public int addArc(int tail, int head, int weight) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("Edge weights must not be negative.");
+    }
+    int edge = findArc(checkNode(tail), checkNode(head));
+    return edge == NONE ? link(tail, head, weight) : edge;
+  }
+
+  /**
+   *  Removes a node and all its incident edges from the graph.
+   *
+   *  @param node  the node to be removed
+   *  @throws Error  if the node does not belong to this graph
+   */
+  public void removeNode(Node<N,E> node) {
+    int id = idOf(node);
+    if (id == NONE) {
+      throw new Error("The supplied node is not a node of this graph.");
+    }
+    while (nodes.get(id, FIRST_OUT) != NONE) {
+      unlink(nodes.get(id, FIRST_OUT));
+    }
+    while (nodes.get(id, FIRST_IN) != NONE) {
+      unlink(nodes.get(id, FIRST_IN));
+    }
+    nodes.set(id, STATE, DEAD);
+    if (nodeData != null) {
+      nodeData[id] = null;
+    }
+    numNodes -= 1;
+    version += 1;
+  }
+
+  /**
+   *  Removes an edge from the graph.
+   *
+   *  @param edge  the edge to be removed
+   *  @throws Error  if the edge does not belong to this graph
+   */
+  public void removeEdge(Edge<N,E> edge) {
+    if (!(edge instanceof OffHeapGraph.EdgeView) || ((EdgeView) edge).graph() != this
+        || !isEdge(((EdgeView) edge).id)) {
+      throw new Error("The supplied edge is not an edge of this graph.");
+    }
+    unlink(((EdgeView) edge).id);
+  }
+
+  /**
+   *  Removes an edge from the graph given its tail and head nodes.
+   *
+   *  @param tail  the tail ("from" node) of the edge to be removed
+   *  @param head  the head ("to" node) of the edge to be removed
+   *  @throws Error  if either the tail or head nodes do not belong to this graph
+   */
+  public void removeEdge(Node<N,E> tail, Node<N,E> head) {
+    int tailId = idOf(tail);
+    int headId = idOf(head);
+    if (tailId == NONE || headId == NONE) {
+      throw new Error("The supplied edge is not an edge of this graph.");
+    }
+    int edge = findArc(tailId, headId);
+    if (edge != NONE) {
+      unlink(edge);
+    }
+  }
+
+  /**
+   *  Returns the set of nodes in the graph that are not in group.
+   *
+   *  @param group  a set of nodes
+   *  @return       all of the nodes of the graph not present in group
+   */
+  public Set<Node<N,E>> otherNodes(Set<Node<N,E>> group) {
+    Set<Node<N,E>> other = new HashSet<Node<N,E>>();
+    for (int node = 0; node < nodes.size(); node++) {
+      if (isNode(node)) {
+        Node<N,E> view = new NodeView(node);
+        if (!group.contains(view)) {
+          other.add(view);
+        }
+      }
+    }
+    return other;
+  }
+
+  /**
+   *  Returns the set of nodes that are one end or the other of the given
+   *  set of edges.
+   *
+   *  @param edges  a set of edges
+   *  @return       a set of nodes that those edges are incident to
+   */
+  public Set<Node<N,E>> endpoints(Set<Edge<N,E>> edges) {
+    Set<Node<N,E>> endpoints = new HashSet<Node<N,E>>();
+    for (Edge<N,E> edge : edges) {
+      endpoints.add(edge.getTail());
+      endpoints.add(edge.getHead());
+    }
+    return endpoints;
+  }
+
+  /**
+   *  Performs a breadth-first traversal starting from the given node, with
+   *  the int queue and visited bits of CsrGraph.breadthFirstTraversal.
+   *
+   *  @param start      the starting node for the traversal
+   *  @param processor  the processing object to be applied to each node/edge
+   *  @return           true if the processor ever returns true, false otherwise
+   *  @throws Error if the starting node is not a node of this graph
+   */
+  public boolean breadthFirstTraversal(Node<N,E> start, Processor<N,E> processor) {
+    int startId = idOf(start);
+    if (startId == NONE) {
+      throw new Error("The supplied starting node is not a node of this graph.");
+    }
+    int[] queue = new int[numNodes];
+    BitSet visited = new BitSet(nodes.size());
+    int first = 0;
+    int last = 0;
+    queue[last++] = startId;
+    visited.set(startId);
+    while (first < last) {
+      int node = queue[first++];
+      if (processor.preProcessNode(new NodeView(node))) {
+        return true;
+      }
+      for (int edge = firstOut(node); edge != NONE; edge = nextOut(edge)) {
+        if (processor.processEdge(new EdgeView(edge))) {
+          return true;
+        }
+        int head = head(edge);
+        if (!visited.get(head)) {
+          visited.set(head);
+          queue[last++] = head;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   *  Performs a depth-first traversal starting from the given node, on an
+   *  explicit stack as in CsrGraph.depthFirstTraversal.
+   *
+   *  @param start      the starting node for the traversal
+   *  @param processor  the processing class to be applied to each node/edge
+   *  @return           true if the processor ever returns true, false otherwise
+   *  @throws Error if the starting node is not a node of this graph
+   */
+  public boolean depthFirstTraversal(Node<N,E> start, Processor<N,E> processor) {
+    int startId = idOf(start);
+    if (startId == NONE) {
+      throw new Error("The supplied starting node is not a node of this graph.");
+    }
+    int[] stack = new int[numNodes];
+    int[] nextEdge = new int[numNodes];
+    BitSet visited = new BitSet(nodes.size());
+    int depth = 0;
+    stack[depth] = startId;
+    nextEdge[depth] = firstOut(startId);
+    visited.set(startId);
+    if (processor.preProcessNode(new NodeView(startId))) {
+      return true;
+    }
+    while (depth >= 0) {
+      int edge = nextEdge[depth];
+      if (edge == NONE) {
+        if (processor.postProcessNode(new NodeView(stack[depth]))) {
+          return true;
+        }
+        depth -= 1;
+        continue;
+      }
+      nextEdge[depth] = nextOut(edge);
+      if (processor.processEdge(new EdgeView(edge))) {
+        return true;
+      }
+      int head = head(edge);
+      if (!visited.get(head)) {
+        visited.set(head);
+        if (processor.preProcessNode(new NodeView(head))) {
+          return true;
+        }
+        depth += 1;
+        stack[depth] = head;
+        nextEdge[depth] = firstOut(head);
+      }
+    }
+    return false;
+  }
+
+  /**
+   *  Returns a string representation of the graph.
+   *
+   *  @return  a string representation of the graph
+   */
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("Graph");
+    for (int node = 0; node < nodes.size(); node++) {
+      if (isNode(node)) {
+        builder.append("\n  Node: ").append(nodeData(node));
+        for (int edge = firstOut(node); edge != NONE; edge = nextOut(edge)) {
+          builder.append("\n    To: ").append(nodeData(head(edge))).append(", ").append(edgeData(edge));
+        }
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   *  Verifies the internal consistency of the graph structure: every live
+   *  edge is on the outgoing list of its tail and the incoming list of its
+   *  head, both live, with matching back links, and the lists hold nothing
+   *  else.
+   *
+   *  @return  true if consistent, false otherwise
+   */
+  public boolean validateGraph() {
+    int liveNodes = 0;
+    int numOutgoing = 0;
+    int numIncoming = 0;
+    for (int node = 0; node < nodes.size(); node++) {
+      if (!isNode(node)) {
+        if (nodes.get(node, FIRST_OUT) != NONE || nodes.get(node, FIRST_IN) != NONE) { return false; }
+        continue;
+      }
+      liveNodes += 1;
+      int previous = NONE;
+      for (int edge = firstOut(node); edge != NONE; edge = nextOut(edge)) {
+        if (!isEdge(edge) || tail(edge) != node || !isNode(head(edge))) { return false; }
+        if (edges.get(edge, PREV_OUT) != previous) { return false; }
+        previous = edge;
+        numOutgoing += 1;
+      }
+      previous = NONE;
+      for (int edge = firstIn(node); edge != NONE; edge = nextIn(edge)) {
+        if (!isEdge(edge) || head(edge) != node || !isNode(tail(edge))) { return false; }
+        if (edges.get(edge, PREV_IN) != previous) { return false; }
+        previous = edge;
+        numIncoming += 1;
+      }
+    }
+    return liveNodes == numNodes && numOutgoing == numEdges && numIncoming == numEdges;
+  }
+
+  /**
+   *  Returns a view of the node with the given id.
+   *
+   *  @param node  the node id
+   *  @return      the view
+   *  @throws Error  if there is no such node
+   */
+  public Node<N,E> node(int node) {
+    return new NodeView(checkNode(node));
+  }
+
+  /**
+   *  Returns a view of the edge with the given id.
+   *
+   *  @param edge  the edge id
+   *  @return      the view
+   *  @throws Error  if there is no such edge
+   */
+  public Edge<N,E> edge(int edge) {
+    if (!isEdge(edge)) {
+      throw new Error("Edge " + edge + " is not an edge of this graph.");
+    }
+    return new EdgeView(edge);
+  }
+
+  /**
+   *  Returns the id of a node view of this graph.
+   *
+   *  @param node  the node
+   *  @return      its id
+   *  @throws Error  if the node is not a node of this graph
+   */
+  public int id(Node<N,E> node) {
+    int id = idOf(node);
+    if (id == NONE) {
+      throw new Error("The supplied node is not a node of this graph.");
+    }
+    return id;
+  }
+
+  /**
+   *  Returns one more than the largest node id handed out so far.
+   *
+   *  @return the bound on node ids
+   */
+  public int nodeIdBound() {
+    return nodes.size();
+  }
+
+  /**
+   *  Returns one more than the largest edge id handed out so far.
+   *
+   *  @return the bound on edge ids
+   */
+  public int edgeIdBound() {
+    return edges.size();
+  }
+
+  /**
+   *  Is the given id that of a node that has not been removed?
+   *
+   *  @param node  a node id
+   *  @return      true if it names a live node
+   */
+  public boolean isNode(int node) {
+    return node >= 0 && node < nodes.size() && nodes.get(node, STATE) == LIVE;
+  }
+
+  /**
+   *  Is the given id that of an edge that has not been removed?
+   *
+   *  @param edge  an edge id
+   *  @return      true if it names a live edge
+   */
+  public boolean isEdge(int edge) {
+    return edge >= 0 && edge < edges.size() && edges.get(edge, TAIL) != NONE;
+  }
+
+  /**
+   *  Returns the first edge leaving a node.
+   *
+   *  @param node  the node id
+   *  @return      an edge id, or NONE if the node has no outgoing edges
+   */
+  public int firstOut(int node) {
+    return nodes.get(node, FIRST_OUT);
+  }
+
+  /**
+   *  Returns the edge after the given one on its tail's outgoing list.
+   *
+   *  @param edge  the edge id
+   *  @return      an edge id, or NONE at the end of the list
+   */
+  public int nextOut(int edge) {
+    return edges.get(edge, NEXT_OUT);
+  }
+
+  /**
+   *  Returns the first edge entering a node.
+   *
+   *  @param node  the node id
+   *  @return      an edge id, or NONE if the node has no incoming edges
+   */
+  public int firstIn(int node) {
+    return nodes.get(node, FIRST_IN);
+  }
+
+  /**
+   *  Returns the edge after the given one on its head's incoming list.
+   *
+   *  @param edge  the edge id
+   *  @return      an edge id, or NONE at the end of the list
+   */
+  public int nextIn(int edge) {
+    return edges.get(edge, NEXT_IN);
+  }
+
+  /**
+   *  Returns the tail ("from" node) of an edge.
+   *
+   *  @param edge  the edge id
+   *  @return      the tail node id
+   */
+  public int tail(int edge) {
+    return edges.get(edge, TAIL);
+  }
+
+  /**
+   *  Returns the head ("to" node) of an edge.
+   *
+   *  @param edge  the edge id
+   *  @return      the head node id
+   */
+  public int head(int edge) {
+    return edges.get(edge, HEAD);
+  }
+
+  /**
+   *  Returns the weight of an edge.
+   *
+   *  @param edge  the edge id
+   *  @return      the weight
+   */
+  public int weight(int edge) {
+    return edges.get(edge, WEIGHT);
+  }
+
+  /**
+   *  Returns the x coordinate of a node.
+   *
+   *  @param node  the node id
+   *  @return      the x coordinate
+   */
+  public int x(int node) {
+    return nodes.get(node, X);
+  }
+
+  /**
+   *  Returns the y coordinate of a node.
+   *
+   *  @param node  the node id
+   *  @return      the y coordinate
+   */
+  public int y(int node) {
+    return nodes.get(node, Y);
+  }
+
+  /**
+   *  Moves a node and recomputes the weights of the edges entering and
+   *  leaving it.
+   *
+   *  @param node  the node id
+   *  @param x     the new x coordinate
+   *  @param y     the new y coordinate
+   */
+  public void setLocation(int node, int x, int y) {
+    checkNode(node);
+    nodes.set(node, X, x);
+    nodes.set(node, Y, y);
+    version += 1;
+    for (int edge = firstOut(node); edge != NONE; edge = nextOut(edge)) {
+      edges.set(edge, WEIGHT, euclideanWeight(node, head(edge)));
+    }
+    for (int edge = firstIn(node); edge != NONE; edge = nextIn(edge)) {
+      edges.set(edge, WEIGHT, euclideanWeight(tail(edge), node));
+    }
+  }
+
+  /**
+   *  Returns the number of bytes of direct memory held by the graph.
+   *
+   *  @return the off-heap footprint
+   */
+  public long offHeapBytes() {
+    return nodes.bytes() + edges.bytes();
+  }
+
+  /**
+   *  Builds a CSR snapshot of the graph for the shortest-path engines.  Live
+   *  nodes are numbered densely in id order, so snapshot ids equal graph ids
+   *  as long as no node has been removed.
+   *
+   *  @return the snapshot, with coordinates and weights but no node or edge objects
+   */
+  public <N2,E2> CsrGraph<N2,E2> toCsr() {
+    int[] dense = new int[nodes.size()];
+    CsrBuilder builder = new CsrBuilder(numNodes, numEdges);
+    for (int node = 0; node < nodes.size(); node++) {
+      if (isNode(node)) {
+        dense[node] = builder.numNodes();
+        builder.addNode(x(node), y(node));
+      }
+    }
+    for (int edge = 0; edge < edges.size(); edge++) {
+      if (isEdge(edge)) {
+        builder.addArc(dense[tail(edge)], dense[head(edge)], weight(edge));
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   *  Returns the id of a node if it is a live node of this graph.
+   *
+   *  @return the id, or NONE
+   */
+  private int idOf(Node<N,E> node) {
+    if (node instanceof OffHeapGraph.NodeView && ((NodeView) node).graph() == this
+        && isNode(((NodeView) node).id)) {
+      return ((NodeView) node).id;
+    }
+    return NONE;
+  }
+
+  /**
+   *  Checks that an id names a live node.
+   *
+   *  @return the id
+   */
+  private int checkNode(int node) {
+    if (!isNode(node)) {
+      throw new Error("Node " + node + " is not a node of this graph.");
+    }
+    return node;
+  }
+
+  /**
+   *  Returns the edge from tail to head, or NONE.
+   */
+  private int findArc(int tail, int head) {
+    for (int edge = firstOut(tail); edge != NONE; edge = nextOut(edge)) {
+      if (head(edge) == head) {
+        return edge;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   *  Creates an edge and puts it at the front of its tail's outgoing list
+   *  and its head's incoming list.
+   *
+   *  @return the id of the edge
+   */
+  private int link(int tail, int head, int weight) {
+    int edge = edges.add();
+    int nextOut = nodes.get(tail, FIRST_OUT);
+    int nextIn = nodes.get(head, FIRST_IN);
+    edges.set(edge, TAIL, tail);
+    edges.set(edge, HEAD, head);
+    edges.set(edge, WEIGHT, weight);
+    edges.set(edge, NEXT_OUT, nextOut);
+    edges.set(edge, PREV_OUT, NONE);
+    edges.set(edge, NEXT_IN, nextIn);
+    edges.set(edge, PREV_IN, NONE);
+    if (nextOut != NONE) {
+      edges.set(nextOut, PREV_OUT, edge);
+    }
+    if (nextIn != NONE) {
+      edges.set(nextIn, PREV_IN, edge);
+    }
+    nodes.set(tail, FIRST_OUT, edge);
+    nodes.set(head, FIRST_IN, edge);
+    numEdges += 1;
+    version += 1;
+    return edge;
+  }
+
+  /**
+   *  Takes a live edge off both of its lists and marks it removed.
+   */
+  private void unlink(int edge) {
+    int tail = tail(edge);
+    int head = head(edge);
+    int nextOut = edges.get(edge, NEXT_OUT);
+    int prevOut = edges.get(edge, PREV_OUT);
+    int nextIn = edges.get(edge, NEXT_IN);
+    int prevIn = edges.get(edge, PREV_IN);
+    if (prevOut == NONE) {
+      nodes.set(tail, FIRST_OUT, nextOut);
+    }
+    else {
+      edges.set(prevOut, NEXT_OUT, nextOut);
+    }
+    if (nextOut != NONE) {
+      edges.set(nextOut, PREV_OUT, prevOut);
+    }
+    if (prevIn == NONE) {
+      nodes.set(head, FIRST_IN, nextIn);
+    }
+    else {
+      edges.set(prevIn, NEXT_IN, nextIn);
+    }
+    if (nextIn != NONE) {
+      edges.set(nextIn, PREV_IN, prevIn);
+    }
+    edges.set(edge, TAIL, NONE);
+    if (edgeData != null) {
+      edgeData[edge] = null;
+    }
+    numEdges -= 1;
+    version += 1;
+  }
+
+  /**
+   *  Returns the straight-line distance between two nodes, truncated.
+   */
+  private int euclideanWeight(int from, int to) {
+    long dx = x(to) - x(from);
+    long dy = y(to) - y(from);
+    return (int) Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   *  Returns the data of a node.
+   */
+  @SuppressWarnings("unchecked")
+  private N nodeData(int node) {
+    return nodeData == null || node >= nodeData.length ? null : (N) nodeData[node];
+  }
+
+  /**
+   *  Returns the data of an edge.
+   */
+  @SuppressWarnings("unchecked")
+  private E edgeData(int edge) {
+    return edgeData == null || edge >= edgeData.length ? null : (E) edgeData[edge];
+  }
+
+  /**
+   *  Stores a value at an index of a payload array, creating or growing it.
+   *
+   *  @return the array
+   */
+  private static Object[] store(Object[] array, int index, Object value) {
+    if (array == null) {
+      array = new Object[Math.max(16, index + 1)];
+    }
+    else if (index >= array.length) {
+      array = Arrays.copyOf(array, Math.max(index + 1, array.length * 2));
+    }
+    array[index] = value;
+    return array;
+  }
+
+  /**
+   *  Iterates over the live ids below a bound, handing out a view of each.
+   */
+  private abstract static class IdIterator<T> implements Iterator<T> {
+    /** One more than the largest id to visit. */
+    private final int bound;
+
+    /** The next id to look at. */
+    private int next;
+
+    /**
+     *  Constructor.
+     *
+     *  @param bound  one more than the largest id to visit
+     */
+    IdIterator(int bound) {
+      this.bound = bound;
+    }
+
+    /**
+     *  Is the id that of a live node or edge?
+     */
+    abstract boolean live(int id);
+
+    /**
+     *  Returns the view of an id.
+     */
+    abstract T view(int id);
+
+    public boolean hasNext() {
+      while (next < bound && !live(next)) {
+        next += 1;
+      }
+      return next < bound;
+    }
+
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return view(next++);
+    }
+  }
+
+  /**
+   *  Iterates over an edge list of one node.
+   */
+  private class ListIterator implements Iterator<Edge<N,E>> {
+    /** Is this the outgoing list, rather than the incoming one? */
+    private final boolean outgoing;
+
+    /** The next edge, or NONE. */
+    private int next;
+
+    /**
+     *  Constructor.
+     *
+     *  @param first     the first edge of the list
+     *  @param outgoing  true to follow nextOut links, false for nextIn
+     */
+    ListIterator(int first, boolean outgoing) {
+      this.next = first;
+      this.outgoing = outgoing;
+    }
+
+    public boolean hasNext() {
+      return next != NONE;
+    }
+
+    public Edge<N,E> next() {
+      if (next == NONE) {
+        throw new NoSuchElementException();
+      }
+      Edge<N,E> edge = new EdgeView(next);
+      next = outgoing ? nextOut(next) : nextIn(next);
+      return edge;
+    }
+  }
+
+  /**
+   *  A growable array of fixed-size int records in direct memory.  Records
+   *  are split over chunks of at most CHUNK_SIZE records, so no single
+   *  buffer passes the 2 GB limit and growing never copies more than one
+   *  chunk; the first chunk starts small and doubles until it is full size.
+   */
+  private static final class Records {
+    /** log2 of the number of records in a full chunk. */
+    private static final int CHUNK_BITS = 20;
+
+    /** Number of records in a full chunk. */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /** Size of the first chunk when it is created. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Ints per record. */
+    private final int stride;
+
+    /** The chunks; only the last may be smaller than CHUNK_SIZE records. */
+    private IntBuffer[] chunks = new IntBuffer[4];
+
+    /** Number of chunks in use. */
+    private int numChunks;
+
+    /** Number of records added. */
+    private int size;
+
+    /**
+     *  Constructor.
+     *
+     *  @param stride  ints per record
+     */
+    Records(int stride) {
+      this.stride = stride;
+    }
+
+    /**
+     *  Returns the number of records added.
+     */
+    int size() {
+      return size;
+    }
+
+    /**
+     *  Appends a record, whose fields are left for the caller to set.
+     *
+     *  @return the index of the record
+     */
+    int add() {
+      int chunk = size >>> CHUNK_BITS;
+      int offset = size & (CHUNK_SIZE - 1);
+      if (chunk == numChunks) {
+        if (numChunks == chunks.length) {
+          chunks = Arrays.copyOf(chunks, numChunks * 2);
+        }
+        chunks[numChunks] = allocate(numChunks == 0 ? INITIAL_CAPACITY : CHUNK_SIZE);
+        numChunks += 1;
+      }
+      else if (offset * stride == chunks[chunk].capacity()) {
+        IntBuffer bigger = allocate(Math.min(CHUNK_SIZE, 2 * offset));
+        IntBuffer old = chunks[chunk].duplicate();
+        old.clear();
+        bigger.put(old);
+        bigger.clear();
+        chunks[chunk] = bigger;
+      }
+      return size++;
+    }
+
+    /**
+     *  Returns a field of a record.
+     */
+    int get(int record, int field) {
+      return chunks[record >>> CHUNK_BITS].get((record & (CHUNK_SIZE - 1)) * stride + field);
+    }
+
+    /**
+     *  Sets a field of a record.
+     */
+    void set(int record, int field, int value) {
+      chunks[record >>> CHUNK_BITS].put((record & (CHUNK_SIZE - 1)) * stride + field, value);
+    }
+
+    /**
+     *  Returns the number of bytes of direct memory held.
+     */
+    long bytes() {
+      long bytes = 0;
+      for (int i = 0; i < numChunks; i++) {
+        bytes += 4L * chunks[i].capacity();
+      }
+      return bytes;
+    }
+
+    /**
+     *  Allocates a chunk of direct memory for the given number of records.
+     */
+    private IntBuffer allocate(int records) {
+      return ByteBuffer.allocateDirect(4 * records * stride).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+  }
+
+  /**
+   *  A flyweight view of a node, holding only its id.
+   */
+  private class NodeView implements Graph.Node<N,E> {
+    /** The node id. */
+    private final int id;
+
+    /**
+     *  Constructor.
+     *
+     *  @param id  the node id
+     */
+    NodeView(int id) {
+      this.id = id;
+    }
+
+    /**
+     *  Returns the graph this node belongs to.
+     */
+    OffHeapGraph<N,E> graph() {
+      return OffHeapGraph.this;
+    }
+
+    public N getData() {
+      return nodeData(id);
+    }
+
+    public Set<Edge<N,E>> getOutgoingEdges() {
+      Set<Edge<N,E>> set = new HashSet<Edge<N,E>>();
+      for (int edge = firstOut(id); edge != NONE; edge = nextOut(edge)) {
+        set.add(new EdgeView(edge));
+      }
+      return set;
+    }
+
+    public Set<Edge<N,E>> getIncomingEdges() {
+      Set<Edge<N,E>> set = new HashSet<Edge<N,E>>();
+      for (int edge = firstIn(id); edge != NONE; edge = nextIn(edge)) {
+        set.add(new EdgeView(edge));
+      }
+      return set;
+    }
+
+    public Collection<Edge<N,E>> outgoingEdges() {
+      return new AbstractCollection<Edge<N,E>>() {
+        public Iterator<Edge<N,E>> iterator() {
+          return new ListIterator(firstOut(id), true);
+        }
+
+        public int size() {
+          int size = 0;
+          for (int edge = firstOut(id); edge != NONE; edge = nextOut(edge)) {
+            size += 1;
+          }
+          return size;
+        }
+      };
+    }
+
+    public Collection<Edge<N,E>> incomingEdges() {
+      return new AbstractCollection<Edge<N,E>>() {
+        public Iterator<Edge<N,E>> iterator() {
+          return new ListIterator(firstIn(id), false);
+        }
+
+        public int size() {
+          int size = 0;
+          for (int edge = firstIn(id); edge != NONE; edge = nextIn(edge)) {
+            size += 1;
+          }
+          return size;
+        }
+      };
+    }
+
+    /**
+     *  Is this node the same node of the same graph as that one?
+     *
+     *  @param that  the node to compare to this one
+     *  @return      true if both name the same node
+     */
+    public boolean equals(Node<N,E> that) {
+      return that instanceof OffHeapGraph.NodeView && ((NodeView) that).graph() == graph()
+        && ((NodeView) that).id == id;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(Object that) {
+      return that instanceof Node && equals((Node<N,E>) that);
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(getData());
+    }
+  }
+
+  /**
+   *  A flyweight view of an edge, holding only its id.
+   */
+  private class EdgeView implements Graph.Edge<N,E> {
+    /** The edge id. */
+    private final int id;
+
+    /**
+     *  Constructor.
+     *
+     *  @param id  the edge id
+     */
+    EdgeView(int id) {
+      this.id = id;
+    }
+
+    /**
+     *  Returns the graph this edge belongs to.
+     */
+    OffHeapGraph<N,E> graph() {
+      return OffHeapGraph.this;
+    }
+
+    public E getData() {
+      return edgeData(id);
+    }
+
+    public Node<N,E> getTail() {
+      return new NodeView(edges.get(id, TAIL));
+    }
+
+    public Node<N,E> getHead() {
+      return new NodeView(edges.get(id, HEAD));
+    }
+
+    /**
+     *  Is this edge the same edge of the same graph as that one?
+     *
+     *  @param that  the edge to compare to this one
+     *  @return      true if both name the same edge
+     */
+    public boolean equals(Edge<N,E> that) {
+      return that instanceof OffHeapGraph.EdgeView && ((EdgeView) that).graph() == graph()
+        && ((EdgeView) that).id == id;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(Object that) {
+      return that instanceof Edge && equals((Edge<N,E>) that);
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+/**
+ *  A point-to-point shortest-path query engine over an IntGraph.  Every
+ *  search mode answers the same question, so callers can pick an engine
+ *  without changing the code that uses the result.
+ */
+public interface PathFinder {
+  /**
+   *  Finds a shortest path from a source to a target.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @return        the path, which is not found if target is unreachable
+   */
+  ShortestPath shortestPath(int source, int target);
+
+  /**
+   *  Returns the number of nodes settled by the last query, a measure of how
+   *  much work the query did.
+   *
+   *  @return the number of settled nodes
+   */
+  int numSettled();
+}
@@ -1,4 +1,6 @@
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  *  A class that will be the data for a node, and which holds location
@@ -19,6 +21,22 @@ public class PlacedData<T> {
   /** node rendering color */
   private Color color;
 
+  /** listeners told when the location changes, or null if there are none */
+  private List<MoveListener> moveListeners;
+
+  /**
+   *  Notified whenever the location of a PlacedData changes, so that values
+   *  derived from its coordinates can be recomputed.
+   */
+  public interface MoveListener {
+    /**
+     *  Called after the x or y coordinate of data has changed.
+     *
+     *  @param data  the data that moved
+     */
+    void moved(PlacedData<?> data);
+  }
+
   public PlacedData(T data, int x, int y) {
     this.data = data;
     this.x = x;
@@ -29,10 +47,44 @@ public class PlacedData<T> {
   public int getX() { return x; }
   public int getY() { return y; }
   public Color getColor() { return color; }
-  public void setX(int x) { this.x = x; }
-  public void setY(int y) { this.y = y; }
+  public void setX(int x) { if (this.x != x) { this.x = x; fireMoved(); } }
+  public void setY(int y) { if (this.y != y) { this.y = y; fireMoved(); } }
   public void setColor(Color color) { this.color = color; }
   public T getData() { return this.data; }
 
+  /**
+   *  Registers a listener to be told when this data moves.
+   *
+   *  @param listener  the listener to add
+   */
+  public void addMoveListener(MoveListener listener) {
+    if (moveListeners == null) {
+      moveListeners = new ArrayList<MoveListener>(1);
+    }
+    moveListeners.add(listener);
+  }
+
+  /**
+   *  Unregisters a listener added by addMoveListener.
+   *
+   *  @param listener  the listener to remove
+   */
+  public void removeMoveListener(MoveListener listener) {
+    if (moveListeners != null) {
+      moveListeners.remove(listener);
+    }
+  }
+
+  /**
+   *  Tells every registered listener that the location changed.
+   */
+  private void fireMoved() {
+    if (moveListeners != null) {
+      for (int i = 0; i < moveListeners.size(); i++) {
+        moveListeners.get(i).moved(this);
+      }
+    }
+  }
+
   public String toString() { return data.toString() + "@(" + x + "," + y + ")"; }
 }
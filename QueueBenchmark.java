@@ -0,0 +1,84 @@
+import java.util.Random;
+
+/**
+ *  Compares the IntPriorityQueue implementations as the frontier of a
+ *  ShortestPathSolver, on random sparse graphs whose weights are drawn from
+ *  ranges of different sizes.  Dial's buckets should win while the maximum
+ *  weight is small.  For large weights only the radix heap and the d-ary
+ *  heap remain, and which of them wins depends on the graph and machine,
+ *  which is what this measures.
+ *
+ *  Usage: java QueueBenchmark [nodes] [arcsPerNode] [queries]
+ */
+public class QueueBenchmark {
+  /** Largest weight for which a DialQueue is tried. */
+  private static final int MAX_DIAL_WEIGHT = 1 << 16;
+
+  /**
+   *  Runs the benchmark and prints the average time per query.
+   *
+   *  @param args  optional node count, arcs per node and query count
+   */
+  public static void main(String[] args) {
+    int numNodes = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+    int arcsPerNode = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    int numQueries = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+    int[] maxWeights = { 10, 1000, 100000, 10000000 };
+    System.out.println("max weight      heap     dial    radix  (ms per query)");
+    for (int maxWeight : maxWeights) {
+      CsrGraph<Object,Object> graph = randomGraph(numNodes, arcsPerNode, maxWeight, new Random(maxWeight));
+      int[] sources = new int[numQueries];
+      Random random = new Random(1);
+      for (int i = 0; i < numQueries; i++) {
+        sources[i] = random.nextInt(numNodes);
+      }
+      double heap = time(new ShortestPathSolver(graph, graph, new IndexedMinHeap(numNodes)), sources);
+      String dial = maxWeight <= MAX_DIAL_WEIGHT
+        ? String.format("%8.2f", time(new ShortestPathSolver(graph, graph, new DialQueue(numNodes, maxWeight)), sources))
+        : "       -";
+      double radix = time(new ShortestPathSolver(graph, graph, new RadixHeap(numNodes)), sources);
+      System.out.printf("%10d %8.2f %s %8.2f%n", maxWeight, heap, dial, radix);
+    }
+  }
+
+  /**
+   *  Times full searches from each source after a warm-up pass.
+   *
+   *  @param solver   the solver to time
+   *  @param sources  the query sources
+   *  @return         the average milliseconds per query
+   */
+  private static double time(ShortestPathSolver solver, int[] sources) {
+    for (int source : sources) {
+      solver.solve(source);
+    }
+    long start = System.nanoTime();
+    for (int source : sources) {
+      solver.solve(source);
+    }
+    return (System.nanoTime() - start) / 1e6 / sources.length;
+  }
+
+  /**
+   *  Builds a random graph with a fixed out-degree and uniform weights.
+   *
+   *  @param numNodes     the number of nodes
+   *  @param arcsPerNode  the out-degree of every node
+   *  @param maxWeight    the largest weight
+   *  @param random       the source of randomness
+   *  @return             the graph
+   */
+  private static CsrGraph<Object,Object> randomGraph(int numNodes, int arcsPerNode, int maxWeight, Random random) {
+    int[] offsets = new int[numNodes + 1];
+    int[] targets = new int[numNodes * arcsPerNode];
+    int[] weights = new int[targets.length];
+    for (int v = 0; v < numNodes; v++) {
+      offsets[v + 1] = offsets[v] + arcsPerNode;
+      for (int arc = offsets[v]; arc < offsets[v + 1]; arc++) {
+        targets[arc] = random.nextInt(numNodes);
+        weights[arc] = random.nextInt(maxWeight + 1);
+      }
+    }
+    return new CsrGraph<Object,Object>(offsets, targets, weights, null, null);
+  }
+}
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+
+/**
+ *  A radix heap, a monotone priority queue for non-negative integer keys of
+ *  any size.  Keys are filed by the highest bit in which they differ from
+ *  the last key extracted, so bucket 0 holds keys equal to it and bucket i
+ *  holds keys that first differ from it at bit i-1.  Insert and
+ *  decrease-key are constant time.  When bucket 0 runs dry, the lowest
+ *  non-empty bucket is searched for its minimum, which becomes the new last
+ *  key, and its ids are redistributed into strictly lower buckets; each id
+ *  can move down at most 64 times, so no key is ever compared with another
+ *  except within that one bucket.
+ *
+ *  Each bucket is a doubly linked list threaded through int arrays, so the
+ *  heap allocates nothing once constructed.
+ */
+public class RadixHeap implements IntPriorityQueue {
+  /** Marks the end of a list, or an id that is not in the heap. */
+  private static final int NONE = -1;
+
+  /** Number of buckets: one for the last key and one per bit. */
+  private static final int NUM_BUCKETS = 65;
+
+  /** First id of each bucket's list. */
+  private final int[] head = new int[NUM_BUCKETS];
+
+  /** Next id in the same bucket. */
+  private final int[] next;
+
+  /** Previous id in the same bucket. */
+  private final int[] previous;
+
+  /** Bucket of each id, or NONE if the id is not in the heap. */
+  private final int[] bucket;
+
+  /** Current priority of each id. */
+  private final long[] keys;
+
+  /** The last key extracted; no smaller key may be inserted. */
+  private long last;
+
+  /** Number of ids in the heap. */
+  private int size;
+
+  /**
+   *  Constructor.  Creates an empty heap.
+   *
+   *  @param capacity  one more than the largest id that will be inserted
+   */
+  public RadixHeap(int capacity) {
+    next = new int[capacity];
+    previous = new int[capacity];
+    bucket = new int[capacity];
+    keys = new long[capacity];
+    Arrays.fill(head, NONE);
+    Arrays.fill(bucket, NONE);
+  }
+
+  /**
+   *  Is the heap empty?
+   *
+   *  @return true if there are no ids in the heap
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   *  Returns the number of ids in the heap.
+   *
+   *  @return the number of ids in the heap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   *  Inserts the id if it is absent, or moves it to a lower bucket if it is
+   *  present with a larger key.
+   *
+   *  @param id   the id to insert or update
+   *  @param key  the candidate priority, no smaller than the last key
+   *              extracted
+   *  @return     true if the heap changed
+   */
+  public boolean insertOrDecrease(int id, long key) {
+    if (key < last) {
+      throw new IllegalArgumentException("Key " + key + " is smaller than the last key extracted.");
+    }
+    if (bucket[id] != NONE) {
+      if (key >= keys[id]) {
+        return false;
+      }
+      unlink(id);
+    }
+    else {
+      size += 1;
+    }
+    keys[id] = key;
+    link(id, bucketOf(key));
+    return true;
+  }
+
+  /**
+   *  Returns the smallest priority in the heap.
+   *
+   *  @return the smallest key
+   *  @throws IllegalStateException if the heap is empty
+   */
+  public long minKey() {
+    refill();
+    return last;
+  }
+
+  /**
+   *  Removes and returns an id with the smallest priority.
+   *
+   *  @return the id removed
+   *  @throws IllegalStateException if the heap is empty
+   */
+  public int extractMin() {
+    refill();
+    int id = head[0];
+    unlink(id);
+    bucket[id] = NONE;
+    size -= 1;
+    return id;
+  }
+
+  /**
+   *  Removes every id from the heap and starts again from key 0.  Runs in
+   *  time proportional to the number of ids in the heap.
+   */
+  public void clear() {
+    for (int b = 0; b < NUM_BUCKETS; b++) {
+      for (int id = head[b]; id != NONE; id = next[id]) {
+        bucket[id] = NONE;
+      }
+      head[b] = NONE;
+    }
+    size = 0;
+    last = 0;
+  }
+
+  /**
+   *  Makes sure bucket 0 is not empty, by moving the last key up to the
+   *  smallest key of the lowest non-empty bucket and redistributing that
+   *  bucket.
+   */
+  private void refill() {
+    if (size == 0) {
+      throw new IllegalStateException("The heap is empty.");
+    }
+    if (head[0] != NONE) {
+      return;
+    }
+    int b = 1;
+    while (head[b] == NONE) {
+      b += 1;
+    }
+    long min = Long.MAX_VALUE;
+    for (int id = head[b]; id != NONE; id = next[id]) {
+      min = Math.min(min, keys[id]);
+    }
+    last = min;
+    int id = head[b];
+    head[b] = NONE;
+    while (id != NONE) {
+      int following = next[id];
+      link(id, bucketOf(keys[id]));
+      id = following;
+    }
+  }
+
+  /**
+   *  Returns the bucket a key belongs in, relative to the last key.
+   */
+  private int bucketOf(long key) {
+    return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+  }
+
+  /**
+   *  Puts an id at the front of a bucket's list.
+   */
+  private void link(int id, int b) {
+    int first = head[b];
+    next[id] = first;
+    previous[id] = NONE;
+    if (first != NONE) {
+      previous[first] = id;
+    }
+    head[b] = id;
+    bucket[id] = b;
+  }
+
+  /**
+   *  Takes an id out of its bucket's list.
+   */
+  private void unlink(int id) {
+    int before = previous[id];
+    int after = next[id];
+    if (before != NONE) {
+      next[before] = after;
+    }
+    else {
+      head[bucket[id]] = after;
+    }
+    if (after != NONE) {
+      previous[after] = before;
+    }
+  }
+}
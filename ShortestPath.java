@@ -0,0 +1,221 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  A path found by a shortest-path query on an IntGraph: its total cost and
+ *  the sequence of node ids and arc ids from source to target.  Node i of
+ *  the path is the tail of arc i and node i+1 its head.  A path that was
+ *  not found has cost INFINITY and no nodes.
+ */
+public class ShortestPath {
+  /** The cost reported when there is no path. */
+  public static final int INFINITY = Integer.MAX_VALUE;
+
+  /** The source of the query. */
+  private final int source;
+
+  /** The target of the query. */
+  private final int target;
+
+  /** Total weight of the arcs of the path. */
+  private final int cost;
+
+  /** Node ids along the path, from source to target. */
+  private final int[] nodes;
+
+  /** Arc ids along the path, from source to target. */
+  private final int[] arcs;
+
+  /**
+   *  Constructor.
+   *
+   *  @param source  the source of the query
+   *  @param target  the target of the query
+   *  @param cost    the total weight of the path, or INFINITY
+   *  @param nodes   the node ids along the path
+   *  @param arcs    the arc ids along the path
+   */
+  public ShortestPath(int source, int target, int cost, int[] nodes, int[] arcs) {
+    this.source = source;
+    this.target = target;
+    this.cost = cost;
+    this.nodes = nodes;
+    this.arcs = arcs;
+  }
+
+  /**
+   *  Returns the result of a query whose target cannot be reached.
+   *
+   *  @param source  the source of the query
+   *  @param target  the target of the query
+   *  @return        a path that was not found
+   */
+  public static ShortestPath notFound(int source, int target) {
+    return new ShortestPath(source, target, INFINITY, new int[0], new int[0]);
+  }
+
+  /**
+   *  Builds a path by following parent arcs back from the target.
+   *
+   *  @param graph      the graph the arcs belong to
+   *  @param source     the source of the query
+   *  @param target     the target of the query
+   *  @param cost       the distance of the target
+   *  @param parentArc  the parent arc of each node on the path, -1 at the source
+   *  @return           the path
+   */
+  static ShortestPath fromParents(IntGraph graph, int source, int target, int cost,
+                                  ParentArcs parentArc) {
+    int length = 0;
+    for (int node = target; node != source; node = graph.tail(parentArc.parentArc(node))) {
+      length += 1;
+    }
+    int[] nodes = new int[length + 1];
+    int[] arcs = new int[length];
+    int node = target;
+    nodes[length] = target;
+    for (int i = length - 1; i >= 0; i--) {
+      arcs[i] = parentArc.parentArc(node);
+      node = graph.tail(arcs[i]);
+      nodes[i] = node;
+    }
+    return new ShortestPath(source, target, cost, nodes, arcs);
+  }
+
+  /**
+   *  Was a path found?
+   *
+   *  @return true if the target is reachable from the source
+   */
+  public boolean isFound() {
+    return cost != INFINITY;
+  }
+
+  /**
+   *  Returns the source of the query.
+   *
+   *  @return the source node id
+   */
+  public int source() {
+    return source;
+  }
+
+  /**
+   *  Returns the target of the query.
+   *
+   *  @return the target node id
+   */
+  public int target() {
+    return target;
+  }
+
+  /**
+   *  Returns the total weight of the path.
+   *
+   *  @return the cost, or INFINITY if no path was found
+   */
+  public int cost() {
+    return cost;
+  }
+
+  /**
+   *  Returns the number of arcs on the path.
+   *
+   *  @return the number of arcs
+   */
+  public int numArcs() {
+    return arcs.length;
+  }
+
+  /**
+   *  Returns the id of a node on the path.
+   *
+   *  @param index  the position on the path, from 0 (the source) to numArcs()
+   *  @return       the node id
+   */
+  public int node(int index) {
+    return nodes[index];
+  }
+
+  /**
+   *  Returns the id of an arc on the path.
+   *
+   *  @param index  the position on the path, from 0 to numArcs()-1
+   *  @return       the arc id
+   */
+  public int arc(int index) {
+    return arcs[index];
+  }
+
+  /**
+   *  Returns the original nodes along the path.
+   *
+   *  @param graph  the snapshot the path was found in
+   *  @return       the nodes from source to target
+   */
+  public <N,E> List<Graph.Node<N,E>> nodes(CsrGraph<N,E> graph) {
+    List<Graph.Node<N,E>> result = new ArrayList<Graph.Node<N,E>>(nodes.length);
+    for (int node : nodes) {
+      result.add(graph.node(node));
+    }
+    return result;
+  }
+
+  /**
+   *  Returns the original edges along the path.
+   *
+   *  @param graph  the snapshot the path was found in
+   *  @return       the edges from source to target
+   */
+  public <N,E> List<Graph.Edge<N,E>> edges(CsrGraph<N,E> graph) {
+    List<Graph.Edge<N,E>> result = new ArrayList<Graph.Edge<N,E>>(arcs.length);
+    for (int arc : arcs) {
+      result.add(graph.edge(arc));
+    }
+    return result;
+  }
+
+  /**
+   *  Returns a string representation of the path.
+   *
+   *  @return the cost and node ids of the path
+   */
+  public String toString() {
+    if (!isFound()) {
+      return "No path from " + source + " to " + target;
+    }
+    StringBuilder builder = new StringBuilder();
+    builder.append("Path of cost ").append(cost).append(":");
+    for (int node : nodes) {
+      builder.append(' ').append(node);
+    }
+    return builder.toString();
+  }
+
+  /**
+   *  Gives the parent arc of each node of a finished search.
+   */
+  interface ParentArcs {
+    /**
+     *  Returns the arc by which a node was reached.
+     *
+     *  @param node  the node id
+     *  @return      the arc id, or -1 at the source
+     */
+    int parentArc(int node);
+  }
+
+  /**
+   *  Gives the distance and parent arc of each node of a finished search:
+   *  the whole shortest-path tree, as ShortestPathWriter exports it.
+   */
+  public interface Distances extends ParentArcs {
+    /**
+     *  Returns the distance of a node from the source.
+     *
+     *  @param node  the node id
+     *  @return      the distance, or INFINITY if the node was not reached
+     */
+    int distance(int node);
+  }
+}
@@ -0,0 +1,391 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *  A bounded cache of shortest-path results in front of ShortestPathSolver,
+ *  for workloads that ask the same questions again and again of a graph
+ *  that rarely changes.  Two kinds of result are kept:
+ *
+ *    - the whole tree of a source, (source, *): the distance and parent arc
+ *      of every node, as two int arrays, and
+ *    - a single path, (source, target), found by a search that stops at the
+ *      target; a tree of the same source answers it too.
+ *
+ *  Every entry is keyed by the graph's version as well as its nodes, and
+ *  the graph is snapshotted again whenever its version moves on, so a
+ *  result computed before an edge was added or removed, or before a node
+ *  was dragged, is never served.
+ *
+ *  The cache does nothing for a graph that keeps no version (see
+ *  Graph.version), such as ComplexGraph: such a graph is snapshotted and
+ *  searched afresh on every query and no result is stored.  Dijkstra
+ *  therefore only puts a cache in front of versioned graphs, such as
+ *  GraphImplementation and OffHeapGraph.
+ *
+ *  The cache holds at most a given number of bytes of results, counting
+ *  four bytes per int, and evicts the least recently used entries to stay
+ *  within it.  Weights are the Euclidean weights of CsrGraph.euclidean.
+ *  The cache is not thread-safe.
+ *
+ *  @param <T>  the type of the data inside each PlacedData
+ *  @param <E>  the type of the data associated with an edge
+ */
+public class ShortestPathCache<T,E> {
+  /** Bytes charged for an entry on top of its arrays. */
+  private static final int ENTRY_OVERHEAD = 64;
+
+  /** Target id of a (source, *) entry. */
+  private static final int ALL = -1;
+
+  /** The graph being searched. */
+  private final Graph<PlacedData<T>,E> graph;
+
+  /** Most bytes of results to keep. */
+  private final long maxBytes;
+
+  /** The entries, least recently used first. */
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+  /** Bytes charged for the entries. */
+  private long bytes;
+
+  /** The snapshot of the graph at snapshotVersion, or null. */
+  private CsrGraph<PlacedData<T>,E> snapshot;
+
+  /** The graph version the snapshot was taken at. */
+  private long snapshotVersion = -1;
+
+  /** Solver over the snapshot. */
+  private ShortestPathSolver solver;
+
+  /** Number of queries answered from the cache. */
+  private long hits;
+
+  /** Number of queries that needed a search. */
+  private long misses;
+
+  /** Number of entries evicted to stay within maxBytes. */
+  private long evictions;
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph     the graph to search
+   *  @param maxBytes  most bytes of results to keep
+   */
+  public ShortestPathCache(Graph<PlacedData<T>,E> graph, long maxBytes) {
+    this.graph = graph;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   *  Returns the shortest-path tree of a source.
+   *
+   *  @param source  the source node
+   *  @return        its tree over the current snapshot
+   *  @throws Error  if the source is not a node of the graph
+   */
+  public Tree tree(Graph.Node<PlacedData<T>,E> source) {
+    CsrGraph<PlacedData<T>,E> current = currentSnapshot();
+    int sourceId = current.id(source);
+    Key key = new Key(sourceId, ALL, snapshotVersion);
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      hits += 1;
+      return entry.tree;
+    }
+    misses += 1;
+    solver.solve(sourceId);
+    int numNodes = current.numNodes();
+    int[] distance = new int[numNodes];
+    int[] parentArc = new int[numNodes];
+    for (int node = 0; node < numNodes; node++) {
+      distance[node] = solver.distance(node);
+      parentArc[node] = solver.parentArc(node);
+    }
+    Tree tree = new Tree(current, sourceId, distance, parentArc);
+    store(key, new Entry(tree, null, 8L * numNodes));
+    return tree;
+  }
+
+  /**
+   *  Returns a shortest path between two nodes.
+   *
+   *  @param source  the source node
+   *  @param target  the target node
+   *  @return        the path, in ids of snapshot(), which is not found if
+   *                 target is unreachable
+   *  @throws Error  if either node is not a node of the graph
+   */
+  public ShortestPath path(Graph.Node<PlacedData<T>,E> source, Graph.Node<PlacedData<T>,E> target) {
+    CsrGraph<PlacedData<T>,E> current = currentSnapshot();
+    int sourceId = current.id(source);
+    int targetId = current.id(target);
+    Entry entry = entries.get(new Key(sourceId, ALL, snapshotVersion));
+    if (entry != null) {
+      hits += 1;
+      return entry.tree.pathTo(targetId);
+    }
+    Key key = new Key(sourceId, targetId, snapshotVersion);
+    entry = entries.get(key);
+    if (entry != null) {
+      hits += 1;
+      return entry.path;
+    }
+    misses += 1;
+    ShortestPath path = solver.shortestPath(sourceId, targetId);
+    store(key, new Entry(null, path, 8L * path.numArcs() + 4));
+    return path;
+  }
+
+  /**
+   *  Returns the shortest distance between two nodes.
+   *
+   *  @param source  the source node
+   *  @param target  the target node
+   *  @return        the distance, or Integer.MAX_VALUE if there is no path
+   */
+  public int distance(Graph.Node<PlacedData<T>,E> source, Graph.Node<PlacedData<T>,E> target) {
+    return path(source, target).cost();
+  }
+
+  /**
+   *  Returns the graph being searched.
+   *
+   *  @return the graph
+   */
+  public Graph<PlacedData<T>,E> graph() {
+    return graph;
+  }
+
+  /**
+   *  Returns the snapshot of the graph's current version, whose ids the
+   *  results use.
+   *
+   *  @return the snapshot
+   */
+  public CsrGraph<PlacedData<T>,E> snapshot() {
+    return currentSnapshot();
+  }
+
+  /**
+   *  Returns the number of queries answered from the cache.
+   *
+   *  @return the number of hits
+   */
+  public long hits() {
+    return hits;
+  }
+
+  /**
+   *  Returns the number of queries that needed a search.
+   *
+   *  @return the number of misses
+   */
+  public long misses() {
+    return misses;
+  }
+
+  /**
+   *  Returns the number of entries evicted to stay within the size bound.
+   *  Entries dropped because the graph changed are not counted.
+   *
+   *  @return the number of evictions
+   */
+  public long evictions() {
+    return evictions;
+  }
+
+  /**
+   *  Returns the number of entries held.
+   *
+   *  @return the number of entries
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   *  Returns the bytes charged for the entries held.
+   *
+   *  @return the weighted size
+   */
+  public long bytes() {
+    return bytes;
+  }
+
+  /**
+   *  Drops every entry.  The counters are kept.
+   */
+  public void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  /**
+   *  Returns a snapshot of the graph's current version, taking a new one
+   *  and dropping every entry if the graph has changed.  A graph without a
+   *  version is snapshotted on every call.
+   */
+  private CsrGraph<PlacedData<T>,E> currentSnapshot() {
+    long version = graph.version();
+    if (snapshot == null || version < 0 || version != snapshotVersion) {
+      clear();
+      snapshot = CsrGraph.euclidean(graph);
+      solver = new ShortestPathSolver(snapshot);
+      snapshotVersion = version;
+    }
+    return snapshot;
+  }
+
+  /**
+   *  Adds an entry, evicting the least recently used ones until the cache
+   *  is within its bound.  Nothing is kept for a graph without a version,
+   *  nor an entry bigger than the whole cache.
+   */
+  private void store(Key key, Entry entry) {
+    if (snapshotVersion < 0 || entry.bytes > maxBytes) {
+      return;
+    }
+    entries.put(key, entry);
+    bytes += entry.bytes;
+    Iterator<Map.Entry<Key, Entry>> oldest = entries.entrySet().iterator();
+    while (bytes > maxBytes) {
+      Entry evicted = oldest.next().getValue();
+      oldest.remove();
+      bytes -= evicted.bytes;
+      evictions += 1;
+    }
+  }
+
+  /**
+   *  The shortest-path tree of one source over one snapshot: the distance
+   *  and parent arc of every node, by snapshot id.
+   */
+  public static class Tree implements ShortestPath.Distances {
+    /** The snapshot the ids refer to. */
+    private final IntGraph graph;
+
+    /** The source node id. */
+    private final int source;
+
+    /** Distance of each node, Integer.MAX_VALUE where unreachable. */
+    private final int[] distance;
+
+    /** Parent arc of each node, -1 at the source and unreachable nodes. */
+    private final int[] parentArc;
+
+    /**
+     *  Constructor.
+     */
+    Tree(IntGraph graph, int source, int[] distance, int[] parentArc) {
+      this.graph = graph;
+      this.source = source;
+      this.distance = distance;
+      this.parentArc = parentArc;
+    }
+
+    /**
+     *  Returns the source node id.
+     *
+     *  @return the source
+     */
+    public int source() {
+      return source;
+    }
+
+    /**
+     *  Returns the distance of a node.
+     *
+     *  @param node  the snapshot id of the node
+     *  @return      the distance, or Integer.MAX_VALUE if it is unreachable
+     */
+    public int distance(int node) {
+      return distance[node];
+    }
+
+    /**
+     *  Returns the parent arc of a node.
+     *
+     *  @param node  the snapshot id of the node
+     *  @return      the arc id, or -1 for the source or an unreachable node
+     */
+    public int parentArc(int node) {
+      return parentArc[node];
+    }
+
+    /**
+     *  Returns the shortest path to a node.
+     *
+     *  @param target  the snapshot id of the node
+     *  @return        the path, which is not found if target is unreachable
+     */
+    public ShortestPath pathTo(int target) {
+      if (distance[target] == ShortestPath.INFINITY) {
+        return ShortestPath.notFound(source, target);
+      }
+      return ShortestPath.fromParents(graph, source, target, distance[target], this);
+    }
+  }
+
+  /**
+   *  Identifies a result: a source, a target or ALL, and a graph version.
+   */
+  private static final class Key {
+    /** The source node id. */
+    private final int source;
+
+    /** The target node id, or ALL. */
+    private final int target;
+
+    /** The graph version. */
+    private final long version;
+
+    /**
+     *  Constructor.
+     */
+    Key(int source, int target, long version) {
+      this.source = source;
+      this.target = target;
+      this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (!(that instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) that;
+      return source == other.source && target == other.target && version == other.version;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * source + target) + Long.hashCode(version);
+    }
+  }
+
+  /**
+   *  A cached result and the bytes charged for it.
+   */
+  private static final class Entry {
+    /** The tree, for a (source, *) entry. */
+    private final Tree tree;
+
+    /** The path, for a (source, target) entry. */
+    private final ShortestPath path;
+
+    /** Bytes charged. */
+    private final long bytes;
+
+    /**
+     *  Constructor.
+     */
+    Entry(Tree tree, ShortestPath path, long arrayBytes) {
+      this.tree = tree;
+      this.path = path;
+      this.bytes = arrayBytes + ENTRY_OVERHEAD;
+    }
+  }
+}
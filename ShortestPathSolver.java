@@ -0,0 +1,268 @@
+import java.util.Arrays;
+
+/**
+ *  A reusable Dijkstra solver over an IntGraph.  All of its working state --
+ *  tentative distances, parent arcs, settled marks and the heap -- is
+ *  allocated once, sized to the graph, and reused by every query, so a
+ *  query produces no garbage.  The heap can be swapped for any
+ *  IntPriorityQueue.
+ *
+ *  Instead of clearing its arrays between queries the solver stamps every
+ *  node it touches with the current generation number; an entry whose stamp
+ *  is out of date is read as "not reached".  Starting a new query therefore
+ *  costs only the emptying of the heap, never a pass over all the nodes.
+ *
+ *  A solver is not thread-safe; use one per thread.
+ */
+public class ShortestPathSolver implements PathFinder, ShortestPath.Distances {
+  /** The distance reported for nodes that cannot be reached. */
+  public static final int INFINITY = Integer.MAX_VALUE;
+
+  /** The graph being searched. */
+  private final IntGraph graph;
+
+  /** The weights of the graph's arcs. */
+  private final WeightProvider weights;
+
+  /** Tentative or final distance of each node touched in this generation. */
+  private final int[] distance;
+
+  /** Arc by which each touched node was reached, or -1 for the source. */
+  private final int[] parentArc;
+
+  /** Generation in which each node's distance and parent were last set. */
+  private final int[] touched;
+
+  /** Generation in which each node was last settled. */
+  private final int[] settled;
+
+  /** The frontier of the current search. */
+  private final IntPriorityQueue queue;
+
+  /**
+   *  The current generation; entries stamped with another value are stale.
+   *  It starts at 1, so the zeroed stamps of a new solver read as stale.
+   */
+  private int generation = 1;
+
+  /** The source of the last query, or -1 if there has been none. */
+  private int source = -1;
+
+  /** Number of nodes settled by the last query. */
+  private int numSettled;
+
+  /**
+   *  Constructor.  Uses the weights stored in the graph.
+   *
+   *  @param graph  the graph to search
+   */
+  public ShortestPathSolver(IntGraph graph) {
+    this(graph, graph);
+  }
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph    the graph to search
+   *  @param weights  the weights of the graph's arcs
+   */
+  public ShortestPathSolver(IntGraph graph, WeightProvider weights) {
+    this(graph, weights, new IndexedMinHeap(graph.numNodes()));
+  }
+
+  /**
+   *  Constructor.  Uses the given priority queue for the frontier, such as
+   *  a DialQueue when the weights are small or a RadixHeap otherwise.
+   *
+   *  @param graph    the graph to search
+   *  @param weights  the weights of the graph's arcs
+   *  @param queue    an empty queue with capacity for every node
+   */
+  public ShortestPathSolver(IntGraph graph, WeightProvider weights, IntPriorityQueue queue) {
+    this.graph = graph;
+    this.weights = weights;
+    int numNodes = graph.numNodes();
+    distance = new int[numNodes];
+    parentArc = new int[numNodes];
+    touched = new int[numNodes];
+    settled = new int[numNodes];
+    this.queue = queue;
+  }
+
+  /**
+   *  Returns the graph this solver searches.
+   *
+   *  @return the graph
+   */
+  public IntGraph graph() {
+    return graph;
+  }
+
+  /**
+   *  Computes the shortest distances from a source to every node reachable
+   *  from it.  The results stay available through distance(), parentArc()
+   *  and isSettled() until the next query.
+   *
+   *  @param source  the id of the source node
+   */
+  public void solve(int source) {
+    start(source);
+    while (!queue.isEmpty()) {
+      settleNext();
+    }
+  }
+
+  /**
+   *  Finds a shortest path from a source to a target.  The search stops as
+   *  soon as the target is settled, so only the nodes closer to the source
+   *  than the target are expanded.  Afterwards distance() is final for
+   *  settled nodes only.
+   *
+   *  @param source  the id of the source node
+   *  @param target  the id of the target node
+   *  @return        the path, which is not found if target is unreachable
+   */
+  public ShortestPath shortestPath(int source, int target) {
+    if (target < 0 || target >= graph.numNodes()) {
+      throw new Error("The supplied target is not a node of this graph.");
+    }
+    start(source);
+    while (!queue.isEmpty()) {
+      if (settleNext() == target) {
+        break;
+      }
+    }
+    return pathTo(target);
+  }
+
+  /**
+   *  Returns the shortest path to a node settled by the last query, built by
+   *  following parent arcs back to the source.
+   *
+   *  @param target  the id of the target node
+   *  @return        the path, which is not found if target was not settled
+   */
+  public ShortestPath pathTo(int target) {
+    if (source < 0 || !isSettled(target)) {
+      return ShortestPath.notFound(source, target);
+    }
+    return ShortestPath.fromParents(graph, source, target, distance[target], this);
+  }
+
+  /**
+   *  Returns the shortest distance to a node found by the last query.
+   *
+   *  @param node  the node id
+   *  @return      the distance, or INFINITY if the node was not reached
+   */
+  public int distance(int node) {
+    return touched[node] == generation ? distance[node] : INFINITY;
+  }
+
+  /**
+   *  Returns the last arc on the shortest path to a node found by the last
+   *  query.
+   *
+   *  @param node  the node id
+   *  @return      the arc id, or -1 for the source or an unreached node
+   */
+  public int parentArc(int node) {
+    return touched[node] == generation ? parentArc[node] : -1;
+  }
+
+  /**
+   *  Was a node's distance made final by the last query?
+   *
+   *  @param node  the node id
+   *  @return      true if the node was settled
+   */
+  public boolean isSettled(int node) {
+    return settled[node] == generation;
+  }
+
+  /**
+   *  Returns the source of the last query.
+   *
+   *  @return the source node id, or -1 if there has been no query
+   */
+  public int source() {
+    return source;
+  }
+
+  /**
+   *  Returns the number of nodes settled by the last query.
+   *
+   *  @return the number of settled nodes
+   */
+  public int numSettled() {
+    return numSettled;
+  }
+
+  /**
+   *  Begins a new query: moves to a fresh generation, empties the heap and
+   *  puts the source on it.
+   *
+   *  @param source  the id of the source node
+   */
+  void start(int source) {
+    if (source < 0 || source >= graph.numNodes()) {
+      throw new Error("The supplied source is not a node of this graph.");
+    }
+    generation += 1;
+    if (generation == 0) {
+      // The stamps have wrapped around; old ones could now look current
+      Arrays.fill(touched, 0);
+      Arrays.fill(settled, 0);
+      generation = 1;
+    }
+    queue.clear();
+    this.source = source;
+    numSettled = 0;
+    distance[source] = 0;
+    parentArc[source] = -1;
+    touched[source] = generation;
+    queue.insertOrDecrease(source, 0);
+  }
+
+  /**
+   *  Is there anything left on the frontier?
+   *
+   *  @return true if settleNext may be called
+   */
+  boolean hasNext() {
+    return !queue.isEmpty();
+  }
+
+  /**
+   *  Returns the smallest tentative distance on the frontier.
+   *
+   *  @return the key at the top of the heap
+   */
+  long peekDistance() {
+    return queue.minKey();
+  }
+
+  /**
+   *  Settles the frontier node with the smallest distance and relaxes the
+   *  arcs leaving it.
+   *
+   *  @return the id of the node settled
+   */
+  int settleNext() {
+    int node = queue.extractMin();
+    settled[node] = generation;
+    numSettled += 1;
+    long nodeDistance = distance[node];
+    for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+      int head = graph.head(arc);
+      long newDistance = nodeDistance + weights.weight(arc);
+      if (newDistance < distance(head)) {
+        distance[head] = (int) newDistance;
+        parentArc[head] = arc;
+        touched[head] = generation;
+        queue.insertOrDecrease(head, newDistance);
+      }
+    }
+    return node;
+  }
+}
@@ -0,0 +1,293 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ *  Streams the result of a shortest-path search as one (node, distance,
+ *  parent) record per node, in node id order, to a Writer, an OutputStream
+ *  or a WritableByteChannel.  The records are formatted straight into a
+ *  fixed buffer, digit by digit, which is handed on whenever it fills, so
+ *  writing a million-node result needs no more memory than writing a small
+ *  one and builds no String for any node.
+ *
+ *  Three formats are offered:
+ *
+ *    - TEXT, for people:  " To node 7, distance is: 120, via node 3"
+ *      (the source has no "via", and an unreachable node reads "no path");
+ *    - CSV, with a "node,distance,parent" header line, leaving distance
+ *      and parent empty where there are none;
+ *    - BINARY, the four bytes "SPW1" followed by twelve bytes per record:
+ *      node, distance and parent as big-endian ints, with distance
+ *      Integer.MAX_VALUE for an unreachable node and parent -1 where there
+ *      is none.  It is for OutputStreams and channels only.
+ *
+ *  Nodes are written as their ids unless Labels are set, which number them
+ *  some other way, such as by the Integer inside their PlacedData.  By
+ *  default unreachable nodes are left out.
+ */
+public class ShortestPathWriter {
+  /** The output formats. */
+  public enum Format { TEXT, CSV, BINARY }
+
+  /**
+   *  Gives the number to write for a node.
+   */
+  public interface Labels {
+    /**
+     *  Returns the label of a node.
+     *
+     *  @param node  the node id
+     *  @return      the number to write for it
+     */
+    int label(int node);
+  }
+
+  /** Bytes of output gathered before they are handed on. */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** Room to leave in the buffer for one record in any format. */
+  private static final int MAX_RECORD = 96;
+
+  /** The first four bytes of a BINARY export. */
+  private static final byte[] MAGIC = { 'S', 'P', 'W', '1' };
+
+  /** The graph the search ran on. */
+  private final IntGraph graph;
+
+  /** The result of the search. */
+  private final ShortestPath.Distances result;
+
+  /** Labels for the nodes, or null to write their ids. */
+  private Labels labels;
+
+  /** Are unreachable nodes left out? */
+  private boolean reachableOnly = true;
+
+  /**
+   *  Constructor.
+   *
+   *  @param graph   the graph the search ran on
+   *  @param result  the finished search, such as a ShortestPathSolver after
+   *                 solve() or a DynamicShortestPaths
+   */
+  public ShortestPathWriter(IntGraph graph, ShortestPath.Distances result) {
+    this.graph = graph;
+    this.result = result;
+  }
+
+  /**
+   *  Sets the labels to write for the nodes.
+   *
+   *  @param labels  the labels, or null to write node ids
+   */
+  public void setLabels(Labels labels) {
+    this.labels = labels;
+  }
+
+  /**
+   *  Sets whether unreachable nodes are left out.
+   *
+   *  @param reachableOnly  true to write reachable nodes only
+   */
+  public void setReachableOnly(boolean reachableOnly) {
+    this.reachableOnly = reachableOnly;
+  }
+
+  /**
+   *  Writes the records to a channel.
+   *
+   *  @param format  the format to write
+   *  @param out     the channel, which is left open
+   *  @return        the number of records written
+   *  @throws IOException  if the channel cannot be written
+   */
+  public long write(Format format, final WritableByteChannel out) throws IOException {
+    return write(format, new Sink() {
+      public void drain(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+          out.write(buffer);
+        }
+      }
+    });
+  }
+
+  /**
+   *  Writes the records to a stream and flushes it.
+   *
+   *  @param format  the format to write
+   *  @param out     the stream, which is left open
+   *  @return        the number of records written
+   *  @throws IOException  if the stream cannot be written
+   */
+  public long write(Format format, final OutputStream out) throws IOException {
+    long records = write(format, new Sink() {
+      public void drain(ByteBuffer buffer) throws IOException {
+        out.write(buffer.array(), buffer.position(), buffer.remaining());
+      }
+    });
+    out.flush();
+    return records;
+  }
+
+  /**
+   *  Writes the records to a writer and flushes it.
+   *
+   *  @param format  TEXT or CSV
+   *  @param out     the writer, which is left open
+   *  @return        the number of records written
+   *  @throws IOException  if the writer cannot be written
+   *  @throws IllegalArgumentException  if the format is BINARY
+   */
+  public long write(Format format, final Writer out) throws IOException {
+    if (format == Format.BINARY) {
+      throw new IllegalArgumentException("A BINARY export cannot be written to a Writer.");
+    }
+    final char[] chars = new char[BUFFER_SIZE];
+    long records = write(format, new Sink() {
+      public void drain(ByteBuffer buffer) throws IOException {
+        // Text output is ASCII, so each byte is one char
+        int length = buffer.remaining();
+        for (int i = 0; i < length; i++) {
+          chars[i] = (char) buffer.get();
+        }
+        out.write(chars, 0, length);
+      }
+    });
+    out.flush();
+    return records;
+  }
+
+  /**
+   *  Formats every record into the buffer, draining it whenever it is
+   *  nearly full and once more at the end.
+   */
+  private long write(Format format, Sink sink) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    if (format == Format.BINARY) {
+      buffer.put(MAGIC);
+    }
+    else if (format == Format.CSV) {
+      putAscii(buffer, "node,distance,parent\n");
+    }
+    long records = 0;
+    for (int node = 0; node < graph.numNodes(); node++) {
+      int distance = result.distance(node);
+      if (reachableOnly && distance == ShortestPath.INFINITY) {
+        continue;
+      }
+      int parentArc = distance == ShortestPath.INFINITY ? -1 : result.parentArc(node);
+      int parent = parentArc < 0 ? -1 : label(graph.tail(parentArc));
+      if (buffer.remaining() < MAX_RECORD) {
+        buffer.flip();
+        sink.drain(buffer);
+        buffer.clear();
+      }
+      putRecord(buffer, format, label(node), distance, parentArc >= 0, parent);
+      records += 1;
+    }
+    buffer.flip();
+    sink.drain(buffer);
+    return records;
+  }
+
+  /**
+   *  Formats one record.
+   *
+   *  @param buffer     the buffer, with room for the record
+   *  @param format     the format
+   *  @param node       the node's label
+   *  @param distance   its distance, or INFINITY
+   *  @param hasParent  was it reached by an arc?
+   *  @param parent     the label of the tail of that arc, or -1
+   */
+  private static void putRecord(ByteBuffer buffer, Format format, int node, int distance,
+                                boolean hasParent, int parent) {
+    switch (format) {
+      case BINARY:
+        buffer.putInt(node).putInt(distance).putInt(parent);
+        break;
+      case CSV:
+        putNumber(buffer, node);
+        buffer.put((byte) ',');
+        if (distance != ShortestPath.INFINITY) {
+          putNumber(buffer, distance);
+        }
+        buffer.put((byte) ',');
+        if (hasParent) {
+          putNumber(buffer, parent);
+        }
+        buffer.put((byte) '\n');
+        break;
+      default:
+        putAscii(buffer, " To node ");
+        putNumber(buffer, node);
+        if (distance == ShortestPath.INFINITY) {
+          putAscii(buffer, ", no path\n");
+          break;
+        }
+        putAscii(buffer, ", distance is: ");
+        putNumber(buffer, distance);
+        if (hasParent) {
+          putAscii(buffer, ", via node ");
+          putNumber(buffer, parent);
+        }
+        buffer.put((byte) '\n');
+        break;
+    }
+  }
+
+  /**
+   *  Writes the decimal digits of a number, without making a String.
+   *
+   *  @param buffer  the buffer
+   *  @param number  the number
+   */
+  private static void putNumber(ByteBuffer buffer, int number) {
+    long value = number;
+    if (value < 0) {
+      buffer.put((byte) '-');
+      value = -value;
+    }
+    long divisor = 1;
+    while (divisor * 10 <= value) {
+      divisor *= 10;
+    }
+    for (; divisor > 0; divisor /= 10) {
+      buffer.put((byte) ('0' + value / divisor % 10));
+    }
+  }
+
+  /**
+   *  Writes a constant of ASCII text.
+   *
+   *  @param buffer  the buffer
+   *  @param text    the text, all ASCII
+   */
+  private static void putAscii(ByteBuffer buffer, String text) {
+    for (int i = 0; i < text.length(); i++) {
+      buffer.put((byte) text.charAt(i));
+    }
+  }
+
+  /**
+   *  Returns the number to write for a node.
+   */
+  private int label(int node) {
+    return labels == null ? node : labels.label(node);
+  }
+
+  /**
+   *  Takes the formatted bytes from position to limit of a buffer.
+   */
+  private interface Sink {
+    /**
+     *  Hands on the bytes between the buffer's position and limit.
+     *
+     *  @param buffer  the buffer
+     *  @throws IOException  if the output cannot be written
+     */
+    void drain(ByteBuffer buffer) throws IOException;
+  }
+}
@@ -0,0 +1,14 @@
+/**
+ *  Supplies the weight of each arc of a CsrGraph, by arc id.  The snapshot
+ *  itself is one provider, returning the weights it was built with; other
+ *  providers can keep weights that change while the topology stays fixed.
+ */
+public interface WeightProvider {
+  /**
+   *  Returns the current weight of an arc, which is never negative.
+   *
+   *  @param arc  the arc id
+   *  @return     the weight of the arc
+   */
+  int weight(int arc);
+}
@@ -0,0 +1,80 @@
+#!/bin/sh
+#
+# Runs the JMH benchmarks one (benchmark, shape, size, implementation) at a
+# time, each in a JVM of its own under a time limit, with -prof gc, and
+# prints a table of the average time and the bytes allocated per operation.
+# A run that does not finish is listed with the reason: out of memory, over
+# the time limit, or not supported by the tree.  Once a run fails for lack
+# of memory or time, the larger sizes of the same benchmark, shape and
+# implementation are not attempted.
+#
+# Usage: run-benchmarks.sh [jar] [limit in seconds]
+#
+#   gradle jmhJar && ./run-benchmarks.sh > benchmark-results.txt
+#
+# SHAPES, SIZES, IMPLEMENTATIONS and BENCHMARKS may be set in the
+# environment to run part of the matrix.
+
+JAR=${1:-build/libs/graph-jmh.jar}
+LIMIT=${2:-600}
+SHAPES=${SHAPES:-"geometric grid scalefree"}
+SIZES=${SIZES:-"1000 10000 100000 1000000 10000000"}
+IMPLEMENTATIONS=${IMPLEMENTATIONS:-"GraphImplementation ComplexGraph OffHeapGraph"}
+BENCHMARKS=${BENCHMARKS:-"GraphBenchmarks.addNodeAddEdge GraphBenchmarks.getOutgoingEdges
+  GraphBenchmarks.outgoingEdgesView GraphBenchmarks.executeDijkstra
+  TraversalBenchmarks.breadthFirstTraversal TraversalBenchmarks.depthFirstTraversal"}
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+printf '%-10s %9s %-20s %-22s %12s %14s  %s\n' \
+  shape nodes implementation benchmark ms/op alloc-B/op note
+
+for benchmark in $BENCHMARKS; do
+  for shape in $SHAPES; do
+    for implementation in $IMPLEMENTATIONS; do
+      # TraversalBenchmarks leaves ComplexGraph out
+      case $benchmark/$implementation in
+        TraversalBenchmarks.*/ComplexGraph) continue ;;
+      esac
+      stopped=
+      for nodes in $SIZES; do
+        row=$(printf '%-10s %9s %-20s %-22s' "$shape" "$nodes" "$implementation" "${benchmark#*.}")
+        if [ -n "$stopped" ]; then
+          printf '%s %12s %14s  not run: %s\n' "$row" - - "$stopped"
+          continue
+        fi
+        # Big graphs take seconds per operation, so fewer iterations
+        if [ "$nodes" -ge 1000000 ]; then
+          iterations="-wi 1 -i 2"
+        else
+          iterations="-wi 2 -i 3"
+        fi
+        rm -f "$WORK/run.csv"
+        timeout "$LIMIT" java -jar "$JAR" "bench\\.$benchmark\$" -foe true -prof gc $iterations \
+          -p shape="$shape" -p nodes="$nodes" -p implementation="$implementation" \
+          -rf csv -rff "$WORK/run.csv" > "$WORK/run.log" 2>&1
+        status=$?
+        if [ $status -eq 0 ] && [ -s "$WORK/run.csv" ]; then
+          awk -F, -v row="$row" '
+            $1 ~ /:gc\.alloc\.rate\.norm"$/ { alloc = $5 }
+            $1 !~ /:/ && NR > 1 { score = $5 }
+            END { printf "%s %12.3f %14.0f\n", row, score, alloc }' "$WORK/run.csv"
+          continue
+        fi
+        if grep -q 'OutOfMemoryError' "$WORK/run.log"; then
+          note="out of memory"
+          stopped="out of memory at $nodes nodes"
+        elif [ $status -eq 124 ]; then
+          note="over the ${LIMIT} s limit"
+          stopped="over the time limit at $nodes nodes"
+        elif grep -q 'UnsupportedOperationException' "$WORK/run.log"; then
+          note="unsupported: $(grep -m 1 'UnsupportedOperationException' "$WORK/run.log" | sed 's/.*Exception: //')"
+        else
+          note="failed: $(grep -m 1 -E '^[a-z]+\.[A-Za-z.$]+(Exception|Error)' "$WORK/run.log")"
+        fi
+        printf '%s %12s %14s  %s\n' "$row" - - "$note"
+      done
+    done
+  done
+done
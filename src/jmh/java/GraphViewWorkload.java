@@ -0,0 +1,24 @@
+/**
+ *  GraphWorkload with what only today's tree has: OffHeapGraph and the
+ *  non-copying outgoingEdges views.
+ */
+public class GraphViewWorkload extends GraphWorkload {
+  @Override
+  public long outgoingEdgesView() {
+    long count = 0;
+    for (Graph.Node<PlacedData<Integer>,Integer> node : graph.nodes()) {
+      for (Graph.Edge<PlacedData<Integer>,Integer> edge : node.outgoingEdges()) {
+        count += 1;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  protected Graph<PlacedData<Integer>,Integer> newGraph() {
+    if (implementation.equals("OffHeapGraph")) {
+      return new OffHeapGraph<PlacedData<Integer>,Integer>();
+    }
+    return super.newGraph();
+  }
+}
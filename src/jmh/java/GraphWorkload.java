@@ -0,0 +1,217 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ *  The benchmark operations on one generated graph, written against the
+ *  Graph API as it was before the performance work began, so that the same
+ *  benchmarks can be compiled into the baseline tree (with GraphSink and
+ *  GraphGenerators copied in) and compared with today's code.
+ *  GraphViewWorkload adds what only today's code has.
+ *
+ *  The generated nodes and edges are recorded once, and every build
+ *  replays them into a new graph, so generation is never timed.
+ */
+public class GraphWorkload implements bench.Workload {
+  /** The Graph class under test. */
+  protected String implementation;
+
+  /** x coordinate of each generated node. */
+  private int[] xs = new int[16];
+
+  /** y coordinate of each generated node. */
+  private int[] ys = new int[16];
+
+  /** Number of generated nodes. */
+  private int numNodes;
+
+  /** Tail of each generated edge. */
+  private int[] tails = new int[16];
+
+  /** Head of each generated edge. */
+  private int[] heads = new int[16];
+
+  /** Number of generated edges. */
+  private int numEdges;
+
+  /** The graph the read-only benchmarks run on. */
+  protected Graph<PlacedData<Integer>,Integer> graph;
+
+  /** Node 0 of that graph. */
+  protected Graph.Node<PlacedData<Integer>,Integer> start;
+
+  /** Dijkstra.executeDijkstra for this implementation, or null if there is none. */
+  private MethodHandle executeDijkstra;
+
+  public void setUp(String shape, int numNodes, String implementation) {
+    this.implementation = implementation;
+    GraphSink recorder = new GraphSink() {
+      public void addNode(int x, int y) {
+        recordNode(x, y);
+      }
+
+      public void addEdge(int tail, int head) {
+        recordEdge(tail, head);
+      }
+
+      public void addEdge(int tail, int head, int weight) {
+        recordEdge(tail, head);
+      }
+    };
+    if (shape.equals("geometric")) {
+      GraphGenerators.nearestNeighbours(numNodes, 4, numNodes, recorder);
+    }
+    else if (shape.equals("grid")) {
+      int side = Math.max(1, (int) Math.sqrt(numNodes));
+      GraphGenerators.grid(side, side, 0.0, numNodes, recorder);
+    }
+    else if (shape.equals("scalefree")) {
+      GraphGenerators.barabasiAlbert(numNodes, 2, numNodes, recorder);
+    }
+    else {
+      throw new IllegalArgumentException("Unknown shape " + shape);
+    }
+    build();
+    executeDijkstra = findExecuteDijkstra(graph.getClass());
+  }
+
+  public Object build() {
+    Graph<PlacedData<Integer>,Integer> built = newGraph();
+    @SuppressWarnings("unchecked")
+    Graph.Node<PlacedData<Integer>,Integer>[] nodes = new Graph.Node[numNodes];
+    for (int i = 0; i < numNodes; i++) {
+      nodes[i] = built.addNode(new PlacedData<Integer>(i, xs[i], ys[i]));
+    }
+    for (int i = 0; i < numEdges; i++) {
+      built.addEdge(i, nodes[tails[i]], nodes[heads[i]]);
+    }
+    graph = built;
+    start = nodes[0];
+    return built;
+  }
+
+  public long getOutgoingEdges() {
+    long count = 0;
+    for (Graph.Node<PlacedData<Integer>,Integer> node : graph.getNodes()) {
+      count += node.getOutgoingEdges().size();
+    }
+    return count;
+  }
+
+  public long outgoingEdgesView() {
+    throw new UnsupportedOperationException("This tree has no outgoingEdges view.");
+  }
+
+  public long breadthFirstTraversal() {
+    Counter counter = new Counter();
+    graph.breadthFirstTraversal(start, counter);
+    return counter.count;
+  }
+
+  public long depthFirstTraversal() {
+    Counter counter = new Counter();
+    graph.depthFirstTraversal(start, counter);
+    return counter.count;
+  }
+
+  public Object executeDijkstra() {
+    if (executeDijkstra == null) {
+      throw new UnsupportedOperationException("Dijkstra.executeDijkstra does not accept " + implementation + ".");
+    }
+    Dijkstra dijkstra = new Dijkstra();
+    try {
+      executeDijkstra.invoke(dijkstra, graph, start);
+    }
+    catch (RuntimeException | Error e) {
+      throw e;
+    }
+    catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+    return dijkstra;
+  }
+
+  /**
+   *  Returns a new, empty graph of the implementation under test.
+   *
+   *  @return the graph
+   */
+  protected Graph<PlacedData<Integer>,Integer> newGraph() {
+    if (implementation.equals("GraphImplementation")) {
+      return new GraphImplementation<PlacedData<Integer>,Integer>();
+    }
+    if (implementation.equals("ComplexGraph")) {
+      return new ComplexGraph<PlacedData<Integer>,Integer>();
+    }
+    throw new UnsupportedOperationException("This tree has no " + implementation + ".");
+  }
+
+  /**
+   *  Finds the executeDijkstra(graph, node) overload that accepts a graph
+   *  class: today it takes any Graph, before the performance work only a
+   *  ComplexGraph.
+   */
+  private static MethodHandle findExecuteDijkstra(Class<?> graphClass) {
+    for (Method method : Dijkstra.class.getMethods()) {
+      Class<?>[] parameters = method.getParameterTypes();
+      if (method.getName().equals("executeDijkstra") && parameters.length == 2
+          && parameters[0].isAssignableFrom(graphClass) && parameters[1] == Graph.Node.class) {
+        try {
+          return MethodHandles.publicLookup().unreflect(method);
+        }
+        catch (IllegalAccessException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   *  Records a generated node.
+   */
+  private void recordNode(int x, int y) {
+    if (numNodes == xs.length) {
+      xs = Arrays.copyOf(xs, 2 * numNodes);
+      ys = Arrays.copyOf(ys, 2 * numNodes);
+    }
+    xs[numNodes] = x;
+    ys[numNodes] = y;
+    numNodes += 1;
+  }
+
+  /**
+   *  Records a generated edge.
+   */
+  private void recordEdge(int tail, int head) {
+    if (numEdges == tails.length) {
+      tails = Arrays.copyOf(tails, 2 * numEdges);
+      heads = Arrays.copyOf(heads, 2 * numEdges);
+    }
+    tails[numEdges] = tail;
+    heads[numEdges] = head;
+    numEdges += 1;
+  }
+
+  /**
+   *  Counts the nodes a traversal visits.
+   */
+  private static class Counter implements Graph.Processor<PlacedData<Integer>,Integer> {
+    /** Number of nodes visited. */
+    public int count;
+
+    public boolean preProcessNode(Graph.Node<PlacedData<Integer>,Integer> node) {
+      count += 1;
+      return false;
+    }
+
+    public boolean postProcessNode(Graph.Node<PlacedData<Integer>,Integer> node) {
+      return false;
+    }
+
+    public boolean processEdge(Graph.Edge<PlacedData<Integer>,Integer> edge) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  Times building a graph with addNode and addEdge, getOutgoingEdges on
+ *  every node, the outgoingEdges views, and Dijkstra.executeDijkstra, on
+ *  generated random geometric, grid and scale-free graphs in every Graph
+ *  implementation.  Run with -prof gc for the bytes allocated per
+ *  operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class GraphBenchmarks {
+  /** The shape of the generated graph. */
+  @Param({"geometric", "grid", "scalefree"})
+  public String shape;
+
+  /** The number of nodes generated. */
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int nodes;
+
+  /** The Graph class under test. */
+  @Param({"GraphImplementation", "ComplexGraph", "OffHeapGraph"})
+  public String implementation;
+
+  /** The graph and its input. */
+  private Workload workload;
+
+  /**
+   *  Generates the graph.
+   */
+  @Setup
+  public void setUp() {
+    workload = Workloads.create(shape, nodes, implementation);
+  }
+
+  @Benchmark
+  public Object addNodeAddEdge() {
+    return workload.build();
+  }
+
+  @Benchmark
+  public long getOutgoingEdges() {
+    return workload.getOutgoingEdges();
+  }
+
+  @Benchmark
+  public long outgoingEdgesView() {
+    return workload.outgoingEdgesView();
+  }
+
+  @Benchmark
+  public Object executeDijkstra() {
+    return workload.executeDijkstra();
+  }
+}
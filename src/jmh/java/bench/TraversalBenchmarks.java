@@ -0,0 +1,61 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  Times breadthFirstTraversal and depthFirstTraversal from node 0 on the
+ *  same graphs as GraphBenchmarks.  ComplexGraph is left out: its
+ *  traversals return at once without visiting anything, so there is
+ *  nothing to measure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class TraversalBenchmarks {
+  /** The shape of the generated graph. */
+  @Param({"geometric", "grid", "scalefree"})
+  public String shape;
+
+  /** The number of nodes generated. */
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int nodes;
+
+  /** The Graph class under test. */
+  @Param({"GraphImplementation", "OffHeapGraph"})
+  public String implementation;
+
+  /** The graph and its input. */
+  private Workload workload;
+
+  /**
+   *  Generates the graph.
+   */
+  @Setup
+  public void setUp() {
+    workload = Workloads.create(shape, nodes, implementation);
+  }
+
+  @Benchmark
+  public long breadthFirstTraversal() {
+    return workload.breadthFirstTraversal();
+  }
+
+  @Benchmark
+  public long depthFirstTraversal() {
+    return workload.depthFirstTraversal();
+  }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+/**
+ *  The graph operations the benchmarks time, on one generated graph in one
+ *  Graph implementation.  The graph classes live in the default package,
+ *  which JMH's generated code cannot refer to, so the benchmarks reach them
+ *  through this interface; GraphWorkload implements it in the default
+ *  package and is found by name once, when the benchmark is set up.
+ */
+public interface Workload {
+  /**
+   *  Generates the input graph and builds it in the implementation.
+   *
+   *  @param shape           "geometric", "grid" or "scalefree"
+   *  @param numNodes        the number of nodes to generate
+   *  @param implementation  "GraphImplementation", "ComplexGraph" or "OffHeapGraph"
+   *  @throws UnsupportedOperationException  if the tree has no such implementation
+   */
+  void setUp(String shape, int numNodes, String implementation);
+
+  /**
+   *  Builds a new graph from the input with addNode and addEdge.
+   *
+   *  @return the graph
+   */
+  Object build();
+
+  /**
+   *  Calls getOutgoingEdges on every node.
+   *
+   *  @return the total number of edges returned
+   */
+  long getOutgoingEdges();
+
+  /**
+   *  Iterates the outgoingEdges view of every node.
+   *
+   *  @return the total number of edges seen
+   *  @throws UnsupportedOperationException  if the tree has no views
+   */
+  long outgoingEdgesView();
+
+  /**
+   *  Runs breadthFirstTraversal from node 0.
+   *
+   *  @return the number of nodes visited
+   */
+  long breadthFirstTraversal();
+
+  /**
+   *  Runs depthFirstTraversal from node 0.
+   *
+   *  @return the number of nodes visited
+   */
+  long depthFirstTraversal();
+
+  /**
+   *  Runs Dijkstra.executeDijkstra from node 0.
+   *
+   *  @return the Dijkstra object holding the result
+   *  @throws UnsupportedOperationException  if executeDijkstra does not
+   *                                         accept the implementation
+   */
+  Object executeDijkstra();
+}
@@ -0,0 +1,50 @@
+package bench;
+
+/**
+ *  Creates the Workload for a benchmark.
+ */
+final class Workloads {
+  /**
+   *  Constructor.  Not used.
+   */
+  private Workloads() {
+  }
+
+  /**
+   *  Creates and sets up the most capable workload the tree provides:
+   *  GraphViewWorkload where the Graph views exist, else GraphWorkload.
+   *
+   *  @param shape           the graph shape
+   *  @param numNodes        the number of nodes
+   *  @param implementation  the Graph class to use
+   *  @return                the workload, ready to run
+   */
+  static Workload create(String shape, int numNodes, String implementation) {
+    Workload workload;
+    try {
+      workload = (Workload) Class.forName(find("GraphViewWorkload", "GraphWorkload"))
+          .getDeclaredConstructor().newInstance();
+    }
+    catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot create the workload.", e);
+    }
+    workload.setUp(shape, numNodes, implementation);
+    return workload;
+  }
+
+  /**
+   *  Returns the first of the named classes that exists.
+   */
+  private static String find(String... names) throws ClassNotFoundException {
+    for (String name : names) {
+      try {
+        Class.forName(name);
+        return name;
+      }
+      catch (ClassNotFoundException e) {
+        // Try the next one
+      }
+    }
+    throw new ClassNotFoundException(String.join(", ", names));
+  }
+}